@@ -0,0 +1,290 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.workflowsim.benchmarks.Benchmark;
+
+/**
+ * The benchmarks of the simulation kernel: the future event queues under the hold model, the
+ * selection of deferred events, and whole clock ticks of a simulation of synthetic entities that
+ * keep sending events to each other. They are in the package of the kernel to create events
+ * directly.
+ *
+ * @see org.workflowsim.benchmarks.BenchmarkRunner
+ */
+public final class KernelBenchmarks {
+
+	/** The seed of the random numbers of the benchmarks. */
+	private static final long SEED = 42;
+
+	private KernelBenchmarks() {
+	}
+
+	/**
+	 * Creates the benchmarks of the kernel.
+	 *
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> create() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (String queue : new String[] { "tree", "heap", "calendar" }) {
+			benchmarks.add(new FutureQueueHold(queue, 1000));
+			benchmarks.add(new FutureQueueHold(queue, 100000));
+		}
+		benchmarks.add(new DeferredSelect(100, 100, 8));
+		for (String queue : new String[] { "tree", "heap", "calendar" }) {
+			benchmarks.add(new ClockTicks(queue, 1000, 100));
+		}
+		return benchmarks;
+	}
+
+	/**
+	 * Creates a future event queue.
+	 *
+	 * @param type <tt>tree</tt>, <tt>heap</tt> or <tt>calendar</tt>
+	 * @return the queue
+	 */
+	private static FutureQueue createQueue(String type) {
+		if (type.equals("heap")) {
+			return new HeapFutureQueue();
+		} else if (type.equals("calendar")) {
+			return new CalendarFutureQueue();
+		}
+		return new TreeSetFutureQueue();
+	}
+
+	/**
+	 * The hold model: the queue holds a fixed number of events, and each operation polls the first
+	 * event and adds a new one at a random time after it. An operation is a poll and an add.
+	 */
+	private static final class FutureQueueHold extends Benchmark {
+
+		/** The number of operations per invocation. */
+		private static final int OPERATIONS = 100000;
+
+		private final String type;
+
+		private final int size;
+
+		private final double[] increments = new double[OPERATIONS];
+
+		private FutureQueue queue;
+
+		FutureQueueHold(String type, int size) {
+			super("kernel.futureQueue." + type + "." + size);
+			this.type = type;
+			this.size = size;
+			Random random = new Random(SEED);
+			for (int i = 0; i < OPERATIONS; i++) {
+				// a few distinct delays, so that many events share their time
+				increments[i] = 1 + random.nextInt(100) * 0.5;
+			}
+		}
+
+		@Override
+		public void setUp() {
+			queue = createQueue(type);
+			Random random = new Random(SEED);
+			for (int i = 0; i < size; i++) {
+				queue.addEvent(new SimEvent(SimEvent.SEND, random.nextInt(50) * 1.0, i, i, i, null));
+			}
+		}
+
+		@Override
+		public long run() {
+			for (int i = 0; i < OPERATIONS; i++) {
+				SimEvent first = queue.poll();
+				queue.addEvent(new SimEvent(SimEvent.SEND, first.eventTime() + increments[i], first
+						.getSource(), first.getDestination(), first.getTag(), null));
+			}
+			consume(queue.peek());
+			return OPERATIONS;
+		}
+
+		@Override
+		public void tearDown() {
+			queue = null;
+		}
+	}
+
+	/**
+	 * Selects all the events deferred to a number of entities, by tag, starting with the tags
+	 * sent last so that the queues are scanned. An operation is a select.
+	 */
+	private static final class DeferredSelect extends Benchmark {
+
+		private final int entities;
+
+		private final int events;
+
+		private final int tags;
+
+		private DeferredQueue deferred;
+
+		DeferredSelect(int entities, int events, int tags) {
+			super("kernel.deferredQueue.select");
+			this.entities = entities;
+			this.events = events;
+			this.tags = tags;
+		}
+
+		@Override
+		public void setUp() {
+			deferred = new DeferredQueue();
+			for (int i = 0; i < events; i++) {
+				for (int dest = 0; dest < entities; dest++) {
+					deferred.addEvent(new SimEvent(SimEvent.SEND, i, dest, dest, i % tags, null));
+				}
+			}
+		}
+
+		@Override
+		public long run() {
+			long selected = 0;
+			for (int tag = tags - 1; tag >= 0; tag--) {
+				PredicateType p = new PredicateType(tag);
+				for (int dest = 0; dest < entities; dest++) {
+					while (deferred.select(dest, p) != null) {
+						selected++;
+					}
+				}
+			}
+			return selected;
+		}
+
+		@Override
+		public void tearDown() {
+			deferred = null;
+		}
+	}
+
+	/**
+	 * Runs {@link CloudSim#runClockTick()} until the future event queue is empty, in a simulation
+	 * of entities that each forward a number of events to random entities, after random delays.
+	 * An operation is an event processed by an entity.
+	 */
+	private static final class ClockTicks extends Benchmark {
+
+		/** The tag of the events of the entities. */
+		private static final int PING = 424242;
+
+		private final String type;
+
+		private final int entities;
+
+		private final int hops;
+
+		private SimulationContext context;
+
+		private SimulationContext previous;
+
+		private long[] received;
+
+		ClockTicks(String type, int entities, int hops) {
+			super("kernel.runClockTick." + type);
+			this.type = type;
+			this.entities = entities;
+			this.hops = hops;
+		}
+
+		@Override
+		public void setUp() {
+			context = new SimulationContext();
+			previous = context.bind();
+			context.init(1, null, false, createQueue(type));
+			received = new long[1];
+			Random random = new Random(SEED);
+			int first = -1;
+			for (int i = 0; i < entities; i++) {
+				PingEntity entity = new PingEntity("Ping" + i, random.nextLong(), hops, received);
+				if (first < 0) {
+					first = entity.getId();
+				}
+			}
+			for (SimEntity entity : context.getEntityList()) {
+				if (entity instanceof PingEntity) {
+					((PingEntity) entity).setTargets(first, entities);
+				}
+			}
+			CloudSim.runStart();
+		}
+
+		@Override
+		public long run() {
+			while (!CloudSim.runClockTick()) {
+				// runs until there are no more future events
+			}
+			return Math.max(1, received[0]);
+		}
+
+		@Override
+		public void tearDown() {
+			context.finishSimulation();
+			SimulationContext.restore(previous);
+			context = null;
+		}
+
+		/**
+		 * An entity forwarding the events it receives to random entities.
+		 */
+		private static final class PingEntity extends SimEntity {
+
+			private static final long serialVersionUID = 1L;
+
+			private final Random random;
+
+			private final long[] received;
+
+			private int hops;
+
+			private int first;
+
+			private int count;
+
+			PingEntity(String name, long seed, int hops, long[] received) {
+				super(name);
+				this.random = new Random(seed);
+				this.hops = hops;
+				this.received = received;
+			}
+
+			void setTargets(int first, int count) {
+				this.first = first;
+				this.count = count;
+			}
+
+			@Override
+			public void startEntity() {
+				forward();
+			}
+
+			@Override
+			public void processEvent(SimEvent ev) {
+				received[0]++;
+				forward();
+			}
+
+			@Override
+			public void shutdownEntity() {
+			}
+
+			private void forward() {
+				if (hops-- > 0) {
+					schedule(first + random.nextInt(count), 1 + random.nextInt(20) * 0.25, PING);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.benchmarks;
+
+/**
+ * A benchmark run by the BenchmarkRunner. Each invocation calls setUp, which
+ * is not timed, then run, which is timed, then tearDown. The time of an
+ * invocation is divided by the number of operations run returns, so the
+ * score of a benchmark is the average time per operation, e.g. per event or
+ * per task.
+ *
+ * A benchmark is run in a simulation context of its own, bound to the
+ * thread, so its Parameters and ReplicaCatalog do not leak into the other
+ * benchmarks.
+ *
+ * @date Oct 18, 2026
+ */
+public abstract class Benchmark {
+
+    /**
+     * Keeps the results of the benchmarks alive, so that the JIT can not
+     * remove the code computing them.
+     */
+    private static volatile Object sink;
+
+    /**
+     * The name of the benchmark.
+     */
+    private final String name;
+
+    /**
+     * Initialize a Benchmark
+     *
+     * @param name the name, e.g. kernel.futureQueue.heap
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the benchmark
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Prepares an invocation. It is not timed.
+     *
+     * @throws Exception if the benchmark can not be prepared
+     */
+    public void setUp() throws Exception {
+    }
+
+    /**
+     * Runs an invocation. It is timed.
+     *
+     * @return the number of operations run, at least 1
+     * @throws Exception if the benchmark fails
+     */
+    public abstract long run() throws Exception;
+
+    /**
+     * Cleans up after an invocation. It is not timed.
+     *
+     * @throws Exception if the benchmark can not be cleaned up
+     */
+    public void tearDown() throws Exception {
+    }
+
+    /**
+     * Consumes a result of the benchmark
+     *
+     * @param result the result
+     */
+    protected static void consume(Object result) {
+        sink = result;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.benchmarks;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.KernelBenchmarks;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.utils.ReplicationRunner;
+
+/**
+ * BenchmarkRunner runs the benchmarks of the simulation kernel and of the
+ * WorkflowSim pipeline, in the manner of JMH: a number of warm-up iterations,
+ * then a number of measured iterations, each of which invokes a benchmark
+ * for a fixed time. The score of a benchmark is the mean time per operation
+ * over the measured iterations, with the 99.9% confidence interval, and the
+ * results are written as JSON or CSV so that they can be compared from one
+ * build to the next.
+ *
+ * Usage: BenchmarkRunner [-f regex] [-wi warmups] [-i iterations]
+ * [-t milliseconds] [-rf json|csv] [-rff file] [-dax dir] [-l]
+ *
+ * The benchmarks are named kernel.* and workflow.*; -f selects the ones
+ * whose name contains a match of the regex, and -l lists them.
+ *
+ * @date Oct 18, 2026
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The confidence level of the scores.
+     */
+    private static final double CONFIDENCE_LEVEL = 0.999;
+    /**
+     * The number of warm-up iterations.
+     */
+    private int warmupIterations = 3;
+    /**
+     * The number of measured iterations.
+     */
+    private int iterations = 5;
+    /**
+     * The time of an iteration, in milliseconds.
+     */
+    private long iterationTime = 1000;
+
+    /**
+     * Sets the number of warm-up iterations
+     *
+     * @param warmupIterations the number of iterations, 3 by default
+     */
+    public void setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+    }
+
+    /**
+     * Sets the number of measured iterations
+     *
+     * @param iterations the number of iterations, 5 by default
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("At least one iteration is needed, but got:" + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Sets the time of an iteration. An iteration invokes the benchmark at
+     * least once.
+     *
+     * @param iterationTime the time in milliseconds, 1000 by default
+     */
+    public void setIterationTime(long iterationTime) {
+        this.iterationTime = iterationTime;
+    }
+
+    /**
+     * Runs a benchmark in a simulation context of its own, with the log
+     * disabled
+     *
+     * @param benchmark the benchmark
+     * @return the result
+     * @throws Exception if the benchmark fails
+     */
+    public Result run(Benchmark benchmark) throws Exception {
+        SimulationContext previous = new SimulationContext().bind();
+        boolean disabled = Log.isDisabled();
+        Log.setDisabled(true);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(benchmark, null);
+            }
+            double[] scores = new double[iterations];
+            long[] operations = new long[1];
+            for (int i = 0; i < iterations; i++) {
+                scores[i] = iterate(benchmark, operations);
+            }
+            return new Result(benchmark.getName(), scores, operations[0]);
+        } finally {
+            Log.setDisabled(disabled);
+            SimulationContext.restore(previous);
+        }
+    }
+
+    /**
+     * Runs an iteration
+     *
+     * @param benchmark the benchmark
+     * @param operations the counter of the operations run, or null
+     * @return the time per operation, in nanoseconds
+     * @throws Exception if the benchmark fails
+     */
+    private double iterate(Benchmark benchmark, long[] operations) throws Exception {
+        long deadline = System.nanoTime() + iterationTime * 1000000L;
+        long time = 0;
+        long ops = 0;
+        do {
+            benchmark.setUp();
+            long start = System.nanoTime();
+            ops += benchmark.run();
+            time += System.nanoTime() - start;
+            benchmark.tearDown();
+        } while (System.nanoTime() < deadline);
+        if (operations != null) {
+            operations[0] += ops;
+        }
+        return (double) time / Math.max(1, ops);
+    }
+
+    /**
+     * The result of a benchmark.
+     */
+    public static class Result {
+
+        private final String name;
+        private final double[] scores;
+        private final long operations;
+        private final ReplicationRunner.Statistic statistic;
+
+        Result(String name, double[] scores, long operations) {
+            this.name = name;
+            this.scores = scores;
+            this.operations = operations;
+            this.statistic = new ReplicationRunner.Statistic(scores, CONFIDENCE_LEVEL);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the mean time per operation
+         *
+         * @return the score in nanoseconds per operation
+         */
+        public double getScore() {
+            return statistic.getMean();
+        }
+
+        /**
+         * Gets the half width of the confidence interval of the score
+         *
+         * @return the error in nanoseconds per operation, or NaN if there is
+         * a single iteration
+         */
+        public double getScoreError() {
+            return statistic.getConfidenceHalfWidth();
+        }
+
+        /**
+         * Gets the scores of the measured iterations
+         *
+         * @return the scores in nanoseconds per operation
+         */
+        public double[] getScores() {
+            return scores.clone();
+        }
+
+        /**
+         * Gets the number of operations of the measured iterations
+         *
+         * @return the number of operations
+         */
+        public long getOperations() {
+            return operations;
+        }
+    }
+
+    /**
+     * Writes results as a JSON array, with the fields JMH uses for the
+     * average time mode
+     *
+     * @param results the results
+     * @param out the writer
+     */
+    public static void writeJson(List<Result> results, PrintWriter out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            StringBuilder raw = new StringBuilder();
+            for (double score : result.scores) {
+                raw.append(raw.length() == 0 ? "" : ", ").append(number(score));
+            }
+            out.println("    {");
+            out.println("        \"benchmark\" : \"" + result.getName() + "\",");
+            out.println("        \"mode\" : \"avgt\",");
+            out.println("        \"measurementIterations\" : " + result.scores.length + ",");
+            out.println("        \"operations\" : " + result.getOperations() + ",");
+            out.println("        \"primaryMetric\" : {");
+            out.println("            \"score\" : " + number(result.getScore()) + ",");
+            out.println("            \"scoreError\" : " + number(result.getScoreError()) + ",");
+            out.println("            \"scoreConfidence\" : [" + number(result.getScore() - result.getScoreError())
+                    + ", " + number(result.getScore() + result.getScoreError()) + "],");
+            out.println("            \"scoreUnit\" : \"ns/op\",");
+            out.println("            \"rawData\" : [[" + raw + "]]");
+            out.println("        }");
+            out.println("    }" + (i + 1 < results.size() ? "," : ""));
+        }
+        out.println("]");
+        out.flush();
+    }
+
+    /**
+     * Writes results as CSV, with a header line
+     *
+     * @param results the results
+     * @param out the writer
+     */
+    public static void writeCsv(List<Result> results, PrintWriter out) {
+        out.println("benchmark,mode,iterations,operations,score,scoreError,unit");
+        for (Result result : results) {
+            out.println(result.getName() + ",avgt," + result.scores.length + ","
+                    + result.getOperations() + "," + number(result.getScore()) + ","
+                    + number(result.getScoreError()) + ",ns/op");
+        }
+        out.flush();
+    }
+
+    /**
+     * Formats a number for JSON and CSV, where NaN is written as null
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Creates all the benchmarks
+     *
+     * @param daxDir the directory of the DAX files
+     * @return the benchmarks
+     */
+    public static List<Benchmark> createBenchmarks(String daxDir) {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.addAll(KernelBenchmarks.create());
+        benchmarks.addAll(WorkflowBenchmarks.create(daxDir));
+        return benchmarks;
+    }
+
+    /**
+     * Runs the benchmarks selected on the command line
+     *
+     * @param args the options, see the class description
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        Pattern filter = null;
+        String format = "json";
+        String file = null;
+        String daxDir = "config/dax";
+        boolean list = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("-l")) {
+                    list = true;
+                } else if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                } else if (option.equals("-f")) {
+                    filter = Pattern.compile(args[++i]);
+                } else if (option.equals("-wi")) {
+                    runner.setWarmupIterations(Integer.parseInt(args[++i]));
+                } else if (option.equals("-i")) {
+                    runner.setIterations(Integer.parseInt(args[++i]));
+                } else if (option.equals("-t")) {
+                    runner.setIterationTime(Long.parseLong(args[++i]));
+                } else if (option.equals("-rf")) {
+                    format = args[++i];
+                } else if (option.equals("-rff")) {
+                    file = args[++i];
+                } else if (option.equals("-dax")) {
+                    daxDir = args[++i];
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (!format.equals("json") && !format.equals("csv")) {
+                throw new IllegalArgumentException("Unknown result format " + format);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BenchmarkRunner [-f regex] [-wi warmups] [-i iterations] "
+                    + "[-t milliseconds] [-rf json|csv] [-rff file] [-dax dir] [-l]");
+            System.exit(1);
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (Benchmark benchmark : createBenchmarks(daxDir)) {
+            if (filter == null || filter.matcher(benchmark.getName()).find()) {
+                benchmarks.add(benchmark);
+            }
+        }
+        if (list) {
+            for (Benchmark benchmark : benchmarks) {
+                System.out.println(benchmark.getName());
+            }
+            return;
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        try {
+            for (Benchmark benchmark : benchmarks) {
+                System.gc();
+                Result result = runner.run(benchmark);
+                System.err.println(String.format(Locale.ROOT, "%-48s %14.3f +/- %10.3f ns/op",
+                        result.getName(), result.getScore(), result.getScoreError()));
+                results.add(result);
+            }
+
+            PrintWriter out = new PrintWriter(file == null ? new OutputStreamWriter(System.out)
+                    : new FileWriter(file));
+            try {
+                if (format.equals("csv")) {
+                    writeCsv(results, out);
+                } else {
+                    writeJson(results, out);
+                }
+            } finally {
+                if (file != null) {
+                    out.close();
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CompiledWorkflow;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.clustering.BasicClustering;
+import org.workflowsim.clustering.BlockClustering;
+import org.workflowsim.clustering.HorizontalClustering;
+import org.workflowsim.clustering.VerticalClustering;
+import org.workflowsim.clustering.balancing.BalancedClustering;
+import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
+import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
+import org.workflowsim.scheduling.FCFSSchedulingAlgorithm;
+import org.workflowsim.scheduling.IdleVmIndex;
+import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
+import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
+import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * The benchmarks of the WorkflowSim pipeline: parsing the large DAX files,
+ * every scheduling algorithm, the HEFT planner and every clustering method.
+ * The scheduling algorithms get all the tasks of Montage_1000 as ready jobs,
+ * as the WorkflowScheduler would with a workflow whose jobs are all released
+ * at once; the planner and the clustering methods run on every DAX.
+ *
+ * @date Oct 18, 2026
+ */
+public final class WorkflowBenchmarks {
+
+    /**
+     * The DAX files of the benchmarks, in config/dax.
+     */
+    private static final String[] DAXES = {
+        "Montage_1000", "CyberShake_1000", "Inspiral_1000", "Epigenomics_997"};
+    /**
+     * The number of VMs the scheduling algorithms choose from.
+     */
+    private static final int SCHEDULING_VMS = 100;
+    /**
+     * The number of VMs of the planner.
+     */
+    private static final int PLANNING_VMS = 20;
+    /**
+     * The number of clusters of the clustering methods.
+     */
+    private static final int CLUSTERS = 20;
+
+    private WorkflowBenchmarks() {
+    }
+
+    /**
+     * Creates the benchmarks of the pipeline
+     *
+     * @param daxDir the directory of the DAX files
+     * @return the benchmarks
+     */
+    public static List<Benchmark> create(String daxDir) {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (String dax : DAXES) {
+            benchmarks.add(new Parse(dax, new File(daxDir, dax + ".xml").getPath(), false));
+            benchmarks.add(new Parse(dax, new File(daxDir, dax + ".xml").getPath(), true));
+            benchmarks.add(new Load(dax, new File(daxDir, dax + ".xml").getPath()));
+        }
+
+        String montage = new File(daxDir, DAXES[0] + ".xml").getPath();
+        Class<?>[] schedulers = {
+            DataAwareSchedulingAlgorithm.class, FCFSSchedulingAlgorithm.class,
+            MCTSchedulingAlgorithm.class, MaxMinSchedulingAlgorithm.class,
+            MinMinSchedulingAlgorithm.class, RoundRobinSchedulingAlgorithm.class,
+            StaticSchedulingAlgorithm.class};
+        for (Class<?> scheduler : schedulers) {
+            benchmarks.add(new Schedule(scheduler.asSubclass(BaseSchedulingAlgorithm.class), montage));
+        }
+
+        for (String dax : DAXES) {
+            benchmarks.add(new Plan(dax, new File(daxDir, dax + ".xml").getPath()));
+        }
+
+        String[] methods = {"Basic", "Horizontal", "Vertical", "Block", "Balanced"};
+        for (String dax : DAXES) {
+            for (String method : methods) {
+                benchmarks.add(new Cluster(method, dax, new File(daxDir, dax + ".xml").getPath()));
+            }
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Initializes CloudSim, the Parameters and the ReplicaCatalog of the
+     * current simulation context
+     *
+     * @param daxPath the DAX path
+     * @param cp the clustering parameters
+     */
+    private static void initParameters(String daxPath, ClusteringParameters cp) {
+        OverheadParameters op = new OverheadParameters(0,
+                new HashMap<Integer, DistributionGenerator>(),
+                new HashMap<Integer, DistributionGenerator>(),
+                new HashMap<Integer, DistributionGenerator>(),
+                new HashMap<Integer, DistributionGenerator>(), 0);
+        Parameters.init(PLANNING_VMS, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.STATIC, Parameters.PlanningAlgorithm.INVALID,
+                "none", 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.LOCAL);
+        // the files created by the parser need the simulation calendar
+        CloudSim.init(1, null, false);
+    }
+
+    /**
+     * Parses a DAX file
+     *
+     * @param daxPath the DAX path
+     * @return the tasks
+     */
+    private static List<Task> parse(String daxPath) {
+        WorkflowParser parser = new WorkflowParser(0, null, null, daxPath);
+        parser.parse();
+        return parser.getTaskList();
+    }
+
+    /**
+     * Creates VMs of different speeds
+     *
+     * @param count the number of VMs
+     * @return the VMs
+     */
+    private static List<CondorVM> createVms(int count) {
+        List<CondorVM> vms = new ArrayList<CondorVM>();
+        for (int i = 0; i < count; i++) {
+            vms.add(new CondorVM(i, 0, 1000 * (1 + i % 4), 1, 512, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return vms;
+    }
+
+    /**
+     * WorkflowParser.parse on a DAX file, with jdom or with the streaming
+     * parser. An operation is a task.
+     */
+    private static final class Parse extends Benchmark {
+
+        private final String daxPath;
+
+        private final boolean streaming;
+
+        Parse(String dax, String daxPath, boolean streaming) {
+            super("workflow.parse." + (streaming ? "stax." : "dom.") + dax);
+            this.daxPath = daxPath;
+            this.streaming = streaming;
+        }
+
+        @Override
+        public void setUp() {
+            initParameters(daxPath, null);
+        }
+
+        @Override
+        public long run() {
+            WorkflowParser parser = new WorkflowParser(0, null, null, daxPath);
+            parser.setStreaming(streaming);
+            parser.parse();
+            List<Task> tasks = parser.getTaskList();
+            consume(tasks);
+            return tasks.size();
+        }
+    }
+
+    /**
+     * CompiledWorkflow.open and createTasks on a DAX file compiled to a
+     * temporary file. An operation is a task.
+     */
+    private static final class Load extends Benchmark {
+
+        private final String daxPath;
+
+        private File compiled;
+
+        Load(String dax, String daxPath) {
+            super("workflow.parse.compiled." + dax);
+            this.daxPath = daxPath;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            initParameters(daxPath, null);
+            if (compiled == null) {
+                compiled = File.createTempFile("workflow", CompiledWorkflow.EXTENSION);
+                compiled.deleteOnExit();
+                CompiledWorkflow.compile(daxPath, compiled.getPath());
+            }
+        }
+
+        @Override
+        public long run() throws Exception {
+            List<Task> tasks = CompiledWorkflow.open(compiled.getPath()).createTasks(1, 0,
+                    new LinkedHashMap<String, org.cloudbus.cloudsim.File>());
+            consume(tasks);
+            return tasks.size();
+        }
+    }
+
+    /**
+     * A scheduling algorithm on all the jobs of a workflow. An operation is a
+     * job.
+     */
+    private static final class Schedule extends Benchmark {
+
+        private final Class<? extends BaseSchedulingAlgorithm> scheduler;
+
+        private final String daxPath;
+
+        private List<Job> jobs;
+
+        private List<CondorVM> vms;
+
+        private IdleVmIndex idleVms;
+
+        private List<Job> ready;
+
+        Schedule(Class<? extends BaseSchedulingAlgorithm> scheduler, String daxPath) {
+            super("workflow.schedule." + scheduler.getSimpleName().replace("SchedulingAlgorithm", ""));
+            this.scheduler = scheduler;
+            this.daxPath = daxPath;
+        }
+
+        @Override
+        public void setUp() {
+            if (jobs == null) {
+                initParameters(daxPath, null);
+                BasicClustering clustering = new BasicClustering();
+                clustering.setTaskList(parse(daxPath));
+                clustering.run();
+                jobs = clustering.getJobList();
+                // the input files of the workflow are staged in from the source site
+                for (Job job : jobs) {
+                    for (Object file : job.getFileList()) {
+                        ReplicaCatalog.addStorageList(((org.cloudbus.cloudsim.File) file).getName(),
+                                Parameters.SOURCE);
+                    }
+                }
+                vms = createVms(SCHEDULING_VMS);
+            }
+            for (CondorVM vm : vms) {
+                vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+            }
+            // the scheduler keeps the idle vm index across scheduling passes
+            idleVms = new IdleVmIndex(vms);
+            for (int i = 0; i < jobs.size(); i++) {
+                jobs.get(i).setVmId(i % SCHEDULING_VMS);
+            }
+            ready = new ArrayList<Job>(jobs);
+        }
+
+        @Override
+        public long run() throws Exception {
+            BaseSchedulingAlgorithm algorithm = scheduler.getDeclaredConstructor().newInstance();
+            algorithm.setCloudletList(ready);
+            algorithm.setVmList(vms);
+            algorithm.setIdleVmIndex(idleVms);
+            algorithm.run();
+            consume(algorithm.getScheduledList());
+            return ready.size();
+        }
+    }
+
+    /**
+     * The HEFT planner on a workflow. An operation is a task.
+     */
+    private static final class Plan extends Benchmark {
+
+        private final String daxPath;
+
+        private List<Task> tasks;
+
+        private List<CondorVM> vms;
+
+        Plan(String dax, String daxPath) {
+            super("workflow.plan.HEFT." + dax);
+            this.daxPath = daxPath;
+        }
+
+        @Override
+        public void setUp() {
+            if (tasks == null) {
+                initParameters(daxPath, null);
+                tasks = parse(daxPath);
+                vms = createVms(PLANNING_VMS);
+            }
+        }
+
+        @Override
+        public long run() {
+            HEFTPlanningAlgorithm planner = new HEFTPlanningAlgorithm();
+            planner.setTaskList(tasks);
+            planner.setVmList(vms);
+            planner.run();
+            consume(planner);
+            return tasks.size();
+        }
+    }
+
+    /**
+     * A clustering method on a workflow, parsed again before each invocation
+     * since clustering changes the tasks. An operation is a task.
+     */
+    private static final class Cluster extends Benchmark {
+
+        private final String method;
+
+        private final String daxPath;
+
+        private List<Task> tasks;
+
+        Cluster(String method, String dax, String daxPath) {
+            super("workflow.cluster." + method + "." + dax);
+            this.method = method;
+            this.daxPath = daxPath;
+        }
+
+        @Override
+        public void setUp() {
+            ClusteringParameters.ClusteringMethod type = ClusteringParameters.ClusteringMethod.NONE;
+            if (method.equals("Balanced")) {
+                type = ClusteringParameters.ClusteringMethod.BALANCED;
+            }
+            initParameters(daxPath, new ClusteringParameters(CLUSTERS, 0, type, "r"));
+            tasks = parse(daxPath);
+        }
+
+        @Override
+        public long run() {
+            BasicClustering engine;
+            if (method.equals("Horizontal")) {
+                engine = new HorizontalClustering(CLUSTERS, 0);
+            } else if (method.equals("Vertical")) {
+                engine = new VerticalClustering(1);
+            } else if (method.equals("Block")) {
+                engine = new BlockClustering(CLUSTERS, 0);
+            } else if (method.equals("Balanced")) {
+                engine = new BalancedClustering(CLUSTERS);
+            } else {
+                engine = new BasicClustering();
+            }
+            int size = tasks.size();
+            engine.setTaskList(tasks);
+            engine.run();
+            consume(engine.getJobList());
+            return size;
+        }
+
+        @Override
+        public void tearDown() {
+            tasks = null;
+        }
+    }
+}
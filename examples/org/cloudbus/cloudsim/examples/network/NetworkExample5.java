@@ -0,0 +1,315 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.examples.network;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerSpaceShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.DatacenterPartitioner;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * An example showing how to run a simulation in parallel:
+ * each of the two datacenters runs in a partition of its own,
+ * on a thread of its own, and the brokers and the other
+ * entities share a third one. Every entity is linked in the
+ * network topology, so that the partitions are always at least
+ * one link apart, which is the lookahead of the parallel run.
+ * The results are the same as those of a sequential run.
+ */
+public class NetworkExample5 {
+
+	/** The number of VMs and hosts of each user. */
+	private static final int VMS_PER_USER = 4;
+
+	/** The number of cloudlets of each user. */
+	private static final int CLOUDLETS_PER_USER = 100;
+
+	/** The latency of the links of the topology. */
+	private static final double LINK_LATENCY = 0.5;
+
+	/** The time at which the brokers ask for the datacenters. */
+	private static final double START_DELAY = 5.0;
+
+	/** The cloudlet list. */
+	private static List<Cloudlet> cloudletList1;
+	private static List<Cloudlet> cloudletList2;
+
+	/** The vmlist. */
+	private static List<Vm> vmlist1;
+	private static List<Vm> vmlist2;
+
+	/**
+	 * Creates main() to run this example
+	 */
+	public static void main(String[] args) {
+
+		Log.printLine("Starting NetworkExample5...");
+
+		try {
+			// First step: Initialize the CloudSim package. It should be called
+			// before creating any entities.
+			int num_user = 2;   // number of cloud users
+			Calendar calendar = Calendar.getInstance();
+			boolean trace_flag = false;  // mean trace events
+
+			// Initialize the CloudSim library
+			CloudSim.init(num_user, calendar, trace_flag);
+
+			// Run each datacenter in a partition of its own
+			SimulationContext.current().setPartitioner(new DatacenterPartitioner());
+
+			// Second step: Create Datacenters
+			//Datacenters are the resource providers in CloudSim. We need at list one of them to run a CloudSim simulation
+			Datacenter datacenter0 = createDatacenter("Datacenter_0");
+			Datacenter datacenter1 = createDatacenter("Datacenter_1");
+
+			//Third step: Create Brokers
+			DatacenterBroker broker1 = createBroker(1);
+			int brokerId1 = broker1.getId();
+
+			DatacenterBroker broker2 = createBroker(2);
+			int brokerId2 = broker2.getId();
+
+			//Fourth step: Create the virtual machines of each broker/user
+			vmlist1 = new ArrayList<Vm>();
+			vmlist2 = new ArrayList<Vm>();
+
+			//VM description
+			long size = 10000; //image size (MB)
+			int mips = 250;
+			int ram = 512; //vm memory (MB)
+			long bw = 1000;
+			int pesNumber = 1; //number of cpus
+			String vmm = "Xen"; //VMM name
+
+			for (int vmid = 0; vmid < VMS_PER_USER; vmid++) {
+				vmlist1.add(new Vm(vmid, brokerId1, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerTimeShared()));
+				vmlist2.add(new Vm(vmid, brokerId2, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerTimeShared()));
+			}
+
+			//submit vm list to the broker
+			broker1.submitVmList(vmlist1);
+			broker2.submitVmList(vmlist2);
+
+			//Fifth step: Create the Cloudlets
+			cloudletList1 = new ArrayList<Cloudlet>();
+			cloudletList2 = new ArrayList<Cloudlet>();
+
+			//Cloudlet properties
+			long fileSize = 300;
+			long outputSize = 300;
+			UtilizationModel utilizationModel = new UtilizationModelFull();
+
+			for (int id = 0; id < CLOUDLETS_PER_USER; id++) {
+				Cloudlet cloudlet1 = new Cloudlet(id, 10000 + (id * 7919) % 30000, pesNumber, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+				cloudlet1.setUserId(brokerId1);
+				cloudletList1.add(cloudlet1);
+
+				Cloudlet cloudlet2 = new Cloudlet(id, 10000 + (id * 6271) % 30000, pesNumber, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+				cloudlet2.setUserId(brokerId2);
+				cloudletList2.add(cloudlet2);
+			}
+
+			//submit cloudlet list to the brokers
+			broker1.submitCloudletList(cloudletList1);
+			broker2.submitCloudletList(cloudletList2);
+
+
+			//Sixth step: configure network
+			//link all the entities, including the CloudInformationService, in a chain,
+			//so that every event sent between two of them takes at least LINK_LATENCY
+			SimEntity previous = null;
+			for (SimEntity entity : CloudSim.getEntityList()) {
+				if (previous != null) {
+					NetworkTopology.addLink(previous.getId(), entity.getId(), 10.0, LINK_LATENCY);
+				}
+				previous = entity;
+			}
+
+			// Seventh step: Starts the simulation
+			CloudSim.startSimulation();
+
+			// Final step: Print results when simulation is over
+			List<Cloudlet> newList1 = broker1.getCloudletReceivedList();
+			List<Cloudlet> newList2 = broker2.getCloudletReceivedList();
+
+			CloudSim.stopSimulation();
+
+			Log.print("=============> User "+brokerId1+"    ");
+			printCloudletList(newList1);
+
+			Log.print("=============> User "+brokerId2+"    ");
+			printCloudletList(newList2);
+
+			Log.printLine("NetworkExample5 finished!");
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("The simulation has been terminated due to an unexpected error");
+		}
+	}
+
+	private static Datacenter createDatacenter(String name){
+
+		// Here are the steps needed to create a PowerDatacenter:
+		// 1. We need to create a list to store
+		//    our machine
+		List<Host> hostList = new ArrayList<Host>();
+
+		// 2. A Machine contains one or more PEs or CPUs/Cores.
+		// In this example, each one will have only one core.
+		int mips = 1000;
+		int ram = 2048; //host memory (MB)
+		long storage = 1000000; //host storage
+		int bw = 10000;
+
+		//in this example, the VMAllocatonPolicy in use is SpaceShared. It means that only one VM
+		//is allowed to run on each Pe. As each Host has only one Pe, only one VM can run on each Host,
+		//so there is a Host for each VM of a user.
+		for (int hostId = 0; hostId < VMS_PER_USER; hostId++) {
+			// 3. Create PEs and add these into a list.
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(mips))); // need to store Pe id and MIPS Rating
+
+			//4. Create Host with its id and list of PEs and add it to the list of machines
+			hostList.add(
+					new Host(
+						hostId,
+						new RamProvisionerSimple(ram),
+						new BwProvisionerSimple(bw),
+						storage,
+						peList,
+						new VmSchedulerSpaceShared(peList)
+					)
+				); // This is our machine
+		}
+
+		// 5. Create a DatacenterCharacteristics object that stores the
+		//    properties of a data center: architecture, OS, list of
+		//    Machines, allocation policy: time- or space-shared, time zone
+		//    and its price (G$/Pe time unit).
+		String arch = "x86";      // system architecture
+		String os = "Linux";          // operating system
+		String vmm = "Xen";
+		double time_zone = 10.0;         // time zone this resource located
+		double cost = 3.0;              // the cost of using processing in this resource
+		double costPerMem = 0.05;		// the cost of using memory in this resource
+		double costPerStorage = 0.001;	// the cost of using storage in this resource
+		double costPerBw = 0.0;			// the cost of using bw in this resource
+		LinkedList<Storage> storageList = new LinkedList<Storage>();	//we are not adding SAN devices by now
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				arch, os, vmm, hostList, time_zone, cost, costPerMem,
+				costPerStorage, costPerBw);
+
+
+		// 6. Finally, we need to create a PowerDatacenter object.
+		Datacenter datacenter = null;
+		try {
+			datacenter = new Datacenter(name, characteristics, new VmAllocationPolicySimple(hostList), storageList, 0);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		return datacenter;
+	}
+
+	//We strongly encourage users to develop their own broker policies, to submit vms and cloudlets according
+	//to the specific rules of the simulated scenario
+	private static DatacenterBroker createBroker(int id){
+
+		DatacenterBroker broker = null;
+		try {
+			broker = new DelayedBroker("Broker"+id, START_DELAY);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+		return broker;
+	}
+
+	/**
+	 * A broker that asks for the list of datacenters after a delay. The registration of the
+	 * datacenters reaches the CloudInformationService after the network delay between them,
+	 * so a broker starting at time 0 would find no datacenter.
+	 */
+	private static class DelayedBroker extends DatacenterBroker {
+
+		private static final long serialVersionUID = 1L;
+
+		private final double startDelay;
+
+		public DelayedBroker(String name, double startDelay) throws Exception {
+			super(name);
+			this.startDelay = startDelay;
+		}
+
+		@Override
+		public void startEntity() {
+			Log.printLine(getName() + " is starting...");
+			schedule(getId(), startDelay, CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST);
+		}
+	}
+
+	/**
+	 * Prints the Cloudlet objects
+	 * @param list  list of Cloudlets
+	 */
+	private static void printCloudletList(List<Cloudlet> list) {
+		int size = list.size();
+		Cloudlet cloudlet;
+
+		String indent = "    ";
+		Log.printLine();
+		Log.printLine("========== OUTPUT ==========");
+		Log.printLine("Cloudlet ID" + indent + "STATUS" + indent +
+				"Data center ID" + indent + "VM ID" + indent + "Time" + indent + "Start Time" + indent + "Finish Time");
+
+		for (int i = 0; i < size; i++) {
+			cloudlet = list.get(i);
+			Log.print(indent + cloudlet.getCloudletId() + indent + indent);
+
+			if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS){
+				Log.print("SUCCESS");
+
+				DecimalFormat dft = new DecimalFormat("###.##");
+				Log.printLine( indent + indent + cloudlet.getResourceId() + indent + indent + indent + cloudlet.getVmId() +
+						indent + indent + dft.format(cloudlet.getActualCPUTime()) + indent + indent + dft.format(cloudlet.getExecStartTime())+
+						indent + indent + dft.format(cloudlet.getFinishTime()));
+			}
+		}
+
+	}
+}
@@ -31,6 +31,8 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class Datacenter extends SimEntity {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The characteristics. */
 	private DatacenterCharacteristics characteristics;
 
@@ -1039,6 +1041,18 @@ public class Datacenter extends SimEntity {
 		registerOtherEntity();
 	}
 
+	/**
+	 * Whether this datacenter can run in a partition of its own when the simulation runs in
+	 * parallel, see {@link org.cloudbus.cloudsim.core.DatacenterPartitioner}. A datacenter that
+	 * shares mutable state with other entities, other than through events, must run in the same
+	 * partition as them, and should return <tt>false</tt>.
+	 * 
+	 * @return <tt>true</tt> if the datacenter can run in a partition of its own
+	 */
+	public boolean isPartitionable() {
+		return true;
+	}
+
 	/**
 	 * Gets the host list.
 	 * 
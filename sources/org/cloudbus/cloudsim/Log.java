@@ -11,6 +11,8 @@ package org.cloudbus.cloudsim;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 /**
  * The Log class used for performing loggin of the simulation process. It provides the ability to
  * substitute the output stream by any OutputStream subclass.
@@ -141,12 +143,14 @@ public class Log {
 	}
 
 	/**
-	 * Checks if the output is disabled.
+	 * Checks if the output is disabled, for all the simulations or for the simulation context
+	 * bound to the calling thread.
 	 * 
 	 * @return true, if is disable
+	 * @see SimulationContext#setLogDisabled(boolean)
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return disabled || SimulationContext.current().isLogDisabled();
 	}
 
 	/**
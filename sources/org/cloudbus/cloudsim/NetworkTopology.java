@@ -208,6 +208,18 @@ public class NetworkTopology {
 		}
 	}
 
+	/**
+	 * Checks whether a CloudSim entity is mapped to a node in the network topology
+	 * 
+	 * @param cloudSimEntityID ID of the entity
+	 * @return $true if the entity is mapped. $false otherwise, or if the network is not enabled
+	 * @pre cloudSimEntityID >= 0
+	 * @post $none
+	 */
+	public static boolean isMapped(int cloudSimEntityID) {
+		return networkEnabled && map != null && map.containsKey(cloudSimEntityID);
+	}
+
 	/**
 	 * Calculates the delay between two nodes
 	 * 
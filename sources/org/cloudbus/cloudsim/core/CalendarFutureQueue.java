@@ -0,0 +1,466 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event queue implemented as a calendar queue (R. Brown, "Calendar queues: a fast O(1)
+ * priority queue implementation for the simulation event set problem", CACM 31(10), 1988). Events
+ * are hashed by time into buckets of a fixed width; every bucket keeps its events sorted. The
+ * number of buckets doubles or halves as the queue grows or shrinks, and the bucket width is then
+ * re-estimated from the separation of the earliest events.
+ * <p>
+ * Events are ordered by {@link SimEvent#compareTo(SimEvent)}. Events that compare as equal are
+ * delivered in insertion order, as the reference implementation does. The iterator returns the
+ * events in bucket order, not in temporal order.
+ *
+ * @see FutureQueue
+ */
+public class CalendarFutureQueue implements FutureQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of events sampled to estimate the bucket width. */
+	private static final int WIDTH_SAMPLE = 25;
+
+	/** The buckets. */
+	private Bucket[] buckets;
+
+	/** The mask used to map virtual bucket numbers to buckets. */
+	private int mask;
+
+	/** The width of a bucket. */
+	private double width;
+
+	/** The virtual bucket number (time divided by width) that is currently being dequeued. */
+	private long currentVirtual;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** The buffer returned by {@link #pollAll(double)}. */
+	private final List<SimEvent> buffer = new ArrayList<SimEvent>();
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The number of structural modifications, used to detect concurrent modification. */
+	private int modCount = 0;
+
+	/**
+	 * Creates a new calendar queue.
+	 */
+	public CalendarFutureQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a new calendar queue with the given initial bucket width.
+	 *
+	 * @param width the initial width of the buckets
+	 * @pre width > 0
+	 */
+	public CalendarFutureQueue(double width) {
+		if (width <= 0 || Double.isInfinite(width) || Double.isNaN(width)) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is:" + width);
+		}
+		this.width = width;
+		buckets = newBuckets(MIN_BUCKETS);
+		mask = MIN_BUCKETS - 1;
+		currentVirtual = 0;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return buckets[firstBucket()].first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = buckets[firstBucket()].removeFirst();
+		size--;
+		modCount++;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events at the head of the queue whose time is equal to the given time. Since
+	 * all these events are at the head of the same bucket, this takes time proportional to the
+	 * number of events removed.
+	 *
+	 * @param time the time of the events to be removed
+	 * @return the removed events; the list is reused by the next call
+	 */
+	@Override
+	public List<SimEvent> pollAll(double time) {
+		buffer.clear();
+		if (size == 0) {
+			return buffer;
+		}
+		Bucket bucket = buckets[firstBucket()];
+		while (bucket.size() > 0 && bucket.first().eventTime() == time) {
+			buffer.add(bucket.removeFirst());
+		}
+		if (!buffer.isEmpty()) {
+			size -= buffer.size();
+			modCount++;
+			if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+				resize(buckets.length / 2);
+			}
+		}
+		return buffer;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private final int expectedModCount = modCount;
+
+			private int bucket = 0;
+
+			private int index = 0;
+
+			private int returned = 0;
+
+			@Override
+			public boolean hasNext() {
+				return returned < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (returned >= size) {
+					throw new NoSuchElementException();
+				}
+				while (index >= buckets[bucket].size()) {
+					bucket++;
+					index = 0;
+				}
+				returned++;
+				return buckets[bucket].get(index++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use CalendarFutureQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (!buckets[(int) (virtual(event.eventTime()) & mask)].remove(event)) {
+			return false;
+		}
+		size--;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean modified = false;
+		for (SimEvent event : events) {
+			modified |= remove(event);
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		mask = MIN_BUCKETS - 1;
+		currentVirtual = 0;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an event in its bucket, growing the calendar if needed.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long v = virtual(event.eventTime());
+		if (size == 0 || v < currentVirtual) {
+			currentVirtual = v;
+		}
+		buckets[(int) (v & mask)].add(event);
+		size++;
+		modCount++;
+		if (size > buckets.length * 2) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	/**
+	 * Finds the bucket holding the first event of the queue. The queue must not be empty. The
+	 * calendar is scanned one year from the current virtual bucket; if no event falls in that year,
+	 * the first event is found by a direct search over all the buckets.
+	 *
+	 * @return the index of the bucket
+	 */
+	private int firstBucket() {
+		for (int i = 0; i < buckets.length; i++) {
+			int index = (int) (currentVirtual & mask);
+			Bucket bucket = buckets[index];
+			if (bucket.size() > 0 && virtual(bucket.first().eventTime()) <= currentVirtual) {
+				return index;
+			}
+			currentVirtual++;
+		}
+
+		int min = -1;
+		for (int i = 0; i < buckets.length; i++) {
+			if (buckets[i].size() > 0
+					&& (min == -1 || Bucket.before(buckets[i].first(), buckets[min].first()))) {
+				min = i;
+			}
+		}
+		currentVirtual = virtual(buckets[min].first().eventTime());
+		return min;
+	}
+
+	/**
+	 * Rebuilds the calendar with the given number of buckets and a re-estimated bucket width.
+	 *
+	 * @param newSize the new number of buckets, a power of two
+	 */
+	private void resize(int newSize) {
+		Bucket[] old = buckets;
+		double newWidth = estimateWidth();
+		if (newWidth > 0 && !Double.isInfinite(newWidth)) {
+			width = newWidth;
+		}
+		buckets = newBuckets(newSize);
+		mask = newSize - 1;
+		currentVirtual = Long.MAX_VALUE;
+		// events are reinserted bucket by bucket, so equal events keep their relative order
+		for (Bucket bucket : old) {
+			for (int i = 0; i < bucket.size(); i++) {
+				SimEvent event = bucket.get(i);
+				long v = virtual(event.eventTime());
+				if (v < currentVirtual) {
+					currentVirtual = v;
+				}
+				buckets[(int) (v & mask)].add(event);
+			}
+		}
+		if (size == 0) {
+			currentVirtual = 0;
+		}
+	}
+
+	/**
+	 * Estimates the bucket width as three times the average separation of the earliest events,
+	 * ignoring separations larger than twice the average.
+	 *
+	 * @return the estimated width, or 0 if it can not be estimated
+	 */
+	private double estimateWidth() {
+		int samples = Math.min(size, WIDTH_SAMPLE);
+		if (samples < 2) {
+			return 0;
+		}
+
+		// keeps the earliest event times in a bounded sorted array
+		double[] times = new double[samples];
+		int count = 0;
+		for (Bucket bucket : buckets) {
+			for (int i = 0; i < bucket.size(); i++) {
+				double time = bucket.get(i).eventTime();
+				if (count == samples && time >= times[count - 1]) {
+					continue;
+				}
+				int j = count < samples ? count++ : count - 1;
+				while (j > 0 && times[j - 1] > time) {
+					times[j] = times[j - 1];
+					j--;
+				}
+				times[j] = time;
+			}
+		}
+
+		double total = times[count - 1] - times[0];
+		double average = total / (count - 1);
+		double sum = 0;
+		int n = 0;
+		for (int i = 1; i < count; i++) {
+			double separation = times[i] - times[i - 1];
+			if (separation <= 2 * average) {
+				sum += separation;
+				n++;
+			}
+		}
+		if (n == 0 || sum == 0) {
+			return 0;
+		}
+		return 3 * sum / n;
+	}
+
+	/**
+	 * Gets the virtual bucket number of an event time.
+	 *
+	 * @param time the event time
+	 * @return the virtual bucket number
+	 */
+	private long virtual(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Creates an array of empty buckets.
+	 *
+	 * @param n the number of buckets
+	 * @return the buckets
+	 */
+	private static Bucket[] newBuckets(int n) {
+		Bucket[] result = new Bucket[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = new Bucket();
+		}
+		return result;
+	}
+
+	/**
+	 * A bucket of the calendar. The events are kept sorted in an array; the first event is removed
+	 * by advancing the head, and new events are inserted searching from the tail, since they are
+	 * usually later than the events already in the bucket.
+	 */
+	private static final class Bucket implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The events. */
+		private SimEvent[] events = new SimEvent[4];
+
+		/** The position of the first event. */
+		private int head = 0;
+
+		/** The position after the last event. */
+		private int tail = 0;
+
+		/**
+		 * Checks whether an event has to be delivered before another one.
+		 *
+		 * @param a the first event
+		 * @param b the second event
+		 * @return true if <tt>a</tt> is strictly before <tt>b</tt>
+		 */
+		static boolean before(SimEvent a, SimEvent b) {
+			double aTime = a.eventTime();
+			double bTime = b.eventTime();
+			if (aTime != bTime) {
+				return aTime < bTime;
+			}
+			return a.getSerial() < b.getSerial();
+		}
+
+		int size() {
+			return tail - head;
+		}
+
+		SimEvent get(int i) {
+			return events[head + i];
+		}
+
+		SimEvent first() {
+			return events[head];
+		}
+
+		SimEvent removeFirst() {
+			SimEvent first = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return first;
+		}
+
+		void add(SimEvent event) {
+			if (tail == events.length) {
+				if (head > events.length / 2) {
+					System.arraycopy(events, head, events, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+				} else {
+					SimEvent[] grown = new SimEvent[events.length * 2];
+					System.arraycopy(events, head, grown, 0, tail - head);
+					events = grown;
+				}
+				tail -= head;
+				head = 0;
+			}
+			int i = tail++;
+			while (i > head && before(event, events[i - 1])) {
+				events[i] = events[i - 1];
+				i--;
+			}
+			events[i] = event;
+		}
+
+		boolean remove(SimEvent event) {
+			for (int i = head; i < tail; i++) {
+				if (events[i] == event) {
+					System.arraycopy(events, i + 1, events, i, tail - i - 1);
+					events[--tail] = null;
+					if (head == tail) {
+						head = 0;
+						tail = 0;
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.network.datacenter.Switch;
+
+/**
+ * A partitioner that runs each datacenter, with its hosts and the switches of its network, in a
+ * partition of its own. All the other entities, such as the brokers, the workflow engines and the
+ * CloudInformationService, share the first partition. The datacenters that are not
+ * {@link Datacenter#isPartitionable() partitionable}, such as the WorkflowSim datacenters that share
+ * the replica catalogue, stay in the first partition as well, so a WorkflowSim simulation runs
+ * sequentially.
+ * <p>
+ * The lookahead between the partitions is the network delay between their entities, so all of them
+ * must be mapped in the {@link org.cloudbus.cloudsim.NetworkTopology}, with positive delays between
+ * the datacenters and the entities that talk to them.
+ *
+ * @see Partitioner
+ */
+public class DatacenterPartitioner implements Partitioner {
+
+	@Override
+	public int[] partition(List<SimEntity> entities) {
+		int[] partitions = new int[entities.size()];
+		int count = 1;
+		for (SimEntity entity : entities) {
+			if (entity instanceof Datacenter && ((Datacenter) entity).isPartitionable()) {
+				partitions[entity.getId()] = count++;
+			}
+		}
+		for (SimEntity entity : entities) {
+			if (entity instanceof Switch && ((Switch) entity).dc != null) {
+				partitions[entity.getId()] = partitions[((Switch) entity).dc.getId()];
+			}
+		}
+		return partitions;
+	}
+
+}
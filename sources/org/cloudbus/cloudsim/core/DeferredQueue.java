@@ -8,81 +8,373 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept
+ * in one FIFO queue per destination entity, indexed by the entity id, so selecting or counting
+ * the events of an entity only looks at that entity's events. Within a queue the events are kept
+ * in temporal order. {@link PredicateAny} is answered in constant time and {@link PredicateType}
+ * from per-tag counters. Events sent to different entities can be added and selected concurrently,
+ * once the queue has room for all the entities (see {@link #ensureCapacity(int)}).
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see SimEvent
  */
-public class DeferredQueue {
+public class DeferredQueue implements Serializable {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	private static final long serialVersionUID = 1L;
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The queues, indexed by destination entity id. */
+	private EntityQueue[] queues = new EntityQueue[16];
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		if (dest >= queues.length) {
+			queues = Arrays.copyOf(queues, Math.max(queues.length * 2, dest + 1));
+		}
+		EntityQueue queue = queues[dest];
+		if (queue == null) {
+			queue = new EntityQueue();
+			queues[dest] = queue;
 		}
+		queue.add(newEvent);
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
-			}
+	/**
+	 * Makes room for the queues of a number of entities, so that adding events to them does not
+	 * grow the queue.
+	 *
+	 * @param entities the number of entities
+	 */
+	void ensureCapacity(int entities) {
+		if (entities > queues.length) {
+			queues = Arrays.copyOf(queues, entities);
+		}
+	}
+
+	/**
+	 * Removes and returns the first event sent to an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return null;
+		}
+		int i = queue.indexOf(p);
+		if (i < 0) {
+			return null;
+		}
+		return queue.remove(i);
+	}
+
+	/**
+	 * Returns the first event sent to an entity that matches a predicate, without removing it.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return null;
 		}
+		int i = queue.indexOf(p);
+		if (i < 0) {
+			return null;
+		}
+		return queue.get(i);
+	}
 
-		list.add(newEvent);
+	/**
+	 * Counts the events sent to an entity that match a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return 0;
+		}
+		return queue.count(p);
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue. The events are returned grouped by
+	 * destination entity and, for each entity, in temporal order. The iterator does not support
+	 * removal.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			private int queue = 0;
+
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (queue < queues.length) {
+					if (queues[queue] != null && index < queues[queue].size()) {
+						return true;
+					}
+					queue++;
+					index = 0;
+				}
+				return false;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return queues[queue].get(index++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		int size = 0;
+		for (EntityQueue queue : queues) {
+			if (queue != null) {
+				size += queue.size();
+			}
+		}
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		Arrays.fill(queues, null);
+	}
+
+	/**
+	 * Gets the queue of an entity.
+	 *
+	 * @param dest the id of the entity
+	 * @return the queue, or <tt>null</tt> if no event has been deferred for the entity
+	 */
+	private EntityQueue getQueue(int dest) {
+		if (dest < 0 || dest >= queues.length) {
+			return null;
+		}
+		return queues[dest];
+	}
+
+	/**
+	 * The deferred events of one entity. The events are kept in temporal order in an array; the
+	 * first event is removed by advancing the head. The queue also counts its events per tag, so
+	 * that events selected by tag are only searched for when there is one.
+	 */
+	private static final class EntityQueue implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The events. */
+		private SimEvent[] events = new SimEvent[8];
+
+		/** The position of the first event. */
+		private int head = 0;
+
+		/** The position after the last event. */
+		private int tail = 0;
+
+		/** The distinct tags of the events in the queue. */
+		private int[] tags = new int[4];
+
+		/** The number of events with each tag in {@link #tags}. */
+		private int[] tagCounts = new int[4];
+
+		/** The number of distinct tags. */
+		private int numTags = 0;
+
+		int size() {
+			return tail - head;
+		}
+
+		SimEvent get(int i) {
+			return events[head + i];
+		}
+
+		/**
+		 * Adds an event as the last of all the events with the same time.
+		 *
+		 * @param event the event
+		 */
+		void add(SimEvent event) {
+			if (tail == events.length) {
+				if (head > events.length / 2) {
+					System.arraycopy(events, head, events, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+				} else {
+					SimEvent[] grown = new SimEvent[events.length * 2];
+					System.arraycopy(events, head, grown, 0, tail - head);
+					events = grown;
+				}
+				tail -= head;
+				head = 0;
+			}
+			int i = tail++;
+			double time = event.eventTime();
+			while (i > head && events[i - 1].eventTime() > time) {
+				events[i] = events[i - 1];
+				i--;
+			}
+			events[i] = event;
+			countTag(event.getTag(), 1);
+		}
+
+		/**
+		 * Removes the event at the given position.
+		 *
+		 * @param i the position, relative to the first event
+		 * @return the event
+		 */
+		SimEvent remove(int i) {
+			SimEvent event;
+			if (i == 0) {
+				event = events[head];
+				events[head++] = null;
+			} else {
+				int index = head + i;
+				event = events[index];
+				System.arraycopy(events, index + 1, events, index, tail - index - 1);
+				events[--tail] = null;
+			}
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			countTag(event.getTag(), -1);
+			return event;
+		}
+
+		/**
+		 * Finds the first event that matches a predicate.
+		 *
+		 * @param p the predicate
+		 * @return the position of the event, relative to the first event, or -1 if none matches
+		 */
+		int indexOf(Predicate p) {
+			if (head == tail) {
+				return -1;
+			}
+			if (p.getClass() == PredicateAny.class) {
+				return 0;
+			}
+			if (p.getClass() == PredicateType.class && count((PredicateType) p) == 0) {
+				return -1;
+			}
+			for (int i = head; i < tail; i++) {
+				if (p.match(events[i])) {
+					return i - head;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Counts the events that match a predicate.
+		 *
+		 * @param p the predicate
+		 * @return the number of events
+		 */
+		int count(Predicate p) {
+			if (p.getClass() == PredicateAny.class) {
+				return size();
+			}
+			if (p.getClass() == PredicateType.class) {
+				return count((PredicateType) p);
+			}
+			int count = 0;
+			for (int i = head; i < tail; i++) {
+				if (p.match(events[i])) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Counts the events with any of the tags of a predicate.
+		 *
+		 * @param p the predicate
+		 * @return the number of events
+		 */
+		private int count(PredicateType p) {
+			int count = 0;
+			for (int i = 0; i < numTags; i++) {
+				if (p.matchTag(tags[i])) {
+					count += tagCounts[i];
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Updates the number of events with a tag.
+		 *
+		 * @param tag the tag
+		 * @param delta the number of events added (or removed, if negative)
+		 */
+		private void countTag(int tag, int delta) {
+			for (int i = 0; i < numTags; i++) {
+				if (tags[i] == tag) {
+					tagCounts[i] += delta;
+					if (tagCounts[i] == 0) {
+						// keep the tags compact, moving the last one to this position
+						numTags--;
+						tags[i] = tags[numTags];
+						tagCounts[i] = tagCounts[numTags];
+					}
+					return;
+				}
+			}
+			if (numTags == tags.length) {
+				tags = Arrays.copyOf(tags, numTags * 2);
+				tagCounts = Arrays.copyOf(tagCounts, numTags * 2);
+			}
+			tags[numTags] = tag;
+			tagCounts[numTags] = delta;
+			numTags++;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
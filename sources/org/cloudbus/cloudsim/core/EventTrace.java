@@ -0,0 +1,311 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * A compact binary trace of a simulation. Each event processed by the kernel, and each change of
+ * the status of a {@link Cloudlet}, is written as a record of {@value #RECORD_SIZE} bytes: the
+ * time (double), the record type (int), the source and destination entity ids (int), the tag
+ * (int) and the id of the payload (long). The records are collected in a buffer, which is written
+ * to a {@link FileChannel} when it is full and, at the latest, every flush interval, so that the
+ * trace of a long simulation can be followed while it runs.
+ * <p>
+ * The record type is the internal type of the event ({@link SimEvent#SEND}, ...) or
+ * {@link #CLOUDLET_STATUS}. The payload id is the id of the cloudlet or the VM carried by the
+ * event, or its value if the data is an integer number, and -1 otherwise. The file starts with a
+ * header of {@value #HEADER_SIZE} bytes: the magic number, the version and the record size.
+ * {@link EventTraceReader} reads the trace back and converts it to CSV or to a timeline.
+ * <p>
+ * A trace is written only if one is set with {@link SimulationContext#setTrace(EventTrace)}, or
+ * if the system property {@value #TRACE_PROPERTY} is set to the path of the trace file, or if the
+ * simulation is initialised with the trace flag, in which case the trace is written to
+ * {@value #DEFAULT_PATH} unless the system property says otherwise. A <tt>%d</tt> in the path is
+ * replaced by a sequence number, so that the simulations run by one JVM write separate traces.
+ *
+ * @see EventTraceReader
+ * @see SimulationContext#setTrace(EventTrace)
+ */
+public class EventTrace implements Closeable {
+
+	/** The system property giving the path of the trace, or <tt>off</tt>. */
+	public static final String TRACE_PROPERTY = "cloudsim.trace";
+
+	/** The system property giving the flush interval of the trace, in seconds. */
+	public static final String FLUSH_PROPERTY = "cloudsim.trace.flush";
+
+	/** The path of the trace written when the simulation is initialised with the trace flag. */
+	public static final String DEFAULT_PATH = "cloudsim-trace.bin";
+
+	/** The magic number at the start of a trace: "CSTR". */
+	public static final int MAGIC = 0x43535452;
+
+	/** The version of the trace format. */
+	public static final int VERSION = 1;
+
+	/** The size of the header, in bytes. */
+	public static final int HEADER_SIZE = 16;
+
+	/** The size of a record, in bytes. */
+	public static final int RECORD_SIZE = 32;
+
+	/**
+	 * The type of the records of cloudlet status changes. The source is the user of the cloudlet,
+	 * the destination the resource it has been assigned to, the tag the new status and the payload
+	 * the id of the cloudlet.
+	 */
+	public static final int CLOUDLET_STATUS = 16;
+
+	/** The number of records in the buffer. */
+	private static final int BUFFER_RECORDS = 2048;
+
+	/** The number of records between two checks of the flush interval. */
+	private static final int FLUSH_CHECK_MASK = 1023;
+
+	/** The sequence used to number the trace paths. */
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	/** The path of the trace. */
+	private final String path;
+
+	/** The file of the trace. */
+	private final RandomAccessFile file;
+
+	/** The channel the records are written to. */
+	private final FileChannel channel;
+
+	/** The buffer of the records not written yet. */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+
+	/** The flush interval, in nanoseconds. */
+	private long flushInterval;
+
+	/** The time of the next flush, in nanoseconds. */
+	private long nextFlush;
+
+	/** The number of records. */
+	private long records;
+
+	/** Whether the trace is closed, or failed to be written. */
+	private boolean closed;
+
+	/**
+	 * Creates a new trace, flushed every second.
+	 *
+	 * @param path the path of the trace file, which is overwritten
+	 * @throws IOException if the file can't be created
+	 */
+	public EventTrace(String path) throws IOException {
+		this(path, 1000);
+	}
+
+	/**
+	 * Creates a new trace.
+	 *
+	 * @param path the path of the trace file, which is overwritten
+	 * @param flushInterval the maximum time the records are kept in memory, in milliseconds
+	 * @throws IOException if the file can't be created
+	 */
+	public EventTrace(String path, long flushInterval) throws IOException {
+		this.path = path;
+		file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		setFlushInterval(flushInterval);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+		flush();
+	}
+
+	/**
+	 * Creates the trace selected by the {@value #TRACE_PROPERTY} and {@value #FLUSH_PROPERTY}
+	 * system properties.
+	 *
+	 * @param traceFlag the trace flag of the simulation
+	 * @return the trace, or <tt>null</tt> if the simulation is not traced or the trace can't be
+	 *         created
+	 */
+	static EventTrace createDefault(boolean traceFlag) {
+		String path = System.getProperty(TRACE_PROPERTY);
+		if (path == null) {
+			if (!traceFlag) {
+				return null;
+			}
+			path = DEFAULT_PATH;
+		}
+		path = path.trim();
+		if (path.length() == 0 || path.equalsIgnoreCase("off")) {
+			return null;
+		}
+		if (path.contains("%d")) {
+			path = path.replace("%d", String.valueOf(SEQUENCE.incrementAndGet()));
+		}
+		String interval = System.getProperty(FLUSH_PROPERTY);
+		try {
+			return new EventTrace(path, interval == null ? 1000
+					: (long) (Double.parseDouble(interval.trim()) * 1000));
+		} catch (IOException e) {
+			Log.printLine("EventTrace: can't create the trace " + path + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the path of the trace.
+	 *
+	 * @return the path
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Gets the number of records written to the trace.
+	 *
+	 * @return the number of records
+	 */
+	public long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * Sets the maximum time the records are kept in memory before they are written to the file.
+	 *
+	 * @param flushInterval the interval, in milliseconds
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = Math.max(0, flushInterval) * 1000000L;
+		nextFlush = System.nanoTime() + this.flushInterval;
+	}
+
+	/**
+	 * Records an event processed by the kernel.
+	 *
+	 * @param e the event
+	 */
+	public void eventProcessed(SimEvent e) {
+		record(e.eventTime(), e.getType(), e.getSource(), e.getDestination(), e.getTag(),
+				getPayloadId(e.getData()));
+	}
+
+	/**
+	 * Records a change of the status of a cloudlet.
+	 *
+	 * @param time the simulation time
+	 * @param cloudlet the cloudlet
+	 * @param status the new status
+	 */
+	public void cloudletStatusChanged(double time, Cloudlet cloudlet, int status) {
+		record(time, CLOUDLET_STATUS, cloudlet.getUserId(), cloudlet.getResourceId(), status,
+				cloudlet.getCloudletId());
+	}
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param time the simulation time
+	 * @param type the type of the record
+	 * @param src the id of the source entity
+	 * @param dst the id of the destination entity
+	 * @param tag the tag
+	 * @param payloadId the id of the payload, or -1
+	 */
+	public void record(double time, int type, int src, int dst, int tag, long payloadId) {
+		if (closed) {
+			return;
+		}
+		buffer.putDouble(time).putInt(type).putInt(src).putInt(dst).putInt(tag).putLong(payloadId);
+		records++;
+		if (!buffer.hasRemaining()
+				|| ((records & FLUSH_CHECK_MASK) == 0 && System.nanoTime() - nextFlush >= 0)) {
+			try {
+				flush();
+			} catch (IOException ex) {
+				// a broken trace must not stop the simulation
+				Log.printLine("EventTrace: can't write the trace " + path + ": " + ex.getMessage());
+				closeQuietly();
+			}
+		}
+	}
+
+	/**
+	 * Writes the records kept in memory to the file.
+	 *
+	 * @throws IOException if the records can't be written
+	 */
+	public void flush() throws IOException {
+		if (closed) {
+			return;
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		nextFlush = System.nanoTime() + flushInterval;
+	}
+
+	/**
+	 * Writes the records kept in memory and closes the file.
+	 *
+	 * @throws IOException if the records can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			file.close();
+		}
+	}
+
+	/**
+	 * Closes the trace, logging the errors.
+	 */
+	void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			Log.printLine("EventTrace: can't close the trace " + path + ": " + e.getMessage());
+		} finally {
+			closed = true;
+		}
+	}
+
+	/**
+	 * Gets the id of the payload of an event.
+	 *
+	 * @param data the data of the event
+	 * @return the id of the cloudlet or the VM, the value of an integer number, or -1
+	 */
+	private static long getPayloadId(Object data) {
+		if (data instanceof Cloudlet) {
+			return ((Cloudlet) data).getCloudletId();
+		} else if (data instanceof Vm) {
+			return ((Vm) data).getId();
+		} else if (data instanceof Integer || data instanceof Long) {
+			return ((Number) data).longValue();
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * Reads the records of a trace written by {@link EventTrace}, one at a time, and converts a trace
+ * to CSV or to a timeline in the trace event format of the Chrome and Perfetto trace viewers. The
+ * records are read with {@link #next()}, and the fields of the current record with the getters.
+ * <p>
+ * The tags are named after the classes registered with
+ * {@link SimulationMetrics#registerTags(Class)}. The trace can also be converted from the command
+ * line:
+ *
+ * <pre>
+ * java org.cloudbus.cloudsim.core.EventTraceReader trace.bin csv|timeline [output] [tag class ...]
+ * </pre>
+ *
+ * @see EventTrace
+ */
+public class EventTraceReader implements Closeable {
+
+	/** The channel the records are read from. */
+	private final FileChannel channel;
+
+	/** The buffer of the records read from the file. */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(2048 * EventTrace.RECORD_SIZE);
+
+	/** The time of the current record. */
+	private double time;
+
+	/** The type of the current record. */
+	private int type;
+
+	/** The source of the current record. */
+	private int source;
+
+	/** The destination of the current record. */
+	private int destination;
+
+	/** The tag of the current record. */
+	private int tag;
+
+	/** The payload id of the current record. */
+	private long payloadId;
+
+	/**
+	 * Opens a trace.
+	 *
+	 * @param path the path of the trace file
+	 * @throws IOException if the file can't be read or is not a trace
+	 */
+	@SuppressWarnings("resource")
+	public EventTraceReader(String path) throws IOException {
+		channel = new FileInputStream(path).getChannel();
+		buffer.limit(0);
+		if (!fill(EventTrace.HEADER_SIZE) || buffer.getInt() != EventTrace.MAGIC) {
+			channel.close();
+			throw new IOException(path + " is not a CloudSim event trace.");
+		}
+		int version = buffer.getInt();
+		int recordSize = buffer.getInt();
+		buffer.getInt();
+		if (version != EventTrace.VERSION || recordSize != EventTrace.RECORD_SIZE) {
+			channel.close();
+			throw new IOException("Unsupported version " + version + " of the event trace " + path);
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @return true, if a record has been read; false at the end of the trace
+	 * @throws IOException if the file can't be read
+	 */
+	public boolean next() throws IOException {
+		if (!fill(EventTrace.RECORD_SIZE)) {
+			return false;
+		}
+		time = buffer.getDouble();
+		type = buffer.getInt();
+		source = buffer.getInt();
+		destination = buffer.getInt();
+		tag = buffer.getInt();
+		payloadId = buffer.getLong();
+		return true;
+	}
+
+	/**
+	 * Gets the simulation time of the current record.
+	 *
+	 * @return the time
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Gets the type of the current record: the internal type of the event, or
+	 * {@link EventTrace#CLOUDLET_STATUS}.
+	 *
+	 * @return the type
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the id of the source entity of the current record.
+	 *
+	 * @return the id
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the id of the destination entity of the current record.
+	 *
+	 * @return the id
+	 */
+	public int getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the tag of the current record, or the new status for the cloudlet status records.
+	 *
+	 * @return the tag
+	 */
+	public int getTag() {
+		return tag;
+	}
+
+	/**
+	 * Gets the id of the payload of the current record.
+	 *
+	 * @return the id, or -1
+	 */
+	public long getPayloadId() {
+		return payloadId;
+	}
+
+	/**
+	 * Gets the name of the type of the current record.
+	 *
+	 * @return the name
+	 */
+	public String getTypeName() {
+		switch (type) {
+			case SimEvent.ENULL:
+				return "ENULL";
+			case SimEvent.SEND:
+				return "SEND";
+			case SimEvent.HOLD_DONE:
+				return "HOLD_DONE";
+			case SimEvent.CREATE:
+				return "CREATE";
+			case EventTrace.CLOUDLET_STATUS:
+				return "CLOUDLET_STATUS";
+			default:
+				return String.valueOf(type);
+		}
+	}
+
+	/**
+	 * Gets the name of the tag of the current record, or of the new status for the cloudlet status
+	 * records.
+	 *
+	 * @return the name
+	 */
+	public String getTagName() {
+		if (type == EventTrace.CLOUDLET_STATUS) {
+			String status = Cloudlet.getStatusString(tag);
+			return status == null ? String.valueOf(tag) : status;
+		}
+		return SimulationMetrics.getTagName(tag);
+	}
+
+	/**
+	 * Writes the remaining records as CSV, with a header line.
+	 *
+	 * @param out the writer, which is not closed
+	 * @return the number of records written
+	 * @throws IOException if the trace can't be read or the CSV can't be written
+	 */
+	public long toCsv(Writer out) throws IOException {
+		long count = 0;
+		out.write("time,type,src,dst,tag,payload\n");
+		while (next()) {
+			out.write(time + "," + getTypeName() + "," + source + "," + destination + ","
+					+ getTagName() + "," + payloadId + "\n");
+			count++;
+		}
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Writes the remaining records as a timeline in the JSON trace event format. Each event is an
+	 * instant on the thread of its destination entity, and each cloudlet is a span from the time
+	 * it starts or resumes execution to the time it leaves that status. The simulation time is
+	 * written in seconds as if it were in microseconds, as the viewers expect.
+	 *
+	 * @param out the writer, which is not closed
+	 * @return the number of records written
+	 * @throws IOException if the trace can't be read or the timeline can't be written
+	 */
+	public long toTimeline(Writer out) throws IOException {
+		long count = 0;
+		Set<Long> running = new HashSet<Long>();
+		out.write("{\"traceEvents\":[");
+		String separator = "\n";
+		while (next()) {
+			String common = "\"pid\":0,\"tid\":" + destination + ",\"ts\":" + time * 1000000;
+			if (type == EventTrace.CLOUDLET_STATUS) {
+				boolean executing = tag == Cloudlet.INEXEC || tag == Cloudlet.RESUMED;
+				String span = "\"cat\":\"cloudlet\",\"name\":\"Cloudlet #" + payloadId + "\",\"id\":"
+						+ payloadId + "," + common;
+				if (executing && running.add(payloadId)) {
+					out.write(separator + "{\"ph\":\"b\"," + span + "}");
+				} else if (!executing && running.remove(payloadId)) {
+					out.write(separator + "{\"ph\":\"e\"," + span + ",\"args\":{\"status\":\""
+							+ getTagName() + "\"}}");
+				} else {
+					continue;
+				}
+			} else {
+				out.write(separator + "{\"ph\":\"i\",\"s\":\"t\",\"cat\":\"" + getTypeName()
+						+ "\",\"name\":\"" + getTagName() + "\"," + common + ",\"args\":{\"src\":"
+						+ source + ",\"payload\":" + payloadId + "}}");
+			}
+			separator = ",\n";
+			count++;
+		}
+		out.write("\n]}\n");
+		out.flush();
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Makes sure the buffer holds the given number of bytes, reading them from the file if needed.
+	 *
+	 * @param size the number of bytes
+	 * @return false, if the end of the file has been reached first
+	 * @throws IOException if the file can't be read
+	 */
+	private boolean fill(int size) throws IOException {
+		if (buffer.remaining() >= size) {
+			return true;
+		}
+		buffer.compact();
+		while (buffer.position() < size) {
+			if (channel.read(buffer) < 0) {
+				buffer.flip();
+				return false;
+			}
+		}
+		buffer.flip();
+		return true;
+	}
+
+	/**
+	 * Converts a trace to CSV or to a timeline.
+	 *
+	 * @param args the path of the trace, <tt>csv</tt> or <tt>timeline</tt>, the path of the
+	 *            output (the standard output if it is missing or <tt>-</tt>) and the classes
+	 *            declaring the tags, such as <tt>org.workflowsim.WorkflowSimTags</tt>
+	 * @throws Exception if the trace can't be converted
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2 || !(args[1].equals("csv") || args[1].equals("timeline"))) {
+			System.err.println("Usage: EventTraceReader <trace> csv|timeline [output] [tag class ...]");
+			System.exit(1);
+		}
+		for (int i = 3; i < args.length; i++) {
+			SimulationMetrics.registerTags(Class.forName(args[i]));
+		}
+
+		EventTraceReader reader = new EventTraceReader(args[0]);
+		Writer out = args.length < 3 || args[2].equals("-") ? new BufferedWriter(new OutputStreamWriter(
+				System.out)) : new BufferedWriter(new FileWriter(args[2]));
+		try {
+			if (args[1].equals("csv")) {
+				reader.toCsv(out);
+			} else {
+				reader.toTimeline(out);
+			}
+		} finally {
+			reader.close();
+			out.close();
+		}
+	}
+
+}
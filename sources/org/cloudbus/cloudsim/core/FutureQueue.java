@@ -10,90 +10,103 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.List;
 
 /**
- * This class implements the future event queue used by {@link Simulation}. The event queue uses a
- * {@link TreeSet} in order to store the events.
- * 
+ * The future event queue used by {@link CloudSim}. Implementations must deliver events in the
+ * order defined by {@link SimEvent#compareTo(SimEvent)}, i.e. by event time and, for events with
+ * the same time, by the serial number assigned when the event was added.
+ * <p>
+ * The implementation used by a simulation is chosen when CloudSim is initialised, either through
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, FutureQueue)} or by setting the system
+ * property {@value #QUEUE_PROPERTY} to <tt>tree</tt>, <tt>heap</tt>, <tt>calendar</tt> or the
+ * fully qualified name of a class implementing this interface.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
- * @see Simulation
- * @see java.util.TreeSet
+ * @see TreeSetFutureQueue
+ * @see HeapFutureQueue
+ * @see CalendarFutureQueue
  */
-public class FutureQueue {
-
-	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+public interface FutureQueue {
 
-	/** The serial. */
-	private long serial = 0;
+	/** The system property used to select the future queue implementation. */
+	String QUEUE_PROPERTY = "cloudsim.futurequeue";
 
 	/**
 	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
-	public void addEvent(SimEvent newEvent) {
-		newEvent.setSerial(serial++);
-		sortedSet.add(newEvent);
-	}
+	void addEvent(SimEvent newEvent);
 
 	/**
 	 * Add a new event to the head of the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
-	public void addEventFirst(SimEvent newEvent) {
-		newEvent.setSerial(0);
-		sortedSet.add(newEvent);
-	}
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes all the events at the head of the queue whose time is equal to the given time. The
+	 * returned list is a buffer owned by the queue: it is cleared and reused by the next call to
+	 * this method, so it must not be kept by the caller.
+	 *
+	 * @param time the time of the events to be removed, usually the time of the first event
+	 * @return the removed events, in the order they have to be processed
+	 */
+	List<SimEvent> pollAll(double time);
 
 	/**
-	 * Returns an iterator to the queue.
-	 * 
+	 * Returns an iterator to the queue. Only {@link TreeSetFutureQueue} guarantees that the
+	 * iterator returns the events in temporal order, and the iterator does not need to support
+	 * removal.
+	 *
 	 * @return the iterator
 	 */
-	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
-	}
+	Iterator<SimEvent> iterator();
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the size
 	 */
-	public int size() {
-		return sortedSet.size();
-	}
+	int size();
 
 	/**
 	 * Removes the event from the queue.
-	 * 
+	 *
 	 * @param event the event
 	 * @return true, if successful
 	 */
-	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
-	}
+	boolean remove(SimEvent event);
 
 	/**
 	 * Removes all the events from the queue.
-	 * 
+	 *
 	 * @param events the events
 	 * @return true, if successful
 	 */
-	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
-	}
+	boolean removeAll(Collection<SimEvent> events);
 
 	/**
 	 * Clears the queue.
 	 */
-	public void clear() {
-		sortedSet.clear();
-	}
+	void clear();
 
-}
\ No newline at end of file
+}
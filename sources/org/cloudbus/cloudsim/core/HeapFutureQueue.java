@@ -0,0 +1,299 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event queue backed by an array-based d-ary heap. Adding and polling events take
+ * O(log n) time and, unlike {@link TreeSetFutureQueue}, no node is allocated per event.
+ * <p>
+ * Events are ordered by {@link SimEvent#compareTo(SimEvent)}. Events that compare as equal (same
+ * time and same serial, which only happens for events added with {@link #addEventFirst(SimEvent)})
+ * are delivered in insertion order, as the reference implementation does. The iterator returns
+ * the events in heap order, not in temporal order.
+ *
+ * @see FutureQueue
+ */
+public class HeapFutureQueue implements FutureQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default arity of the heap. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The initial capacity of the heap. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The arity of the heap. */
+	private final int arity;
+
+	/** The heap of events. */
+	private SimEvent[] heap;
+
+	/** The insertion order of the events in the heap, used to break ties. */
+	private long[] order;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/** The buffer returned by {@link #pollAll(double)}. */
+	private final List<SimEvent> buffer = new ArrayList<SimEvent>();
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The insertion counter. */
+	private long insertions = 0;
+
+	/** The number of structural modifications, used to detect concurrent modification. */
+	private int modCount = 0;
+
+	/**
+	 * Creates a new 4-ary heap.
+	 */
+	public HeapFutureQueue() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a new heap with the given arity.
+	 *
+	 * @param arity the number of children of each node
+	 * @pre arity >= 2
+	 */
+	public HeapFutureQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap must be at least 2, but is:" + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[INITIAL_CAPACITY];
+		order = new long[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	public List<SimEvent> pollAll(double time) {
+		buffer.clear();
+		while (size > 0 && heap[0].eventTime() == time) {
+			buffer.add(heap[0]);
+			removeAt(0);
+		}
+		return buffer;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private final int expectedModCount = modCount;
+
+			private int cursor = 0;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (cursor >= size) {
+					throw new NoSuchElementException();
+				}
+				return heap[cursor++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use HeapFutureQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (heap[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean modified = false;
+		for (SimEvent event : events) {
+			modified |= remove(event);
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an event in the heap.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+			order = Arrays.copyOf(order, size * 2);
+		}
+		modCount++;
+		siftUp(size++, event, insertions++);
+	}
+
+	/**
+	 * Removes the event at the given position of the heap.
+	 *
+	 * @param i the position
+	 */
+	private void removeAt(int i) {
+		modCount++;
+		int last = --size;
+		SimEvent moved = heap[last];
+		long movedOrder = order[last];
+		heap[last] = null;
+		if (i == last) {
+			return;
+		}
+		siftDown(i, moved, movedOrder);
+		if (heap[i] == moved) {
+			siftUp(i, moved, movedOrder);
+		}
+	}
+
+	/**
+	 * Moves an event up from the given position until the heap property holds.
+	 *
+	 * @param i the position
+	 * @param event the event
+	 * @param eventOrder the insertion order of the event
+	 */
+	private void siftUp(int i, SimEvent event, long eventOrder) {
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (!less(event, eventOrder, heap[parent], order[parent])) {
+				break;
+			}
+			heap[i] = heap[parent];
+			order[i] = order[parent];
+			i = parent;
+		}
+		heap[i] = event;
+		order[i] = eventOrder;
+	}
+
+	/**
+	 * Moves an event down from the given position until the heap property holds.
+	 *
+	 * @param i the position
+	 * @param event the event
+	 * @param eventOrder the insertion order of the event
+	 */
+	private void siftDown(int i, SimEvent event, long eventOrder) {
+		while (true) {
+			int firstChild = i * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int min = firstChild;
+			for (int c = firstChild + 1; c < lastChild; c++) {
+				if (less(heap[c], order[c], heap[min], order[min])) {
+					min = c;
+				}
+			}
+			if (!less(heap[min], order[min], event, eventOrder)) {
+				break;
+			}
+			heap[i] = heap[min];
+			order[i] = order[min];
+			i = min;
+		}
+		heap[i] = event;
+		order[i] = eventOrder;
+	}
+
+	/**
+	 * Compares two events by time, serial and insertion order.
+	 *
+	 * @param a the first event
+	 * @param aOrder the insertion order of the first event
+	 * @param b the second event
+	 * @param bOrder the insertion order of the second event
+	 * @return true if the first event has to be delivered before the second one
+	 */
+	private static boolean less(SimEvent a, long aOrder, SimEvent b, long bOrder) {
+		double aTime = a.eventTime();
+		double bTime = b.eventTime();
+		if (aTime != bTime) {
+			return aTime < bTime;
+		}
+		long aSerial = a.getSerial();
+		long bSerial = b.getSerial();
+		if (aSerial != bSerial) {
+			return aSerial < bSerial;
+		}
+		return aOrder < bOrder;
+	}
+
+}
@@ -0,0 +1,379 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event queue that adds cheap cancellation to another {@link FutureQueue}. Removed events
+ * are not taken out of the underlying queue; they are marked as cancelled (tombstones) and skipped
+ * when they reach the head of the queue.
+ * <p>
+ * Events can also be cancelled by source and tag with {@link #cancelAll(int, int)}. The first time
+ * a (source, tag) pair is cancelled, the whole queue is scanned; from then on the live events of
+ * that pair are indexed as they are added, so cancelling them again only visits those events.
+ * This makes the periodic events that entities such as {@link org.cloudbus.cloudsim.power.PowerDatacenter}
+ * keep rescheduling cheap to cancel.
+ *
+ * @see FutureQueue
+ * @see CloudSim#cancelAll(int, int)
+ */
+public class IndexedFutureQueue implements FutureQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The underlying queue. */
+	private final FutureQueue queue;
+
+	/** The number of cancelled events still in the underlying queue. */
+	private int tombstones = 0;
+
+	/** The indexed (source, tag) pairs, indexed by source entity id. */
+	private SourceIndex[] index = new SourceIndex[16];
+
+	/**
+	 * Creates a new indexed queue.
+	 *
+	 * @param queue the (empty) underlying queue
+	 */
+	public IndexedFutureQueue(FutureQueue queue) {
+		if (queue == null) {
+			throw new IllegalArgumentException("The underlying future event queue can't be null.");
+		}
+		this.queue = queue;
+	}
+
+	/**
+	 * Gets the underlying queue.
+	 *
+	 * @return the underlying queue
+	 */
+	public FutureQueue getQueue() {
+		return queue;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setQueued(true);
+		newEvent.setCancelled(false);
+		queue.addEvent(newEvent);
+		track(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setQueued(true);
+		newEvent.setCancelled(false);
+		queue.addEventFirst(newEvent);
+		track(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		SimEvent first = queue.peek();
+		while (first != null && first.isCancelled()) {
+			queue.poll().setQueued(false);
+			tombstones--;
+			first = queue.peek();
+		}
+		return first;
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (peek() == null) {
+			return null;
+		}
+		SimEvent first = queue.poll();
+		first.setQueued(false);
+		return first;
+	}
+
+	@Override
+	public List<SimEvent> pollAll(double time) {
+		List<SimEvent> events = queue.pollAll(time);
+		int live = 0;
+		for (int i = 0; i < events.size(); i++) {
+			SimEvent event = events.get(i);
+			event.setQueued(false);
+			if (event.isCancelled()) {
+				tombstones--;
+			} else {
+				events.set(live++, event);
+			}
+		}
+		if (live < events.size()) {
+			events.subList(live, events.size()).clear();
+		}
+		return events;
+	}
+
+	/**
+	 * Returns an iterator to the live events of the queue. The order is the one of the underlying
+	 * queue, and the iterator does not support removal.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> iterator = queue.iterator();
+		return new Iterator<SimEvent>() {
+
+			private SimEvent next = advance();
+
+			private SimEvent advance() {
+				while (iterator.hasNext()) {
+					SimEvent event = iterator.next();
+					if (!event.isCancelled()) {
+						return event;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				SimEvent event = next;
+				next = advance();
+				return event;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use IndexedFutureQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return queue.size() - tombstones;
+	}
+
+	/**
+	 * Removes the event from the queue. The event is only marked as cancelled; it is dropped when
+	 * it reaches the head of the underlying queue.
+	 *
+	 * @param event the event
+	 * @return true, if the event was in the queue and had not been cancelled yet
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		if (!event.isQueued() || event.isCancelled()) {
+			return false;
+		}
+		event.setCancelled(true);
+		tombstones++;
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean modified = false;
+		for (SimEvent event : events) {
+			modified |= remove(event);
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		queue.clear();
+		tombstones = 0;
+		Arrays.fill(index, null);
+	}
+
+	/**
+	 * Cancels all the events in the queue with the given source and tag.
+	 *
+	 * @param src the id of the source entity
+	 * @param tag the tag of the events
+	 * @return the number of cancelled events
+	 */
+	public int cancelAll(int src, int tag) {
+		if (src < 0) {
+			return cancelMatching(src, tag);
+		}
+		if (src >= index.length) {
+			index = Arrays.copyOf(index, Math.max(index.length * 2, src + 1));
+		}
+		SourceIndex sourceIndex = index[src];
+		if (sourceIndex == null) {
+			sourceIndex = new SourceIndex();
+			index[src] = sourceIndex;
+		}
+
+		TagIndex tagIndex = sourceIndex.get(tag);
+		if (tagIndex == null) {
+			// first cancellation of this pair: index it from now on
+			sourceIndex.add(tag);
+			return cancelMatching(src, tag);
+		}
+
+		// the index may still hold events that have already been processed, which remove skips;
+		// pooled events may even have been reused for another (source, tag) pair since
+		int cancelled = 0;
+		List<SimEvent> events = tagIndex.events;
+		for (int i = 0; i < events.size(); i++) {
+			SimEvent event = events.get(i);
+			if (event.isQueued() && event.getSource() == src && event.getTag() == tag && remove(event)) {
+				cancelled++;
+			}
+		}
+		events.clear();
+		return cancelled;
+	}
+
+	/**
+	 * Checks whether the queue holds live events with the given source and tag, without changing
+	 * the queue or its index, so that it can be called by several threads while the queue is not
+	 * modified.
+	 *
+	 * @param src the id of the source entity
+	 * @param tag the tag of the events
+	 * @return true, if there is at least one such event
+	 */
+	boolean contains(int src, int tag) {
+		TagIndex tagIndex = src < 0 || src >= index.length || index[src] == null ? null : index[src].get(tag);
+		Iterator<SimEvent> events = tagIndex == null ? iterator() : tagIndex.events.iterator();
+		while (events.hasNext()) {
+			SimEvent event = events.next();
+			if (event.isQueued() && !event.isCancelled() && event.getSource() == src && event.getTag() == tag) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Cancels the events with the given source and tag by scanning the whole queue.
+	 *
+	 * @param src the id of the source entity
+	 * @param tag the tag of the events
+	 * @return the number of cancelled events
+	 */
+	private int cancelMatching(int src, int tag) {
+		List<SimEvent> matching = new ArrayList<SimEvent>();
+		Iterator<SimEvent> iterator = iterator();
+		while (iterator.hasNext()) {
+			SimEvent event = iterator.next();
+			if (event.getSource() == src && event.getTag() == tag) {
+				matching.add(event);
+			}
+		}
+		for (SimEvent event : matching) {
+			remove(event);
+		}
+		return matching.size();
+	}
+
+	/**
+	 * Adds an event to the index, if its (source, tag) pair is indexed.
+	 *
+	 * @param event the event
+	 */
+	private void track(SimEvent event) {
+		int src = event.getSource();
+		if (src < 0 || src >= index.length || index[src] == null) {
+			return;
+		}
+		TagIndex tagIndex = index[src].get(event.getTag());
+		if (tagIndex != null) {
+			tagIndex.add(event);
+		}
+	}
+
+	/**
+	 * The indexed tags of one source entity.
+	 */
+	private static final class SourceIndex implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The indexed tags. */
+		private TagIndex[] tags = new TagIndex[2];
+
+		/** The number of indexed tags. */
+		private int size = 0;
+
+		TagIndex get(int tag) {
+			for (int i = 0; i < size; i++) {
+				if (tags[i].tag == tag) {
+					return tags[i];
+				}
+			}
+			return null;
+		}
+
+		void add(int tag) {
+			if (size == tags.length) {
+				tags = Arrays.copyOf(tags, size * 2);
+			}
+			tags[size++] = new TagIndex(tag);
+		}
+
+	}
+
+	/**
+	 * The events of an indexed (source, tag) pair. Processed events are only dropped from the list
+	 * when it is cancelled or when it doubles in size, so a pair that is seldom cancelled does not
+	 * keep processed events alive.
+	 */
+	private static final class TagIndex implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The minimum size of the list before it is purged. */
+		private static final int MIN_PURGE_SIZE = 16;
+
+		/** The tag. */
+		final int tag;
+
+		/** The events, some of which may no longer be in the queue. */
+		final List<SimEvent> events = new ArrayList<SimEvent>();
+
+		/** The size at which the list is purged of the events no longer in the queue. */
+		private int purgeSize = MIN_PURGE_SIZE;
+
+		TagIndex(int tag) {
+			this.tag = tag;
+		}
+
+		void add(SimEvent event) {
+			if (events.size() >= purgeSize) {
+				int live = 0;
+				for (int i = 0; i < events.size(); i++) {
+					SimEvent e = events.get(i);
+					if (e.isQueued() && !e.isCancelled()) {
+						events.set(live++, e);
+					}
+				}
+				events.subList(live, events.size()).clear();
+				purgeSize = Math.max(MIN_PURGE_SIZE, live * 2);
+			}
+			events.add(event);
+		}
+
+	}
+
+}
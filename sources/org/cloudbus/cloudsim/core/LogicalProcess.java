@@ -0,0 +1,375 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A logical process runs the entities of one partition of a parallel simulation during a window of
+ * the {@link SimulationContext}. It has its own clock, event pool and worklist, and a local queue
+ * with the events of its entities that are due within the window. The events it creates that are
+ * due later, or that are sent to another partition, are kept with the time, the tick and the
+ * entity that created them, and merged into the future event queue at the end of the window in
+ * the order the sequential kernel would have created them.
+ *
+ * @see Partitioner
+ */
+final class LogicalProcess {
+
+	/**
+	 * The serial numbers given to the events created in a window, above the ones of the events in
+	 * the future queue, which were created before them.
+	 */
+	private static final long WINDOW_SERIAL = Long.MAX_VALUE / 2;
+
+	/** Orders the created events by time, tick and entity, i.e. as the sequential kernel. */
+	static final Comparator<Created> CREATION_ORDER = new Comparator<Created>() {
+
+		@Override
+		public int compare(Created a, Created b) {
+			if (a.clock != b.clock) {
+				return a.clock < b.clock ? -1 : 1;
+			} else if (a.tick != b.tick) {
+				return a.tick < b.tick ? -1 : 1;
+			} else if (a.entity != b.entity) {
+				return a.entity < b.entity ? -1 : 1;
+			}
+			return 0;
+		}
+	};
+
+	/** The index of the partition. */
+	final int index;
+
+	/** The event pool. */
+	final SimEventPool pool;
+
+	/** The events of the partition due within the window. */
+	private final PriorityQueue<SimEvent> events = new PriorityQueue<SimEvent>();
+
+	/** The events created in the window that are due after it or in another partition. */
+	final List<Created> created = new ArrayList<Created>();
+
+	/** The events of the future queue cancelled in the window. */
+	final List<SimEvent> removed = new ArrayList<SimEvent>();
+
+	/** The (source, tag) pairs cancelled in the future queue in the window. */
+	final List<int[]> cancelled = new ArrayList<int[]>();
+
+	/** The ids of the entities to be run in the next tick. */
+	private int[] worklist = new int[16];
+
+	/** The number of entities in the worklist. */
+	private int worklistSize;
+
+	/** The ids of the entities run in the current tick. */
+	private int[] runList = new int[16];
+
+	/** The clock of the partition. */
+	double clock;
+
+	/** The number of ticks run at the current clock. */
+	private int tick;
+
+	/** The id of the entity being run, or -1. */
+	private int running = -1;
+
+	/** The serial number of the next event created in the window. */
+	private long serial;
+
+	/** The number of events processed in the window. */
+	long eventCount;
+
+	/** Whether an entity of the partition terminated the simulation in the window. */
+	boolean terminated;
+
+	/** The termination time requested in the window, or -1. */
+	double terminateAt;
+
+	/** The exception thrown by an entity of the partition in the window. */
+	Throwable failure;
+
+	/**
+	 * Creates a new logical process.
+	 *
+	 * @param index the index of the partition
+	 * @param poolMode the mode of the event pool
+	 */
+	LogicalProcess(int index, SimEventPool.Mode poolMode) {
+		this.index = index;
+		pool = new SimEventPool(poolMode);
+	}
+
+	/**
+	 * Starts a window.
+	 *
+	 * @param clock the clock of the simulation
+	 */
+	void begin(double clock) {
+		this.clock = clock;
+		tick = 0;
+		serial = WINDOW_SERIAL;
+		eventCount = 0;
+		terminated = false;
+		terminateAt = -1;
+		failure = null;
+	}
+
+	/**
+	 * Ends a window, once its results have been merged.
+	 */
+	void end() {
+		created.clear();
+		removed.clear();
+		cancelled.clear();
+	}
+
+	/**
+	 * Checks whether the partition has events or entities to run in the window.
+	 *
+	 * @return true, if the partition has work
+	 */
+	boolean isBusy() {
+		return worklistSize > 0 || !events.isEmpty();
+	}
+
+	/**
+	 * Adds an event of the future queue, due within the window, to the partition.
+	 *
+	 * @param e the event
+	 */
+	void addEvent(SimEvent e) {
+		events.add(e);
+	}
+
+	/**
+	 * Adds an entity to the worklist of the next tick.
+	 *
+	 * @param id the id of the entity
+	 */
+	void activate(int id) {
+		if (worklistSize == worklist.length) {
+			worklist = Arrays.copyOf(worklist, worklistSize * 2);
+		}
+		worklist[worklistSize++] = id;
+	}
+
+	/**
+	 * Schedules an event created by an entity of the partition.
+	 *
+	 * @param e the event
+	 * @param first whether the event has priority in the queue
+	 * @param partition the partition of the entity the event is for
+	 * @param horizon the end of the window
+	 * @throws IllegalStateException if the event is sent to another partition within the window
+	 */
+	void schedule(SimEvent e, boolean first, int partition, double horizon) {
+		e.setSerial(first ? 0 : serial++);
+		if (e.eventTime() >= horizon) {
+			created.add(new Created(e, first, clock, tick, running));
+		} else if (partition == index) {
+			events.add(e);
+		} else {
+			throw new IllegalStateException("Event sent from entity #" + e.getSource() + " to entity #"
+					+ e.getDestination() + " of another partition at " + e.eventTime()
+					+ ", within the lookahead; the entities of different partitions must send their "
+					+ "events with at least the network delay between them.");
+		}
+	}
+
+	/**
+	 * Runs the window: the entities of the worklist, then the events due before the horizon, tick
+	 * by tick.
+	 *
+	 * @param context the context of the simulation
+	 * @param horizon the end of the window
+	 */
+	void run(SimulationContext context, double horizon) {
+		runEntities(context);
+		while (!events.isEmpty() && events.peek().eventTime() < horizon) {
+			double time = events.peek().eventTime();
+			if (time == clock) {
+				tick++;
+			} else {
+				clock = time;
+				tick = 0;
+			}
+			do {
+				eventCount++;
+				context.dispatch(events.poll(), pool);
+			} while (!events.isEmpty() && events.peek().eventTime() == time);
+			runEntities(context);
+		}
+	}
+
+	/**
+	 * Runs the entities of the worklist, in the order of their ids.
+	 *
+	 * @param context the context of the simulation
+	 */
+	private void runEntities(SimulationContext context) {
+		int[] ids = worklist;
+		int size = worklistSize;
+		worklist = runList;
+		worklistSize = 0;
+		runList = ids;
+		if (size > 1) {
+			Arrays.sort(ids, 0, size);
+		}
+
+		for (int i = 0; i < size; i++) {
+			SimEntity ent = context.getEntity(ids[i]);
+			ent.setActive(false);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				running = ids[i];
+				ent.run();
+			}
+		}
+		running = -1;
+	}
+
+	/**
+	 * Finds the first event sent by an entity that matches a predicate, among the events of the
+	 * window. The events of the future queue are not searched.
+	 *
+	 * @param src the id of the source entity
+	 * @param p the predicate, or <tt>null</tt> to match a tag
+	 * @param tag the tag, if there is no predicate
+	 * @return the event, or <tt>null</tt> if none matches
+	 */
+	SimEvent findFirst(int src, Predicate p, int tag) {
+		SimEvent first = null;
+		for (SimEvent ev : events) {
+			if (matches(ev, src, p, tag) && (first == null || ev.compareTo(first) < 0)) {
+				first = ev;
+			}
+		}
+		for (Created c : created) {
+			if (c.event != null && matches(c.event, src, p, tag) && (first == null || c.event.compareTo(first) < 0)) {
+				first = c.event;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Removes an event of the window.
+	 *
+	 * @param e the event
+	 */
+	void remove(SimEvent e) {
+		if (!events.remove(e)) {
+			for (Created c : created) {
+				if (c.event == e) {
+					c.event = null;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all the events of the window sent by an entity that match a predicate. The events of
+	 * the future queue are not searched.
+	 *
+	 * @param src the id of the source entity
+	 * @param p the predicate, or <tt>null</tt> to match a tag
+	 * @param tag the tag, if there is no predicate
+	 * @return true, if at least one event has been removed
+	 */
+	boolean removeAll(int src, Predicate p, int tag) {
+		boolean modified = false;
+		Iterator<SimEvent> iter = events.iterator();
+		while (iter.hasNext()) {
+			if (matches(iter.next(), src, p, tag)) {
+				iter.remove();
+				modified = true;
+			}
+		}
+		for (Created c : created) {
+			if (c.event != null && matches(c.event, src, p, tag)) {
+				c.event = null;
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	/**
+	 * Checks whether the events of a (source, tag) pair have been cancelled in the future queue in
+	 * the window.
+	 *
+	 * @param src the id of the source entity
+	 * @param tag the tag
+	 * @return true, if the pair has been cancelled
+	 */
+	boolean isCancelled(int src, int tag) {
+		for (int[] pair : cancelled) {
+			if (pair[0] == src && pair[1] == tag) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether an event of the future queue has been cancelled in the window.
+	 *
+	 * @param e the event
+	 * @return true, if the event has been cancelled
+	 */
+	boolean isRemoved(SimEvent e) {
+		return isCancelled(e.getSource(), e.getTag()) || removed.contains(e);
+	}
+
+	/**
+	 * Checks whether an event has the given source and matches a predicate or a tag.
+	 */
+	private static boolean matches(SimEvent ev, int src, Predicate p, int tag) {
+		return ev.getSource() == src && (p == null ? ev.getTag() == tag : p.match(ev));
+	}
+
+	/**
+	 * An event created in a window, due after it or in another partition.
+	 */
+	static final class Created {
+
+		/** The event, or <tt>null</tt> if it has been cancelled. */
+		SimEvent event;
+
+		/** Whether the event has priority in the queue. */
+		final boolean first;
+
+		/** The clock when the event was created. */
+		final double clock;
+
+		/** The tick, at that clock, in which the event was created. */
+		final int tick;
+
+		/** The id of the entity that created the event, or -1. */
+		final int entity;
+
+		Created(SimEvent event, boolean first, double clock, int tick, int entity) {
+			this.event = event;
+			this.first = first;
+			this.clock = clock;
+			this.tick = tick;
+			this.entity = entity;
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+/**
+ * Splits the entities of a simulation into partitions, which a {@link SimulationContext} runs as
+ * logical processes on separate threads. The processes are synchronised conservatively: they run
+ * in windows no longer than the lookahead, the smallest {@link org.cloudbus.cloudsim.NetworkTopology}
+ * delay between two entities of different partitions, so that no event sent to another partition
+ * can be due within the window. The events created in a window are merged, at the end of the
+ * window, in the order the sequential kernel would have created them, so a parallel run gives the
+ * same results as a sequential one.
+ * <p>
+ * This only holds if the entities of different partitions interact through events alone, sent with
+ * at least the network delay between them, which is the case of the events sent with
+ * {@link SimEntity#send(int, double, int, Object)}. They must not share mutable state, such as
+ * random number generators or catalogues updated as the simulation runs, nor read the objects that
+ * the others update, except for the data of the events they receive; the datacenters that do are
+ * kept with the other entities by {@link DatacenterPartitioner}, see
+ * {@link org.cloudbus.cloudsim.Datacenter#isPartitionable()}. This is the case of the WorkflowSim
+ * datacenters, which share the replica catalogue with the scheduler, so only simulations of plain
+ * CloudSim datacenters actually run in parallel. An event sent to another
+ * partition within the window is detected and stops the simulation with an
+ * {@link IllegalStateException}.
+ * <p>
+ * The partitioner used by a simulation is set with {@link SimulationContext#setPartitioner(Partitioner)}
+ * or by setting the system property {@value #PARTITIONER_PROPERTY} to <tt>datacenter</tt> or to the
+ * fully qualified name of a class implementing this interface. The simulation runs sequentially
+ * if there is only one partition or if the lookahead is zero, e.g. because the network topology
+ * is not enabled, and as soon as entities are added while it runs.
+ *
+ * @see DatacenterPartitioner
+ * @see SimulationContext#setPartitioner(Partitioner)
+ */
+public interface Partitioner {
+
+	/** The system property used to select the partitioner. */
+	String PARTITIONER_PROPERTY = "cloudsim.partitioner";
+
+	/**
+	 * Splits the entities into partitions.
+	 *
+	 * @param entities the entities of the simulation, in the order of their ids
+	 * @return the partition of each entity, indexed by entity id; the partitions are numbered from
+	 *         0 without gaps
+	 */
+	int[] partition(List<SimEntity> entities);
+
+}
@@ -8,20 +8,26 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+
 /**
  * This class represents a simulation event which is passed between the entities in the simulation.
+ * When events are pooled (see {@link SimEventPool}), an event delivered to an entity is recycled
+ * once the entity has processed it, and must not be kept by the entity.
  * 
  * @author Costas Simatos
  * @see Simulation
  * @see SimEntity
  */
-public class SimEvent implements Cloneable, Comparable<SimEvent> {
+public class SimEvent implements Cloneable, Comparable<SimEvent>, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +39,22 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
 
 	private long serial = -1;
 
+	/** whether the event is in the future queue, possibly as a cancelled event **/
+	private boolean queued = false;
+
+	/** whether the event has been cancelled while in the future queue **/
+	private boolean cancelled = false;
+
+	/** the name of the entity that released the event to its pool, if it has been released **/
+	private String releasedBy = null;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -86,6 +101,70 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
+	boolean isQueued() {
+		return queued;
+	}
+
+	void setQueued(boolean queued) {
+		this.queued = queued;
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	void setCancelled(boolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * Reinitialises a pooled event.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = -1.0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+		queued = false;
+		cancelled = false;
+		releasedBy = null;
+	}
+
+	/**
+	 * Marks the event as released to its pool.
+	 * @param by the name of the entity releasing the event
+	 */
+	void release(String by) {
+		checkNotReleased();
+		releasedBy = by;
+	}
+
+	/**
+	 * Drops the reference to the data of a released event.
+	 */
+	void clearData() {
+		data = null;
+	}
+
+	/**
+	 * Checks that the event has not been released to its pool.
+	 * @throws IllegalStateException if the event has been released
+	 */
+	private void checkNotReleased() {
+		if (releasedBy != null) {
+			throw new IllegalStateException("Event used after it has been released by " + releasedBy
+					+ "; entities must not keep the events they process when events are pooled.");
+		}
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -107,6 +186,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return
 	 */
 	public int getType() {
+		checkNotReleased();
 		return etype;
 	}
 
@@ -138,6 +218,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int getDestination() {
+		checkNotReleased();
 		return entDst;
 	}
 
@@ -147,6 +228,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int getSource() {
+		checkNotReleased();
 		return entSrc;
 	}
 
@@ -174,6 +256,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public int type() {
+		checkNotReleased();
 		return tag;
 	}
 
@@ -183,6 +266,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int scheduledBy() {
+		checkNotReleased();
 		return entSrc;
 	}
 
@@ -192,6 +276,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public int getTag() {
+		checkNotReleased();
 		return tag;
 	}
 
@@ -201,6 +286,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		checkNotReleased();
 		return data;
 	}
 
@@ -211,6 +297,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 */
 	@Override
 	public Object clone() {
+		checkNotReleased();
 		return new SimEvent(etype, time, entSrc, entDst, tag, data);
 	}
 
@@ -0,0 +1,181 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * A pool of {@link SimEvent} instances, used by a {@link SimulationContext} to recycle the events
+ * it creates. An event sent to an entity is released once {@link SimEntity#run()} has passed it to
+ * {@link SimEntity#processEvent(SimEvent)}; the kernel's internal events are released as soon as
+ * they are processed. Events that leave the kernel in other ways, e.g. the ones returned by
+ * {@link SimEntity#cancelEvent(org.cloudbus.cloudsim.core.predicates.Predicate)}, are not
+ * recycled.
+ * <p>
+ * Pooling is opt-in, since entities must not keep references to the events they process once
+ * {@link SimEntity#processEvent(SimEvent)} returns; they should keep the data of the event
+ * instead. The mode is chosen with {@link SimulationContext#setEventPoolMode(Mode)} or with the
+ * system property {@value #POOL_PROPERTY}, set to <tt>off</tt>, <tt>on</tt> or <tt>debug</tt>. In
+ * debug mode released events are not reused but poisoned: reading them throws an
+ * {@link IllegalStateException} naming the entity that released them, which detects entities
+ * that retain events.
+ *
+ * @see SimulationContext#setEventPoolMode(Mode)
+ */
+public class SimEventPool {
+
+	/** The system property used to select the pool mode. */
+	public static final String POOL_PROPERTY = "cloudsim.eventpool";
+
+	/**
+	 * The pool modes.
+	 */
+	public enum Mode {
+		/** Events are not recycled, and an event delivered to a waiting entity is cloned. */
+		OFF,
+		/** Events are recycled. */
+		ON,
+		/** Events are released but poisoned instead of being recycled. */
+		DEBUG
+	}
+
+	/** The maximum number of free events kept by the pool. */
+	private static final int MAX_FREE = 1 << 14;
+
+	/** The mode. */
+	private final Mode mode;
+
+	/** The free events. */
+	private SimEvent[] free = new SimEvent[64];
+
+	/** The number of free events. */
+	private int freeCount = 0;
+
+	/** The number of events allocated. */
+	private long allocated = 0;
+
+	/** The number of events reused. */
+	private long reused = 0;
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param mode the mode
+	 */
+	public SimEventPool(Mode mode) {
+		if (mode == null) {
+			throw new IllegalArgumentException("The pool mode can't be null.");
+		}
+		this.mode = mode;
+	}
+
+	/**
+	 * Gets the mode selected by the {@value #POOL_PROPERTY} system property. Pooling is off if the
+	 * property is not set.
+	 *
+	 * @return the mode
+	 */
+	static Mode getDefaultMode() {
+		String mode = System.getProperty(POOL_PROPERTY, "off").trim();
+		for (Mode m : Mode.values()) {
+			if (m.name().equalsIgnoreCase(mode)) {
+				return m;
+			}
+		}
+		throw new IllegalArgumentException("Unknown event pool mode: " + mode);
+	}
+
+	/**
+	 * Gets the mode.
+	 *
+	 * @return the mode
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Gets the number of events allocated by the pool.
+	 *
+	 * @return the number of allocated events
+	 */
+	public long getAllocated() {
+		return allocated;
+	}
+
+	/**
+	 * Gets the number of events reused by the pool.
+	 *
+	 * @return the number of reused events
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Checks whether events are released, i.e. whether they can be delivered without a copy.
+	 *
+	 * @return true, if the pool is not off
+	 */
+	boolean isEnabled() {
+		return mode != Mode.OFF;
+	}
+
+	/**
+	 * Gets an event, reusing a free one if there is one.
+	 *
+	 * @param evtype the internal type
+	 * @param time the event time
+	 * @param src the source entity
+	 * @param dest the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event
+	 */
+	SimEvent get(int evtype, double time, int src, int dest, int tag, Object data) {
+		if (freeCount > 0) {
+			SimEvent event = free[--freeCount];
+			free[freeCount] = null;
+			event.reset(evtype, time, src, dest, tag, data);
+			reused++;
+			return event;
+		}
+		allocated++;
+		return new SimEvent(evtype, time, src, dest, tag, data);
+	}
+
+	/**
+	 * Releases an event once it has been processed.
+	 *
+	 * @param event the event
+	 * @param entity the entity that processed the event, or <tt>null</tt> for kernel events
+	 * @throws IllegalStateException if the event has already been released
+	 */
+	void release(SimEvent event, SimEntity entity) {
+		if (mode == Mode.OFF) {
+			return;
+		}
+		if (event.isQueued()) {
+			throw new IllegalStateException("Event released while still in the future event queue.");
+		}
+		event.release(entity == null ? "the simulation kernel" : entity.getName());
+		if (mode == Mode.DEBUG) {
+			return;
+		}
+		event.clearData();
+		if (freeCount == free.length) {
+			if (freeCount == MAX_FREE) {
+				return;
+			}
+			SimEvent[] grown = new SimEvent[free.length * 2];
+			System.arraycopy(free, 0, grown, 0, freeCount);
+			free = grown;
+		}
+		free[freeCount++] = event;
+	}
+
+}
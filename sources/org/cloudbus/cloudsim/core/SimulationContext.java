@@ -0,0 +1,2261 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A simulation context owns the state of one simulation: the entities, the future and deferred
+ * event queues, the clock and the wait predicates, as well as any state that extensions attach to
+ * it with {@link #setAttribute(Object, Object)}. Independent simulations can run concurrently in
+ * one JVM, each in its own context.
+ * <p>
+ * A context is bound to a thread with {@link #bind()} or {@link #call(Callable)}; the static
+ * methods of {@link CloudSim} act on the context bound to the calling thread, or on the default
+ * context if none is bound, so existing single-simulation code keeps working unchanged. Entities
+ * are bound to the context that is current when they are created and talk to it directly.
+ * <p>
+ * A simulation can be saved with {@link #snapshot()} and forked from that point with
+ * {@link #restoreSnapshot(SimulationSnapshot)}, in this context or in another one.
+ * <p>
+ * The entities of a simulation can be split into partitions by a {@link Partitioner}, which are
+ * then run in parallel in windows bounded by the network delay between the partitions, with the
+ * same results as a sequential run as long as the partitions share no state. Only plain
+ * {@link org.cloudbus.cloudsim.Datacenter}s are partitioned this way; WorkflowSim simulations
+ * always run sequentially, see {@link Partitioner}.
+ * <p>
+ * A simulation must be set up and run from threads bound to its context. State kept outside the
+ * kernel in static fields, such as {@link org.cloudbus.cloudsim.NetworkTopology} and
+ * {@link org.cloudbus.cloudsim.Log}, is still shared by all the contexts.
+ *
+ * @see CloudSim
+ */
+public class SimulationContext {
+
+	/** The default context, used by threads without a bound context. */
+	private static final SimulationContext DEFAULT_CONTEXT = new SimulationContext();
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>();
+
+	/** The logical process run by each thread during a parallel window. */
+	private static final ThreadLocal<LogicalProcess> CURRENT_PROCESS = new ThreadLocal<LogicalProcess>();
+
+	/**
+	 * Whether a context has ever been bound to a thread. It is only ever set to true, by the thread
+	 * that binds a context, which therefore always sees its own write; other threads have no bound
+	 * context and use the default one whatever value they read. This keeps the thread-local lookup
+	 * out of single-simulation runs.
+	 */
+	private static boolean contextsBound = false;
+
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
+
+	/** The result of a clock tick that processed events. */
+	private static final int TICK_RUN = 0;
+
+	/** The result of a clock tick that found no future events. */
+	private static final int TICK_IDLE = 1;
+
+	/** The result of a clock tick that stopped before processing events. */
+	private static final int TICK_STOP = 2;
+
+	/** The id of CIS entity. */
+	private int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	private int shutdownId = -1;
+
+	/** The CIS object. */
+	private CloudInformationService cis = null;
+
+	/** The trace flag. */
+	private boolean traceFlag = false;
+
+	/** The calendar. */
+	private Calendar calendar = null;
+
+	/** The termination time. */
+	private double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	private double minTimeBetweenEvents = 0.1;
+
+	/** The entities. */
+	private List<SimEntity> entities;
+
+	/**
+	 * The ids of the entities that may have something to do in the next tick: the runnable
+	 * entities that have been sent events or have just become runnable.
+	 */
+	private int[] worklist = new int[16];
+
+	/** The number of entities in the worklist. */
+	private int worklistSize;
+
+	/** The worklist of the tick being run, swapped with {@link #worklist} at each tick. */
+	private int[] runList = new int[16];
+
+	/** The future event queue. */
+	private IndexedFutureQueue future;
+
+	/** The deferred event queue. */
+	private DeferredQueue deferred;
+
+	/** The mode of the event pool of the next simulation, or null to use the system property. */
+	private SimEventPool.Mode eventPoolMode = null;
+
+	/** The event pool. */
+	private SimEventPool eventPool;
+
+	/** The metrics collector, or <tt>null</tt> if no metrics are collected. */
+	private SimulationMetrics metrics;
+
+	/** Whether the metrics collector was created from the system properties. */
+	private boolean defaultMetrics = false;
+
+	/** The event trace, or <tt>null</tt> if the simulation is not traced. */
+	private EventTrace trace;
+
+	/** Whether the event trace was created from the system properties or the trace flag. */
+	private boolean defaultTrace = false;
+
+	/** The simulation clock. */
+	private double clock;
+
+	/** Flag for checking if the simulation is running. */
+	private boolean running;
+
+	/** The entities by name. */
+	private Map<String, SimEntity> entitiesByName;
+
+	// The predicates used in entity wait methods
+	/** The wait predicates. */
+	private Map<Integer, Predicate> waitPredicates;
+
+	/** Whether the entities have been started. */
+	private boolean started = false;
+
+	/** The number of events processed. */
+	private long eventCount = 0;
+
+	/** The paused. */
+	private volatile boolean paused = false;
+
+	/** The pause at. */
+	private volatile long pauseAt = -1;
+
+	/** The time up to which the current step runs, or infinity. */
+	private volatile double stepTime = Double.POSITIVE_INFINITY;
+
+	/** The number of processed events at which the current step stops, or Long.MAX_VALUE. */
+	private volatile long stopEvents = Long.MAX_VALUE;
+
+	/** The lock guarding the pause and step hand-off between the runner and the controllers. */
+	private final ReentrantLock controlLock = new ReentrantLock();
+
+	/** Signalled when the simulation is paused, resumed, stepped or finished. */
+	private final Condition controlChanged = controlLock.newCondition();
+
+	/** The thread running the simulation, or <tt>null</tt>. */
+	private Thread runner;
+
+	/** Whether the runner is a controller stepping the simulation, rather than {@link #run()}. */
+	private boolean runnerStepping = false;
+
+	/** Whether a step was handed to the runner and has not completed yet. */
+	private boolean stepPending = false;
+
+	/** The clock at which the last simulation finished. */
+	private double finishClock;
+
+	/** The abrupt terminate. */
+	private boolean abruptTerminate = false;
+
+	/**
+	 * The attributes attached to this context. The entities of partitions running in parallel can
+	 * read and attach attributes concurrently.
+	 */
+	private final ConcurrentMap<Object, Object> attributes = new ConcurrentHashMap<Object, Object>();
+
+	/** The partitioner, or <tt>null</tt> to use the system property. */
+	private Partitioner partitioner = null;
+
+	/** Whether the log is disabled for the threads bound to this context. */
+	private volatile boolean logDisabled = false;
+
+	/** Whether the partitions of the current run have been set up. */
+	private boolean partitioned = false;
+
+	/** The partition of each entity, if the simulation runs in parallel. */
+	private int[] partitions;
+
+	/** The logical processes of the partitions, or <tt>null</tt> if the simulation runs sequentially. */
+	private LogicalProcess[] processes;
+
+	/** The minimum network delay between two entities of different partitions. */
+	private double lookahead;
+
+	/** The threads running the logical processes. */
+	private ExecutorService executor;
+
+	/** Whether the logical processes are running a window. */
+	private boolean inWindow = false;
+
+	/** The end of the current window. */
+	private double horizon;
+
+	/**
+	 * Creates a new, uninitialised simulation context.
+	 */
+	public SimulationContext() {
+	}
+
+	/**
+	 * Gets the context bound to the calling thread.
+	 *
+	 * @return the bound context, or the default context if no context is bound
+	 */
+	public static SimulationContext current() {
+		if (!contextsBound) {
+			return DEFAULT_CONTEXT;
+		}
+		SimulationContext context = CURRENT.get();
+		if (context == null) {
+			return DEFAULT_CONTEXT;
+		}
+		return context;
+	}
+
+	/**
+	 * Gets the default context, used by threads without a bound context.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return DEFAULT_CONTEXT;
+	}
+
+	/**
+	 * Binds this context to the calling thread.
+	 *
+	 * @return the context that was bound to the thread before, to be passed to
+	 *         {@link #restore(SimulationContext)}
+	 */
+	public SimulationContext bind() {
+		contextsBound = true;
+		SimulationContext previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores the context bound to the calling thread before a call to {@link #bind()}.
+	 *
+	 * @param previous the context returned by {@link #bind()}, may be <tt>null</tt>
+	 */
+	public static void restore(SimulationContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Runs a task with this context bound to the calling thread.
+	 *
+	 * @param task the task, usually setting up and running a simulation
+	 * @return the result of the task
+	 * @throws Exception if the task throws an exception
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		SimulationContext previous = bind();
+		try {
+			return task.call();
+		} finally {
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Gets an attribute attached to this context.
+	 *
+	 * @param key the key of the attribute
+	 * @return the attribute, or <tt>null</tt> if there is none
+	 */
+	public Object getAttribute(Object key) {
+		return attributes.get(key);
+	}
+
+	/**
+	 * Attaches an attribute to this context. Extensions use attributes to keep their per-simulation
+	 * state in the context rather than in static fields.
+	 *
+	 * @param key the key of the attribute
+	 * @param value the attribute, or <tt>null</tt> to remove it
+	 */
+	public void setAttribute(Object key, Object value) {
+		if (value == null) {
+			attributes.remove(key);
+		} else {
+			attributes.put(key, value);
+		}
+	}
+
+	/**
+	 * Attaches an attribute to this context unless one is already attached with the same key. The
+	 * check and the update are atomic, so an attribute created lazily by entities that run in
+	 * parallel is created only once.
+	 *
+	 * @param key the key of the attribute
+	 * @param value the attribute
+	 * @return the attribute now attached to the context, the given one or the one already there
+	 */
+	public Object setAttributeIfAbsent(Object key, Object value) {
+		Object previous = attributes.putIfAbsent(key, value);
+		return previous == null ? value : previous;
+	}
+
+	/**
+	 * Gets the attribute of a type, keyed by the type itself, attaching the initial value if there
+	 * is none yet. This is how extensions keep their per-simulation state, e.g.
+	 * <tt>context.getAttribute(State.class, new State())</tt>.
+	 *
+	 * @param <T> the type of the attribute
+	 * @param key the type of the attribute, used as its key
+	 * @param initial the attribute to attach if there is none, discarded otherwise
+	 * @return the attribute attached to the context
+	 */
+	public <T> T getAttribute(Class<T> key, T initial) {
+		Object value = attributes.get(key);
+		if (value == null) {
+			value = setAttributeIfAbsent(key, initial);
+		}
+		return key.cast(value);
+	}
+
+	// ======== INITIALISATION METHODS ===============//
+
+	/**
+	 * Initialises the simulation of this context. This method should be called before creating any
+	 * entities. It creates the CloudInformationService and CloudSimShutdown entities.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue the (empty) future event queue to be used, or <tt>null</tt> to use the one
+	 *            selected by the {@value FutureQueue#QUEUE_PROPERTY} system property
+	 * @see CloudSim#init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag, FutureQueue futureQueue) {
+		// the entities created here are bound to the current context
+		if (current() != this) {
+			SimulationContext previous = bind();
+			try {
+				init(numUser, cal, traceFlag, futureQueue);
+			} finally {
+				restore(previous);
+			}
+			return;
+		}
+
+		try {
+			initialize(futureQueue);
+			// NOTE: the order for the below 3 lines are important
+			this.traceFlag = traceFlag;
+			if (trace == null) {
+				trace = EventTrace.createDefault(traceFlag);
+				defaultTrace = trace != null;
+			}
+
+			// Set the current Wall clock time as the starting time of
+			// simulation
+			if (cal == null) {
+				calendar = Calendar.getInstance();
+			} else {
+				calendar = cal;
+			}
+
+			// creates a CloudSimShutdown object
+			CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
+			shutdownId = shutdown.getId();
+
+			// create a GIS object
+			cis = new CloudInformationService("CloudInformationService");
+
+			// set all the above entity IDs
+			cisId = cis.getId();
+		} catch (IllegalArgumentException s) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(s.getMessage());
+		} catch (Exception e) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(e.getMessage());
+		}
+	}
+
+	/**
+	 * Initialise the simulation state of this context.
+	 *
+	 * @param futureQueue the (empty) future event queue to be used, or <tt>null</tt> to use the one
+	 *            selected by the {@value FutureQueue#QUEUE_PROPERTY} system property
+	 */
+	void initialize(FutureQueue futureQueue) {
+		Log.printLine("Initialising...");
+		stopPartitions();
+		entities = new ArrayList<SimEntity>();
+		entitiesByName = new LinkedHashMap<String, SimEntity>();
+		future = new IndexedFutureQueue(futureQueue == null ? createFutureQueue() : futureQueue);
+		deferred = new DeferredQueue();
+		eventPool = new SimEventPool(eventPoolMode == null ? SimEventPool.getDefaultMode() : eventPoolMode);
+		if (metrics == null) {
+			metrics = SimulationMetrics.createDefault();
+			defaultMetrics = metrics != null;
+		}
+		waitPredicates = new HashMap<Integer, Predicate>();
+		worklistSize = 0;
+		clock = 0;
+		running = false;
+		started = false;
+		eventCount = 0;
+	}
+
+	/**
+	 * Creates the future event queue selected by the {@value FutureQueue#QUEUE_PROPERTY} system
+	 * property. The {@link TreeSetFutureQueue} is used if the property is not set.
+	 *
+	 * @return the future event queue
+	 */
+	static FutureQueue createFutureQueue() {
+		String type = System.getProperty(FutureQueue.QUEUE_PROPERTY, "tree").trim();
+		if (type.equalsIgnoreCase("tree")) {
+			return new TreeSetFutureQueue();
+		} else if (type.equalsIgnoreCase("heap")) {
+			return new HeapFutureQueue();
+		} else if (type.equalsIgnoreCase("calendar")) {
+			return new CalendarFutureQueue();
+		}
+
+		try {
+			return (FutureQueue) Class.forName(type).getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown future event queue: " + type, e);
+		}
+	}
+
+	/**
+	 * Sets the mode of the event pool. It is used by the simulations initialised afterwards and
+	 * overrides the mode selected by the {@value SimEventPool#POOL_PROPERTY} system property.
+	 *
+	 * @param mode the mode, or <tt>null</tt> to use the system property
+	 * @see SimEventPool
+	 */
+	public void setEventPoolMode(SimEventPool.Mode mode) {
+		eventPoolMode = mode;
+	}
+
+	/**
+	 * Sets the partitioner used to run the simulation in parallel. It overrides the partitioner
+	 * selected by the {@value Partitioner#PARTITIONER_PROPERTY} system property, and takes effect
+	 * the next time the simulation is run.
+	 *
+	 * @param partitioner the partitioner, or <tt>null</tt> to use the system property
+	 * @see Partitioner
+	 */
+	public void setPartitioner(Partitioner partitioner) {
+		this.partitioner = partitioner;
+	}
+
+	/**
+	 * Disables the {@link org.cloudbus.cloudsim.Log} for the threads bound to this context only,
+	 * e.g. to run a simulation quietly next to others that log.
+	 *
+	 * @param disabled <tt>true</tt> to disable the log
+	 * @see org.cloudbus.cloudsim.Log#isDisabled()
+	 */
+	public void setLogDisabled(boolean disabled) {
+		this.logDisabled = disabled;
+	}
+
+	/**
+	 * Checks whether the log is disabled for the threads bound to this context.
+	 *
+	 * @return <tt>true</tt> if the log is disabled
+	 */
+	public boolean isLogDisabled() {
+		return logDisabled;
+	}
+
+	/**
+	 * Creates the partitioner selected by the {@value Partitioner#PARTITIONER_PROPERTY} system
+	 * property.
+	 *
+	 * @return the partitioner, or <tt>null</tt> if the property is not set
+	 */
+	static Partitioner createPartitioner() {
+		String type = System.getProperty(Partitioner.PARTITIONER_PROPERTY, "").trim();
+		if (type.length() == 0 || type.equalsIgnoreCase("none")) {
+			return null;
+		} else if (type.equalsIgnoreCase("datacenter")) {
+			return new DatacenterPartitioner();
+		}
+
+		try {
+			return (Partitioner) Class.forName(type).getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown partitioner: " + type, e);
+		}
+	}
+
+	/**
+	 * Gets the event pool of the simulation.
+	 *
+	 * @return the event pool, or <tt>null</tt> if the simulation has not been initialised
+	 */
+	public SimEventPool getEventPool() {
+		return eventPool;
+	}
+
+	/**
+	 * Sets the metrics collector of the simulation. The collector is kept by the simulations run
+	 * afterwards, and accumulates their metrics.
+	 *
+	 * @param metrics the collector, or <tt>null</tt> to collect no metrics
+	 * @see SimulationMetrics
+	 */
+	public void setMetrics(SimulationMetrics metrics) {
+		if (defaultMetrics) {
+			this.metrics.stopDump();
+			this.metrics.unregisterMBean();
+			defaultMetrics = false;
+		}
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Gets the metrics collector of the simulation.
+	 *
+	 * @return the collector, or <tt>null</tt> if no metrics are collected
+	 */
+	public SimulationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the event trace of the simulation. The trace is kept by the simulations run afterwards,
+	 * which are all written to it, and it is flushed when each of them finishes; it has to be
+	 * closed by the caller.
+	 *
+	 * @param trace the trace, or <tt>null</tt> to trace nothing
+	 * @see EventTrace
+	 */
+	public void setTrace(EventTrace trace) {
+		if (defaultTrace) {
+			this.trace.closeQuietly();
+			defaultTrace = false;
+		}
+		this.trace = trace;
+	}
+
+	/**
+	 * Gets the event trace of the simulation.
+	 *
+	 * @return the trace, or <tt>null</tt> if the simulation is not traced
+	 */
+	public EventTrace getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Releases an event that an entity has processed to the event pool.
+	 *
+	 * @param e the event
+	 * @param entity the entity
+	 */
+	void releaseEvent(SimEvent e, SimEntity entity) {
+		if (inWindow) {
+			currentProcess().pool.release(e, entity);
+		} else {
+			eventPool.release(e, entity);
+		}
+	}
+
+	/**
+	 * Sets the minimal time between events.
+	 *
+	 * @param periodBetweenEvents the minimal period between events
+	 */
+	void setMinTimeBetweenEvents(double periodBetweenEvents) {
+		minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Resets the state created by {@link #init(int, Calendar, boolean, FutureQueue)}, after the
+	 * simulation has been run.
+	 */
+	void resetInit() {
+		cisId = -1;
+		shutdownId = -1;
+		cis = null;
+		calendar = null;
+		traceFlag = false;
+	}
+
+	// ======== ACCESS METHODS ===============//
+
+	/**
+	 * Returns the minimum time between events. Events within shorter periods after the last event
+	 * are discarded.
+	 *
+	 * @return the minimum time between events.
+	 */
+	public double getMinTimeBetweenEvents() {
+		return minTimeBetweenEvents;
+	}
+
+	/**
+	 * Gets a new copy of initial simulation Calendar.
+	 *
+	 * @return a new copy of Calendar object or if CloudSim hasn't been initialized
+	 */
+	public Calendar getSimulationCalendar() {
+		// make a new copy
+		Calendar clone = calendar;
+		if (calendar != null) {
+			clone = (Calendar) calendar.clone();
+		}
+
+		return clone;
+	}
+
+	/**
+	 * Gets the entity ID of <tt>CloudInformationService</tt>.
+	 *
+	 * @return the Entity ID or if it is not found
+	 */
+	public int getCloudInfoServiceEntityId() {
+		return cisId;
+	}
+
+	/**
+	 * Gets the list of all Cloud resources registered in the <tt>CloudInformationService</tt>.
+	 *
+	 * @return A List containing CloudResource ID (as an Integer object) or if a CIS entity hasn't
+	 *         been created before
+	 */
+	public List<Integer> getCloudResourceList() {
+		if (cis == null) {
+			return null;
+		}
+
+		return cis.getList();
+	}
+
+	/**
+	 * Gets the trace flag.
+	 *
+	 * @return <tt>true</tt> if CloudSim trace need to be written
+	 */
+	public boolean getTraceFlag() {
+		return traceFlag;
+	}
+
+	/**
+	 * Get the current simulation time.
+	 *
+	 * @return the simulation time
+	 */
+	public double clock() {
+		if (inWindow) {
+			LogicalProcess lp = CURRENT_PROCESS.get();
+			if (lp != null) {
+				return lp.clock;
+			}
+		}
+		return clock;
+	}
+
+	/**
+	 * Get the current number of entities in the simulation.
+	 *
+	 * @return The number of entities
+	 */
+	public int getNumEntities() {
+		return entities.size();
+	}
+
+	/**
+	 * Get the entity with a given id.
+	 *
+	 * @param id the entity's unique id number
+	 * @return The entity, or if it could not be found
+	 */
+	public SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Get the entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity
+	 */
+	public SimEntity getEntity(String name) {
+		return entitiesByName.get(name);
+	}
+
+	/**
+	 * Get the id of an entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity's unique id number
+	 */
+	public int getEntityId(String name) {
+		SimEntity obj = entitiesByName.get(name);
+		if (obj == null) {
+			return NOT_FOUND;
+		} else {
+			return obj.getId();
+		}
+	}
+
+	/**
+	 * Returns a list of entities created for the simulation.
+	 *
+	 * @return the entity iterator
+	 */
+	public List<SimEntity> getEntityList() {
+		// create a new list to prevent the user from changing
+		// the list of entities used by Simulation
+		List<SimEntity> list = new LinkedList<SimEntity>();
+		list.addAll(entities);
+		return list;
+	}
+
+	/**
+	 * Check if the simulation is still running.
+	 *
+	 * @return if the simulation is still running, otherwise
+	 */
+	public boolean running() {
+		if (inWindow) {
+			LogicalProcess lp = CURRENT_PROCESS.get();
+			if (lp != null && lp.terminated) {
+				return false;
+			}
+		}
+		return running;
+	}
+
+	/**
+	 * Checks if is paused.
+	 *
+	 * @return true, if is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	// ======== SIMULATION METHODS ===============//
+
+	/**
+	 * Add a new entity to the simulation.
+	 *
+	 * @param e The new entity
+	 */
+	public void addEntity(SimEntity e) {
+		SimEvent evt;
+		if (inWindow) {
+			throw new IllegalStateException("Entities can't be added while the partitions run in parallel.");
+		}
+		if (running) {
+			if (processes != null) {
+				printMessage("Simulation: Entity added while running, the partitions are now run sequentially.");
+				stopPartitions();
+				partitioned = true;
+			}
+			// Post an event to make this entity
+			evt = eventPool.get(SimEvent.CREATE, clock, 1, 0, 0, e);
+			future.addEvent(evt);
+		}
+		if (e.getId() == -1) { // Only add once!
+			int id = entities.size();
+			e.setId(id);
+			entities.add(e);
+			entitiesByName.put(e.getName(), e);
+		}
+		if (e.getState() == SimEntity.RUNNABLE) {
+			activate(e);
+		}
+	}
+
+	/**
+	 * Adds an entity to the worklist of the entities to be run in the next tick. This is called
+	 * whenever an entity becomes runnable or a runnable entity is sent an event.
+	 *
+	 * @param e the entity
+	 */
+	void activate(SimEntity e) {
+		int id = e.getId();
+		if (e.isActive() || id < 0 || entities == null || id >= entities.size() || entities.get(id) != e) {
+			return;
+		}
+		if (inWindow) {
+			LogicalProcess lp = processes[partitions[id]];
+			if (lp != CURRENT_PROCESS.get()) {
+				throw new IllegalStateException("Entity " + e.getName() + " activated from another partition.");
+			}
+			lp.activate(id);
+		} else {
+			if (worklistSize == worklist.length) {
+				worklist = Arrays.copyOf(worklist, worklistSize * 2);
+			}
+			worklist[worklistSize++] = id;
+		}
+		e.setActive(true);
+	}
+
+	/**
+	 * Internal method used to add a new entity to the simulation when the simulation is running.
+	 *
+	 * @param e The new entity
+	 */
+	void addEntityDynamically(SimEntity e) {
+		if (e == null) {
+			throw new IllegalArgumentException("Adding null entity.");
+		} else {
+			printMessage("Adding: " + e.getName());
+		}
+		e.startEntity();
+	}
+
+	/**
+	 * Internal method used to run one tick of the simulation. Only the entities in the worklist
+	 * are run, in the order of their ids; the other entities have no events to process.
+	 *
+	 * @return true, if the future event queue is empty
+	 */
+	public boolean runClockTick() {
+		return tick() == TICK_IDLE && stopRunning();
+	}
+
+	/**
+	 * Stops the simulation once there are no more future events.
+	 *
+	 * @return true
+	 */
+	private boolean stopRunning() {
+		running = false;
+		printMessage("Simulation: No more future events");
+		return true;
+	}
+
+	/**
+	 * Runs one tick of the simulation, leaving it running when there are no more future events.
+	 * The tick stops before processing the next events if they are past the targets of the
+	 * current step.
+	 *
+	 * @return {@link #TICK_RUN}, {@link #TICK_IDLE} if the future event queue is empty, or
+	 *         {@link #TICK_STOP} if the simulation stopped
+	 */
+	private int tick() {
+		SimEntity ent;
+		int result;
+
+		// entities activated while running go to the worklist of the next tick
+		int[] ids = worklist;
+		int size = worklistSize;
+		worklist = runList;
+		worklistSize = 0;
+		runList = ids;
+		if (size > 1) {
+			Arrays.sort(ids, 0, size);
+		}
+
+		for (int i = 0; i < size; i++) {
+			ent = entities.get(ids[i]);
+			ent.setActive(false);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				ent.run();
+			}
+		}
+
+		if (metrics != null) {
+			metrics.sampleFutureQueue(clock, future.size());
+		}
+
+		// If there are more future events then deal with them
+		if (future.size() > 0) {
+			double time = future.peek().eventTime();
+			if (time > stepTime || eventCount >= stopEvents) {
+				stopStep(time);
+				return TICK_STOP;
+			}
+			result = TICK_RUN;
+
+			// Process all the events at the same time, including the ones created while
+			// processing them (e.g. by entities added dynamically)
+			while (future.size() > 0 && future.peek().eventTime() == time) {
+				List<SimEvent> events = future.pollAll(time);
+				for (int i = 0; i < events.size(); i++) {
+					processEvent(events.get(i));
+				}
+				events.clear();
+			}
+			if (metrics != null) {
+				metrics.sampleDeferredQueue(deferred.size());
+			}
+
+		} else {
+			result = TICK_IDLE;
+		}
+
+		return result;
+	}
+
+	// ======== PARALLEL METHODS ===============//
+
+	/**
+	 * Runs the next step of the simulation: a parallel window if the simulation is partitioned,
+	 * otherwise a clock tick. Windows are not run while metrics are collected or the simulation
+	 * is traced, or while it is stepped or has to pause at a given time, which are handled tick by
+	 * tick.
+	 *
+	 * @return {@link #TICK_RUN}, {@link #TICK_IDLE} if the future event queue is empty, or
+	 *         {@link #TICK_STOP} if the simulation stopped
+	 */
+	private int advance() {
+		if (!partitioned) {
+			startPartitions();
+		}
+		if (processes != null && metrics == null && trace == null && pauseAt == -1 && stepTime == Double.POSITIVE_INFINITY
+				&& stopEvents == Long.MAX_VALUE && runWindow()) {
+			return TICK_RUN;
+		}
+		return tick();
+	}
+
+	/**
+	 * Splits the entities into partitions, with the partitioner of the context or the one selected
+	 * by the {@value Partitioner#PARTITIONER_PROPERTY} system property. The simulation is run
+	 * sequentially if there is no partitioner, a single partition or no lookahead.
+	 */
+	private void startPartitions() {
+		partitioned = true;
+		Partitioner p = partitioner == null ? createPartitioner() : partitioner;
+		if (p == null) {
+			return;
+		}
+
+		int[] parts = p.partition(Collections.unmodifiableList(entities));
+		int count = 0;
+		for (int part : parts) {
+			count = Math.max(count, part + 1);
+		}
+		if (count < 2) {
+			printMessage("Simulation: A single partition, running sequentially.");
+			return;
+		}
+		double delay = getLookahead(parts);
+		if (delay <= 0) {
+			printMessage("Simulation: No lookahead between the partitions, running sequentially.");
+			return;
+		}
+
+		partitions = parts;
+		lookahead = delay;
+		processes = new LogicalProcess[count];
+		for (int i = 0; i < count; i++) {
+			processes[i] = new LogicalProcess(i, eventPool.getMode());
+		}
+		// the entities of different partitions wait and defer their events concurrently
+		waitPredicates = new ConcurrentHashMap<Integer, Predicate>(waitPredicates);
+		deferred.ensureCapacity(entities.size());
+		executor = Executors.newFixedThreadPool(Math.min(count, Runtime.getRuntime().availableProcessors()),
+				new ThreadFactory() {
+
+					private int threads = 0;
+
+					@Override
+					public synchronized Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "CloudSim partition " + threads++);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		printMessage("Simulation: Running " + count + " partitions in parallel, with a lookahead of " + delay);
+	}
+
+	/**
+	 * Gets the smallest network delay between two entities of different partitions. It is zero if
+	 * the network topology is not enabled or if an entity is not mapped in it, as its events are
+	 * then sent without delay. Each mapped entity has a node of its own, so only the delays between
+	 * the nodes of the topology are compared.
+	 *
+	 * @param parts the partition of each entity
+	 * @return the lookahead, or zero if there is none
+	 */
+	private static double getLookahead(int[] parts) {
+		if (!NetworkTopology.isNetworkEnabled()) {
+			return 0.0;
+		}
+		for (int i = 0; i < parts.length; i++) {
+			if (!NetworkTopology.isMapped(i)) {
+				return 0.0;
+			}
+		}
+		double delay = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < parts.length && delay > 0; i++) {
+			for (int j = i + 1; j < parts.length && delay > 0; j++) {
+				if (parts[i] != parts[j]) {
+					delay = Math.min(delay, Math.min(NetworkTopology.getDelay(i, j), NetworkTopology.getDelay(j, i)));
+				}
+			}
+		}
+		return delay;
+	}
+
+	/**
+	 * Stops running the simulation in parallel.
+	 */
+	private void stopPartitions() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		processes = null;
+		partitions = null;
+		partitioned = false;
+	}
+
+	/**
+	 * Runs a window of the simulation in parallel. The window starts with the next events or, if
+	 * entities are to be run, at the current clock, and lasts for the lookahead, so that no event
+	 * sent from one partition to another is due within it. The events due within the window are
+	 * handed to the logical processes of their partitions, which run them concurrently. The events
+	 * created in the window are then added to the future event queue in the order the sequential
+	 * kernel would have created them, and the clock is set to the time of the last event processed.
+	 *
+	 * @return true, if the window was run; false if the next tick has to be run sequentially
+	 */
+	private boolean runWindow() {
+		double start;
+		if (worklistSize > 0) {
+			start = clock;
+		} else if (future.size() > 0) {
+			start = future.peek().eventTime();
+		} else {
+			return false;
+		}
+		horizon = start + lookahead;
+		if (terminateAt > 0.0 && terminateAt < horizon) {
+			horizon = terminateAt;
+		}
+		if (horizon <= start) {
+			return false;
+		}
+
+		for (LogicalProcess lp : processes) {
+			lp.begin(clock);
+		}
+		while (future.size() > 0 && future.peek().eventTime() < horizon) {
+			List<SimEvent> events = future.pollAll(future.peek().eventTime());
+			for (int i = 0; i < events.size(); i++) {
+				SimEvent e = events.get(i);
+				int id = e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination();
+				processes[id >= 0 && id < partitions.length ? partitions[id] : 0].addEvent(e);
+			}
+			events.clear();
+		}
+		for (int i = 0; i < worklistSize; i++) {
+			processes[partitions[worklist[i]]].activate(worklist[i]);
+		}
+		worklistSize = 0;
+
+		inWindow = true;
+		try {
+			runProcesses();
+		} finally {
+			inWindow = false;
+		}
+
+		List<LogicalProcess.Created> created = new ArrayList<LogicalProcess.Created>();
+		double last = clock;
+		Throwable failure = null;
+		for (LogicalProcess lp : processes) {
+			if (failure == null) {
+				failure = lp.failure;
+			}
+			eventCount += lp.eventCount;
+			last = Math.max(last, lp.clock);
+			for (SimEvent e : lp.removed) {
+				future.remove(e);
+			}
+			for (int[] pair : lp.cancelled) {
+				future.cancelAll(pair[0], pair[1]);
+			}
+			created.addAll(lp.created);
+			if (lp.terminated) {
+				running = false;
+			}
+			if (lp.terminateAt > 0.0) {
+				terminateAt = lp.terminateAt;
+			}
+			lp.end();
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new IllegalStateException(failure);
+		}
+
+		// the sort is stable, so the events created by an entity in a tick keep their order
+		Collections.sort(created, LogicalProcess.CREATION_ORDER);
+		for (LogicalProcess.Created c : created) {
+			if (c.event == null) {
+				continue;
+			} else if (c.first) {
+				future.addEventFirst(c.event);
+			} else {
+				future.addEvent(c.event);
+			}
+		}
+		clock = last;
+		return true;
+	}
+
+	/**
+	 * Runs the current window in the logical processes that have work, on the threads of the
+	 * executor, or in the calling thread if there is only one.
+	 */
+	private void runProcesses() {
+		List<LogicalProcess> busy = new ArrayList<LogicalProcess>();
+		for (LogicalProcess lp : processes) {
+			if (lp.isBusy()) {
+				busy.add(lp);
+			}
+		}
+		if (busy.size() == 1) {
+			runProcess(busy.get(0));
+			return;
+		}
+
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for (final LogicalProcess lp : busy) {
+			results.add(executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					runProcess(lp);
+				}
+			}));
+		}
+		boolean interrupted = false;
+		for (Future<?> result : results) {
+			while (true) {
+				try {
+					result.get();
+					break;
+				} catch (InterruptedException e) {
+					// the window has to complete before the simulation can go on
+					interrupted = true;
+				} catch (ExecutionException e) {
+					// runProcess keeps the failures of the entities in the logical process
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs the current window in a logical process, in the calling thread.
+	 *
+	 * @param lp the logical process
+	 */
+	private void runProcess(LogicalProcess lp) {
+		SimulationContext previous = bind();
+		CURRENT_PROCESS.set(lp);
+		try {
+			lp.run(this, horizon);
+		} catch (Throwable t) {
+			lp.failure = t;
+		} finally {
+			CURRENT_PROCESS.remove();
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Gets the logical process run by the calling thread.
+	 *
+	 * @return the logical process
+	 * @throws IllegalStateException if the thread does not run a logical process
+	 */
+	private LogicalProcess currentProcess() {
+		LogicalProcess lp = CURRENT_PROCESS.get();
+		if (lp == null) {
+			throw new IllegalStateException("Only the entities can act on a simulation while its partitions run.");
+		}
+		return lp;
+	}
+
+	/**
+	 * Creates an event in a window, in the logical process run by the calling thread.
+	 *
+	 * @param type the internal type
+	 * @param src the source entity
+	 * @param dest the destination entity
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 * @param first whether the event has priority in the queue
+	 */
+	private void post(int type, int src, int dest, double delay, int tag, Object data, boolean first) {
+		LogicalProcess lp = currentProcess();
+		SimEvent e = lp.pool.get(type, lp.clock + delay, src, dest, tag, data);
+		int id = type == SimEvent.HOLD_DONE ? src : dest;
+		lp.schedule(e, first, id >= 0 && id < partitions.length ? partitions[id] : lp.index, horizon);
+	}
+
+	/**
+	 * Cancels the first event sent by an entity that matches a predicate, in a window. The events
+	 * of the future queue are only removed at the end of the window, which they are due after.
+	 *
+	 * @param src the id of the source entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if none matches
+	 */
+	private SimEvent cancelInWindow(int src, Predicate p) {
+		LogicalProcess lp = currentProcess();
+		SimEvent first = lp.findFirst(src, p, 0);
+		SimEvent queued = null;
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev) && !lp.isRemoved(ev) && (queued == null || ev.compareTo(queued) < 0)) {
+				queued = ev;
+			}
+		}
+
+		if (first != null && (queued == null || first.compareTo(queued) < 0)) {
+			lp.remove(first);
+			return first;
+		} else if (queued != null) {
+			lp.removed.add(queued);
+		}
+		return queued;
+	}
+
+	/**
+	 * Cancels all the events sent by an entity that match a predicate or a tag, in a window. The
+	 * events of the future queue are only removed at the end of the window, which they are due
+	 * after.
+	 *
+	 * @param src the id of the source entity
+	 * @param p the predicate, or <tt>null</tt> to match a tag
+	 * @param tag the tag, if there is no predicate
+	 * @return true, if at least one event has been cancelled
+	 */
+	private boolean cancelAllInWindow(int src, Predicate p, int tag) {
+		LogicalProcess lp = currentProcess();
+		boolean cancelled = lp.removeAll(src, p, tag);
+		if (p == null) {
+			cancelled |= !lp.isCancelled(src, tag) && future.contains(src, tag);
+			lp.cancelled.add(new int[] { src, tag });
+			return cancelled;
+		}
+
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev) && !lp.isRemoved(ev)) {
+				lp.removed.add(ev);
+				cancelled = true;
+			}
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Used to hold an entity for some time.
+	 *
+	 * @param src the src
+	 * @param delay the delay
+	 */
+	public void hold(int src, long delay) {
+		if (inWindow) {
+			post(SimEvent.HOLD_DONE, src, -1, delay, -1, null, false);
+			entities.get(src).setState(SimEntity.HOLDING);
+			return;
+		}
+		SimEvent e = eventPool.get(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		future.addEvent(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * Used to pause an entity for some time.
+	 *
+	 * @param src the src
+	 * @param delay the delay
+	 */
+	public void pause(int src, double delay) {
+		if (inWindow) {
+			post(SimEvent.HOLD_DONE, src, -1, delay, -1, null, false);
+			entities.get(src).setState(SimEntity.HOLDING);
+			return;
+		}
+		SimEvent e = eventPool.get(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		future.addEvent(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * Used to send an event from one entity to another.
+	 *
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void send(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (inWindow) {
+			post(SimEvent.SEND, src, dest, delay, tag, data, false);
+			return;
+		}
+
+		SimEvent e = eventPool.get(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		future.addEvent(e);
+	}
+
+	/**
+	 * Used to send an event from one entity to another, with priority in the queue.
+	 *
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (inWindow) {
+			post(SimEvent.SEND, src, dest, delay, tag, data, true);
+			return;
+		}
+
+		SimEvent e = eventPool.get(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		future.addEventFirst(e);
+	}
+
+	/**
+	 * Sets an entity's state to be waiting. Only events that satisfy the predicate will be passed
+	 * to the entity.
+	 *
+	 * @param src the src
+	 * @param p the p
+	 */
+	public void wait(int src, Predicate p) {
+		entities.get(src).setState(SimEntity.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			// If a predicate has been used store it in order to check it
+			waitPredicates.put(src, p);
+		}
+	}
+
+	/**
+	 * Checks if events for a specific entity are present in the deferred event queue.
+	 *
+	 * @param d the d
+	 * @param p the p
+	 * @return the int
+	 */
+	public int waiting(int d, Predicate p) {
+		return deferred.count(d, p);
+	}
+
+	/**
+	 * Selects an event matching a predicate.
+	 *
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent select(int src, Predicate p) {
+		return deferred.select(src, p);
+	}
+
+	/**
+	 * Find first deferred event matching a predicate.
+	 *
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirstDeferred(int src, Predicate p) {
+		return deferred.findFirst(src, p);
+	}
+
+	/**
+	 * Removes an event from the event queue.
+	 *
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event
+	 */
+	public SimEvent cancel(int src, Predicate p) {
+		if (inWindow) {
+			return cancelInWindow(src, p);
+		}
+		SimEvent first = null;
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev) && (first == null || ev.compareTo(first) < 0)) {
+				first = ev;
+			}
+		}
+
+		if (first != null) {
+			future.remove(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all events that match a given predicate from the future event queue.
+	 *
+	 * @param src the src
+	 * @param p the p
+	 * @return true, if at least one event has been cancelled
+	 */
+	public boolean cancelAll(int src, Predicate p) {
+		if (inWindow) {
+			return cancelAllInWindow(src, p, 0);
+		}
+		List<SimEvent> toRemove = new ArrayList<SimEvent>();
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				toRemove.add(ev);
+			}
+		}
+		return !toRemove.isEmpty() && future.removeAll(toRemove);
+	}
+
+	/**
+	 * Removes all events with a given source and tag from the future event queue.
+	 *
+	 * @param src the src
+	 * @param tag the tag
+	 * @return true, if at least one event has been cancelled
+	 * @see IndexedFutureQueue#cancelAll(int, int)
+	 */
+	public boolean cancelAll(int src, int tag) {
+		if (inWindow) {
+			return cancelAllInWindow(src, null, tag);
+		}
+		return future.cancelAll(src, tag) > 0;
+	}
+
+	/**
+	 * Processes an event.
+	 *
+	 * @param e the e
+	 */
+	private void processEvent(SimEvent e) {
+		// Update the system's clock
+		if (e.eventTime() < clock) {
+			throw new IllegalArgumentException("Past event detected.");
+		}
+		clock = e.eventTime();
+		eventCount++;
+		if (metrics != null) {
+			metrics.eventProcessed(e);
+		}
+		if (trace != null) {
+			trace.eventProcessed(e);
+		}
+
+		dispatch(e, eventPool);
+	}
+
+	/**
+	 * Delivers an event to its destination entity, or processes an internal event.
+	 *
+	 * @param e the event
+	 * @param pool the pool the internal events are released to
+	 */
+	void dispatch(SimEvent e, SimEventPool pool) {
+		int dest, src;
+		SimEntity dest_ent;
+		switch (e.getType()) {
+			case SimEvent.ENULL:
+				throw new IllegalArgumentException("Event has a null type.");
+
+			case SimEvent.CREATE:
+				SimEntity newe = (SimEntity) e.getData();
+				addEntityDynamically(newe);
+				pool.release(e, null);
+				break;
+
+			case SimEvent.SEND:
+				// Check for matching wait
+				dest = e.getDestination();
+				if (dest < 0) {
+					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+				} else {
+					int tag = e.getTag();
+					dest_ent = entities.get(dest);
+					if (dest_ent.getState() == SimEntity.WAITING) {
+						Integer destObj = Integer.valueOf(dest);
+						Predicate p = waitPredicates.get(destObj);
+						if ((p == null) || (tag == 9999) || (p.match(e))) {
+							// pooled events are released by the entity, so they need no copy
+							dest_ent.setEventBuffer(pool.isEnabled() ? e : (SimEvent) e.clone());
+							dest_ent.setState(SimEntity.RUNNABLE);
+							waitPredicates.remove(destObj);
+						} else {
+							deferred.addEvent(e);
+						}
+					} else {
+						deferred.addEvent(e);
+						if (dest_ent.getState() == SimEntity.RUNNABLE) {
+							activate(dest_ent);
+						}
+					}
+				}
+				break;
+
+			case SimEvent.HOLD_DONE:
+				src = e.getSource();
+				if (src < 0) {
+					throw new IllegalArgumentException("Null entity holding.");
+				} else {
+					entities.get(src).setState(SimEntity.RUNNABLE);
+				}
+				pool.release(e, null);
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Internal method used to start the simulation.
+	 */
+	public void runStart() {
+		running = true;
+		started = true;
+		if (metrics != null) {
+			metrics.runStarted();
+		}
+		// Start all the entities
+		for (SimEntity ent : entities) {
+			ent.startEntity();
+		}
+
+		printMessage("Entities started.");
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation.
+	 *
+	 * @return true, if successful; false otherwise.
+	 */
+	public boolean terminateSimulation() {
+		if (inWindow && CURRENT_PROCESS.get() != null) {
+			// the other partitions see the termination at the end of the window
+			CURRENT_PROCESS.get().terminated = true;
+			printMessage("Simulation: Reached termination time.");
+			return true;
+		}
+		running = false;
+		printMessage("Simulation: Reached termination time.");
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be terminated
+	 * @return true, if successful otherwise.
+	 */
+	public boolean terminateSimulation(double time) {
+		if (time <= clock()) {
+			return false;
+		} else if (inWindow && CURRENT_PROCESS.get() != null) {
+			CURRENT_PROCESS.get().terminateAt = time;
+		} else {
+			terminateAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation. The thread running the
+	 * simulation parks once the current clock tick is over, until the simulation is resumed or
+	 * stepped.
+	 *
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation() {
+		controlLock.lock();
+		try {
+			paused = true;
+			controlChanged.signalAll();
+		} finally {
+			controlLock.unlock();
+		}
+		return paused;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation(long time) {
+		controlLock.lock();
+		try {
+			if (time <= clock) {
+				return false;
+			} else {
+				pauseAt = time;
+			}
+		} finally {
+			controlLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to resume the simulation that has previously been paused.
+	 *
+	 * @return if the simulation has been restarted or or otherwise.
+	 */
+	public boolean resumeSimulation() {
+		controlLock.lock();
+		try {
+			paused = false;
+
+			if (pauseAt <= clock) {
+				pauseAt = -1;
+			}
+			controlChanged.signalAll();
+		} finally {
+			controlLock.unlock();
+		}
+
+		return !paused;
+	}
+
+	/**
+	 * Waits until the simulation is paused, e.g. at the time given to
+	 * {@link #pauseSimulation(long)}, or until it has finished.
+	 *
+	 * @return true, if the simulation is paused
+	 */
+	public boolean awaitPause() {
+		controlLock.lock();
+		try {
+			while (!paused && entities != null) {
+				controlChanged.awaitUninterruptibly();
+			}
+			return paused;
+		} finally {
+			controlLock.unlock();
+		}
+	}
+
+	/**
+	 * Runs the simulation until all the events scheduled at or before a given time have been
+	 * processed, and advances the clock to that time. See {@link #runUntilIdle()} for the thread
+	 * that runs the entities.
+	 *
+	 * @param time the time
+	 * @return the clock
+	 */
+	public double stepUntil(double time) {
+		return step(time, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Runs the simulation until at least a given number of events have been processed. Events are
+	 * processed a clock tick at a time, i.e. together with the events scheduled at the same time,
+	 * so more events may be processed. See {@link #runUntilIdle()} for the thread that runs the
+	 * entities.
+	 *
+	 * @param count the number of events
+	 * @return the clock
+	 */
+	public double stepEvents(long count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("The number of events can't be negative.");
+		}
+		return step(Double.POSITIVE_INFINITY, count);
+	}
+
+	/**
+	 * Runs the simulation until there are no more future events, without finishing it, so that
+	 * new entities and events can still be added and the simulation stepped or run again.
+	 * <p>
+	 * The steps are run in the calling thread, which is bound to this context meanwhile, unless
+	 * another thread is running the simulation with {@link #run()}. The step is then handed to
+	 * that thread, which is resumed if it is paused and pauses again once the step is over, and
+	 * the calling thread waits for it; in that case the step is also over when the simulation
+	 * pauses for another reason, and running until idle finishes the simulation.
+	 *
+	 * @return the clock
+	 */
+	public double runUntilIdle() {
+		return step(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Runs a step of the simulation.
+	 *
+	 * @param time the time up to which the events are processed
+	 * @param count the number of events to process
+	 * @return the clock
+	 */
+	private double step(double time, long count) {
+		controlLock.lock();
+		try {
+			if (runner == Thread.currentThread()) {
+				throw new IllegalStateException("The simulation can't be stepped while it runs.");
+			}
+			if (pauseAt != -1 && pauseAt <= clock) {
+				// the simulation is paused at the pause time, which the step goes past
+				pauseAt = -1;
+			}
+			if (runner != null) {
+				if (runnerStepping) {
+					throw new IllegalStateException("The simulation is already stepped by " + runner.getName());
+				}
+				// hand the step to the thread running the simulation
+				setStep(time, count);
+				stepPending = true;
+				paused = false;
+				controlChanged.signalAll();
+				while (stepPending && runner != null) {
+					controlChanged.awaitUninterruptibly();
+				}
+				return entities == null ? finishClock : clock;
+			}
+			if (entities == null) {
+				throw new IllegalStateException("The simulation has not been initialised.");
+			}
+			runner = Thread.currentThread();
+			runnerStepping = true;
+			paused = false;
+			setStep(time, count);
+		} finally {
+			controlLock.unlock();
+		}
+
+		SimulationContext previous = current() == this ? this : bind();
+		try {
+			if (!started) {
+				runStart();
+			}
+			while (running && !abruptTerminate) {
+				int result = advance();
+				if (result == TICK_IDLE) {
+					// the clock still advances to the step time
+					if (time < Double.POSITIVE_INFINITY && time > clock) {
+						clock = time;
+					}
+					break;
+				}
+				if (terminateAt > 0.0 && clock >= terminateAt) {
+					terminateSimulation();
+					clock = terminateAt;
+					break;
+				}
+				pauseIfReached();
+				if (result == TICK_STOP || paused) {
+					break;
+				}
+			}
+			return clock;
+		} finally {
+			controlLock.lock();
+			try {
+				setStep(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+				runner = null;
+				runnerStepping = false;
+				controlChanged.signalAll();
+			} finally {
+				controlLock.unlock();
+			}
+			if (previous != this) {
+				restore(previous);
+			}
+		}
+	}
+
+	/**
+	 * Sets the targets of the current step. Must be called with the control lock held.
+	 *
+	 * @param time the time up to which the events are processed
+	 * @param count the number of events to process
+	 */
+	private void setStep(double time, long count) {
+		stepTime = time;
+		stopEvents = count >= Long.MAX_VALUE - eventCount ? Long.MAX_VALUE : eventCount + count;
+	}
+
+	/**
+	 * Ends the current step, before the next events are processed. The clock is advanced to the
+	 * time of the step, and the simulation is paused if the step was handed to the runner.
+	 *
+	 * @param next the time of the next events
+	 */
+	private void stopStep(double next) {
+		controlLock.lock();
+		try {
+			if (stepTime < next) {
+				clock = Math.max(clock, stepTime);
+			}
+			setStep(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+			if (stepPending) {
+				paused = true;
+			}
+		} finally {
+			controlLock.unlock();
+		}
+	}
+
+	/**
+	 * Pauses the simulation, after a clock tick, if the next events are at or after the pause
+	 * time.
+	 */
+	private void pauseIfReached() {
+		long time = pauseAt;
+		if (time != -1
+				&& ((future.size() > 0 && clock <= time && time <= future.peek().eventTime()) || future
+						.size() == 0 && time <= clock)) {
+			controlLock.lock();
+			try {
+				clock = time;
+				paused = true;
+				controlChanged.signalAll();
+			} finally {
+				controlLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Parks the thread running the simulation while it is paused, completing the pending step.
+	 */
+	private void awaitResume() {
+		controlLock.lock();
+		try {
+			if (stepPending) {
+				// the simulation paused before the end of the step, which is over as well
+				setStep(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+				stepPending = false;
+			}
+			controlChanged.signalAll();
+			while (paused && !abruptTerminate) {
+				controlChanged.awaitUninterruptibly();
+			}
+		} finally {
+			controlLock.unlock();
+		}
+	}
+
+	// ======== SNAPSHOT METHODS ===============//
+
+	/**
+	 * Takes a snapshot of the simulation, e.g. at the end of a warm-up phase shared by several
+	 * simulations. The simulation must not be running: it must be set up but not started yet,
+	 * between two steps, or paused.
+	 * <p>
+	 * The snapshot holds the entities, the event queues, the clock and the attributes of this
+	 * context whose keys and values are serializable; other attributes, such as caches shared by
+	 * several simulations, are left out. Everything the entities refer to must be serializable.
+	 * Static state, such as {@link org.cloudbus.cloudsim.NetworkTopology}, is not part of the
+	 * snapshot, nor are the pause and step settings, the metrics collector and the event trace.
+	 *
+	 * @return the snapshot
+	 * @throws IOException if the simulation can't be serialized
+	 * @see #restoreSnapshot(SimulationSnapshot)
+	 */
+	public SimulationSnapshot snapshot() throws IOException {
+		controlLock.lock();
+		try {
+			if (entities == null) {
+				throw new IllegalStateException("The simulation has not been initialised.");
+			}
+			if ((runner != null && !paused) || inWindow) {
+				throw new IllegalStateException("The simulation can't be saved while it runs.");
+			}
+
+			KernelState state = new KernelState();
+			state.entities = entities;
+			state.entitiesByName = entitiesByName;
+			state.worklist = Arrays.copyOf(worklist, worklistSize);
+			state.future = future;
+			state.deferred = deferred;
+			state.waitPredicates = waitPredicates;
+			state.cisId = cisId;
+			state.shutdownId = shutdownId;
+			state.cis = cis;
+			state.traceFlag = traceFlag;
+			state.calendar = calendar;
+			state.terminateAt = terminateAt;
+			state.minTimeBetweenEvents = minTimeBetweenEvents;
+			state.clock = clock;
+			state.running = running;
+			state.started = started;
+			state.eventCount = eventCount;
+			state.attributes = new HashMap<Object, Object>();
+			for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+				if (attribute.getKey() instanceof Serializable && attribute.getValue() instanceof Serializable) {
+					state.attributes.put(attribute.getKey(), attribute.getValue());
+				}
+			}
+			return SimulationSnapshot.write(this, state);
+		} finally {
+			controlLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the simulation of this context by a new copy of the simulation saved in a snapshot,
+	 * which can then be run or stepped from the point the snapshot was taken. The attributes saved
+	 * in the snapshot replace the ones of this context, and the other attributes are kept, so the
+	 * parameters of the simulation can be changed once it is restored.
+	 *
+	 * @param snapshot the snapshot
+	 * @throws IOException if the snapshot can't be deserialized
+	 * @see #snapshot()
+	 */
+	public void restoreSnapshot(SimulationSnapshot snapshot) throws IOException {
+		controlLock.lock();
+		try {
+			if (runner != null) {
+				throw new IllegalStateException("A snapshot can't be restored while the simulation runs.");
+			}
+
+			// the entities may use the static API while they are deserialized
+			SimulationContext previous = current() == this ? this : bind();
+			KernelState state;
+			try {
+				state = (KernelState) snapshot.read(this);
+			} finally {
+				if (previous != this) {
+					restore(previous);
+				}
+			}
+
+			entities = state.entities;
+			entitiesByName = state.entitiesByName;
+			worklist = Arrays.copyOf(state.worklist, Math.max(16, state.worklist.length));
+			worklistSize = state.worklist.length;
+			runList = new int[worklist.length];
+			future = state.future;
+			deferred = state.deferred;
+			waitPredicates = state.waitPredicates;
+			cisId = state.cisId;
+			shutdownId = state.shutdownId;
+			cis = state.cis;
+			traceFlag = state.traceFlag;
+			calendar = state.calendar;
+			terminateAt = state.terminateAt;
+			minTimeBetweenEvents = state.minTimeBetweenEvents;
+			clock = state.clock;
+			running = state.running;
+			started = state.started;
+			eventCount = state.eventCount;
+			attributes.putAll(state.attributes);
+
+			eventPool = new SimEventPool(eventPoolMode == null ? SimEventPool.getDefaultMode() : eventPoolMode);
+			if (metrics == null) {
+				metrics = SimulationMetrics.createDefault();
+				defaultMetrics = metrics != null;
+			}
+			if (trace == null) {
+				trace = EventTrace.createDefault(traceFlag);
+				defaultTrace = trace != null;
+			}
+			stopPartitions();
+			paused = false;
+			pauseAt = -1;
+			setStep(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+			abruptTerminate = false;
+		} finally {
+			controlLock.unlock();
+		}
+	}
+
+	/**
+	 * Start the simulation running. This should be called after all the entities have been setup
+	 * and added, and their ports linked. The context is bound to the calling thread while the
+	 * simulation runs.
+	 *
+	 * @return the double last clock value
+	 */
+	public double run() {
+		// entities use the static API, so they have to see this context while they run
+		if (current() == this) {
+			return runSimulation();
+		}
+		SimulationContext previous = bind();
+		try {
+			return runSimulation();
+		} finally {
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Runs the simulation until it finishes, in the calling thread. While the simulation is
+	 * paused the thread waits, without polling, until another thread resumes or steps it.
+	 *
+	 * @return the double last clock value
+	 */
+	private double runSimulation() {
+		controlLock.lock();
+		try {
+			if (runner != null) {
+				throw new IllegalStateException("The simulation is already run by " + runner.getName());
+			}
+			runner = Thread.currentThread();
+		} finally {
+			controlLock.unlock();
+		}
+
+		try {
+			// a simulation terminated while it was stepped is only finished
+			boolean proceed = !started || running;
+			if (!started) {
+				runStart();
+			}
+			while (proceed) {
+				if ((advance() == TICK_IDLE && stopRunning()) || abruptTerminate) {
+					break;
+				}
+
+				// this block allows termination of simulation at a specific time
+				if (terminateAt > 0.0 && clock >= terminateAt) {
+					terminateSimulation();
+					clock = terminateAt;
+					break;
+				}
+
+				pauseIfReached();
+
+				// the end of a step handed to this thread pauses the simulation as well
+				if (paused) {
+					awaitResume();
+				}
+			}
+
+			double clock = clock();
+			finishClock = clock;
+
+			finishSimulation();
+			runStop();
+
+			return clock;
+		} finally {
+			controlLock.lock();
+			try {
+				runner = null;
+				stepPending = false;
+				controlChanged.signalAll();
+			} finally {
+				controlLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Internal method used to stop the simulation.
+	 */
+	public void runStop() {
+		printMessage("Simulation completed.");
+	}
+
+	/**
+	 * Internal method that allows the entities to terminate.
+	 */
+	public void finishSimulation() {
+		// Allow all entities to exit their body method
+		if (!abruptTerminate) {
+			for (SimEntity ent : entities) {
+				if (ent.getState() != SimEntity.FINISHED) {
+					ent.run();
+				}
+			}
+		}
+
+		for (SimEntity ent : entities) {
+			ent.shutdownEntity();
+		}
+
+		if (metrics != null) {
+			metrics.runFinished();
+			if (defaultMetrics) {
+				// a collector created from the system properties lasts one simulation
+				metrics.stopDump();
+				Log.printLine(metrics.report());
+				metrics.unregisterMBean();
+				metrics = null;
+				defaultMetrics = false;
+			}
+		}
+
+		if (trace != null) {
+			if (defaultTrace) {
+				// a trace created from the system properties lasts one simulation
+				trace.closeQuietly();
+				trace = null;
+				defaultTrace = false;
+			} else {
+				try {
+					trace.flush();
+				} catch (IOException e) {
+					Log.printLine("EventTrace: can't write the trace " + trace.getPath() + ": " + e.getMessage());
+				}
+			}
+		}
+
+		// reset all the simulation state
+		stopPartitions();
+		for (int i = 0; i < worklistSize; i++) {
+			entities.get(worklist[i]).setActive(false);
+		}
+		worklistSize = 0;
+		entities = null;
+		entitiesByName = null;
+		future = null;
+		deferred = null;
+		clock = 0L;
+		running = false;
+
+		waitPredicates = null;
+		paused = false;
+		pauseAt = -1;
+		stepTime = Double.POSITIVE_INFINITY;
+		stopEvents = Long.MAX_VALUE;
+		started = false;
+		eventCount = 0;
+		abruptTerminate = false;
+	}
+
+	/**
+	 * Abruptally terminate.
+	 */
+	public void abruptallyTerminate() {
+		abruptTerminate = true;
+	}
+
+	/**
+	 * Prints a message about the progress of the simulation.
+	 *
+	 * @param message the message
+	 */
+	private void printMessage(String message) {
+		Log.printLine(message);
+	}
+
+	/**
+	 * The state of a simulation saved in a {@link SimulationSnapshot}.
+	 */
+	private static final class KernelState implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private List<SimEntity> entities;
+
+		private Map<String, SimEntity> entitiesByName;
+
+		private int[] worklist;
+
+		private IndexedFutureQueue future;
+
+		private DeferredQueue deferred;
+
+		private Map<Integer, Predicate> waitPredicates;
+
+		private int cisId;
+
+		private int shutdownId;
+
+		private CloudInformationService cis;
+
+		private boolean traceFlag;
+
+		private Calendar calendar;
+
+		private double terminateAt;
+
+		private double minTimeBetweenEvents;
+
+		private double clock;
+
+		private boolean running;
+
+		private boolean started;
+
+		private long eventCount;
+
+		private Map<Object, Object> attributes;
+	}
+
+}
@@ -0,0 +1,632 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.cloudbus.cloudsim.Log;
+
+/**
+ * Collects metrics about the simulation kernel of a {@link SimulationContext}: the number of
+ * events processed per tag, the number of events and the wall time spent in
+ * {@link SimEntity#processEvent(SimEvent)} per entity, the current and peak sizes of the future
+ * and deferred event queues with a histogram of their sizes, the number of events processed per
+ * second, and named timers such as the ones of
+ * {@link org.cloudbus.cloudsim.util.ExecutionTimeMeasurer}.
+ * <p>
+ * Metrics are collected only if a collector is set with
+ * {@link SimulationContext#setMetrics(SimulationMetrics)}, or if the system property
+ * {@value #METRICS_PROPERTY} is set to <tt>on</tt>, or to <tt>jmx</tt> to register the collector
+ * with the platform MBean server as well; the kernel checks for a collector and does nothing more
+ * otherwise. A collector enabled by the system property lasts one simulation and prints a report
+ * with {@link Log} when it finishes; with the system property {@value #DUMP_PROPERTY} set to a
+ * number of seconds, the report is also printed at that period while the simulation runs.
+ * <p>
+ * The metrics are updated by the thread running the simulation only; the values read from other
+ * threads, e.g. through JMX, are a snapshot that may lag slightly behind.
+ *
+ * @see SimulationContext#setMetrics(SimulationMetrics)
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+
+	/** The system property used to enable the metrics: <tt>off</tt>, <tt>on</tt> or <tt>jmx</tt>. */
+	public static final String METRICS_PROPERTY = "cloudsim.metrics";
+
+	/** The system property giving the period of the metrics report, in seconds. */
+	public static final String DUMP_PROPERTY = "cloudsim.metrics.dump";
+
+	/** The tags counted in an array; the other ones are counted in a map. */
+	private static final int DIRECT_TAGS = 1 << 14;
+
+	/** The number of buckets of the queue size histograms. */
+	private static final int HISTOGRAM_BUCKETS = 33;
+
+	/** The names of the tags, registered with {@link #registerTags(Class)}. */
+	private static final Map<Integer, String> TAG_NAMES = new ConcurrentHashMap<Integer, String>();
+
+	/** The sequence used to name the MBeans. */
+	private static final AtomicInteger MBEAN_SEQUENCE = new AtomicInteger();
+
+	static {
+		registerTags(CloudSimTags.class);
+	}
+
+	/** The number of events processed. */
+	private long events;
+
+	/** The number of events processed per internal type, for the events that are not sent. */
+	private final long[] typeCounts = new long[4];
+
+	/** The number of events sent with a tag in [0, {@link #DIRECT_TAGS}). */
+	private long[] tagCounts = new long[64];
+
+	/** The number of events sent with the other tags. */
+	private final Map<Integer, long[]> otherTagCounts = new ConcurrentHashMap<Integer, long[]>();
+
+	/** The names of the entities, by id. */
+	private String[] entityNames = new String[16];
+
+	/** The number of events processed by the entities, by id. */
+	private long[] entityEvents = new long[16];
+
+	/** The wall time spent by the entities processing events, in nanoseconds, by id. */
+	private long[] entityNanos = new long[16];
+
+	/** The named timers: the number of measures and their total, in nanoseconds. */
+	private final Map<String, long[]> timers = new ConcurrentHashMap<String, long[]>();
+
+	/** The simulation clock of the last clock tick. */
+	private volatile double clock;
+
+	/** The size of the future event queue at the last clock tick. */
+	private int futureSize;
+
+	/** The peak size of the future event queue. */
+	private int peakFutureSize;
+
+	/** The histogram of the sizes of the future event queue. */
+	private final long[] futureHistogram = new long[HISTOGRAM_BUCKETS];
+
+	/** The size of the deferred event queue at the last clock tick. */
+	private int deferredSize;
+
+	/** The peak size of the deferred event queue. */
+	private int peakDeferredSize;
+
+	/** The histogram of the sizes of the deferred event queue. */
+	private final long[] deferredHistogram = new long[HISTOGRAM_BUCKETS];
+
+	/** The wall time of the runs that have finished, in nanoseconds. */
+	private volatile long elapsedNanos;
+
+	/** The wall time at which the current run started, or 0 if none is running. */
+	private volatile long runningSince;
+
+	/** The name of the MBean, if the metrics are registered. */
+	private ObjectName mbeanName;
+
+	/** The timer printing the periodic reports. */
+	private Timer dumpTimer;
+
+	/**
+	 * Registers the names of the tags declared in a class as public static final int fields, e.g.
+	 * {@link CloudSimTags}, so that the reports name them. Tags sharing a value are reported
+	 * under all their names.
+	 *
+	 * @param tags the class declaring the tags
+	 */
+	public static void registerTags(Class<?> tags) {
+		if (tags == null) {
+			throw new IllegalArgumentException("The tags class can't be null.");
+		}
+		for (Field field : tags.getDeclaredFields()) {
+			int modifiers = field.getModifiers();
+			if (field.getType() != int.class || !Modifier.isPublic(modifiers)
+					|| !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+				continue;
+			}
+			try {
+				Integer tag = Integer.valueOf(field.getInt(null));
+				String name = TAG_NAMES.get(tag);
+				if (name == null) {
+					TAG_NAMES.put(tag, field.getName());
+				} else if (!Arrays.asList(name.split("/")).contains(field.getName())) {
+					TAG_NAMES.put(tag, name + "/" + field.getName());
+				}
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Can't read the tag " + field.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the collector selected by the {@value #METRICS_PROPERTY} and {@value #DUMP_PROPERTY}
+	 * system properties.
+	 *
+	 * @return the collector, or <tt>null</tt> if the metrics are off
+	 */
+	static SimulationMetrics createDefault() {
+		String mode = System.getProperty(METRICS_PROPERTY, "off").trim();
+		if (mode.equalsIgnoreCase("off")) {
+			return null;
+		}
+		if (!mode.equalsIgnoreCase("on") && !mode.equalsIgnoreCase("jmx")) {
+			throw new IllegalArgumentException("Unknown metrics mode: " + mode);
+		}
+		SimulationMetrics metrics = new SimulationMetrics();
+		if (mode.equalsIgnoreCase("jmx")) {
+			metrics.registerMBean();
+		}
+		String period = System.getProperty(DUMP_PROPERTY);
+		if (period != null) {
+			metrics.startDump((long) (Double.parseDouble(period.trim()) * 1000));
+		}
+		return metrics;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, under the name
+	 * <tt>org.cloudbus.cloudsim:type=SimulationMetrics,id=</tt><i>n</i>.
+	 *
+	 * @return the name of the MBean
+	 * @throws IllegalStateException if the MBean can not be registered
+	 */
+	public synchronized ObjectName registerMBean() {
+		if (mbeanName == null) {
+			try {
+				ObjectName name = new ObjectName("org.cloudbus.cloudsim:type=SimulationMetrics,id="
+						+ MBEAN_SEQUENCE.incrementAndGet());
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+				mbeanName = name;
+			} catch (JMException e) {
+				throw new IllegalStateException("Can't register the simulation metrics.", e);
+			}
+		}
+		return mbeanName;
+	}
+
+	/**
+	 * Unregisters the metrics from the platform MBean server, if they are registered.
+	 */
+	public synchronized void unregisterMBean() {
+		if (mbeanName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			try {
+				if (server.isRegistered(mbeanName)) {
+					server.unregisterMBean(mbeanName);
+				}
+			} catch (JMException e) {
+				Log.printLine("SimulationMetrics: can't unregister " + mbeanName + ": " + e.getMessage());
+			}
+			mbeanName = null;
+		}
+	}
+
+	/**
+	 * Starts printing a report with {@link Log} periodically, from a daemon thread.
+	 *
+	 * @param period the period, in milliseconds
+	 */
+	public synchronized void startDump(long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("The dump period must be positive.");
+		}
+		stopDump();
+		dumpTimer = new Timer("SimulationMetrics dump", true);
+		dumpTimer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				Log.printLine(report());
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Stops printing the periodic report.
+	 *
+	 * @return true, if a periodic report was printed
+	 */
+	public synchronized boolean stopDump() {
+		if (dumpTimer == null) {
+			return false;
+		}
+		dumpTimer.cancel();
+		dumpTimer = null;
+		return true;
+	}
+
+	// ======== KERNEL HOOKS ===============//
+
+	/**
+	 * Records the start of a run of the simulation.
+	 */
+	void runStarted() {
+		runningSince = System.nanoTime();
+	}
+
+	/**
+	 * Records the end of a run of the simulation.
+	 */
+	void runFinished() {
+		if (runningSince != 0) {
+			elapsedNanos += System.nanoTime() - runningSince;
+			runningSince = 0;
+		}
+	}
+
+	/**
+	 * Records an event processed by the kernel.
+	 *
+	 * @param e the event
+	 */
+	void eventProcessed(SimEvent e) {
+		events++;
+		int type = e.getType();
+		if (type != SimEvent.SEND) {
+			if (type >= 0 && type < typeCounts.length) {
+				typeCounts[type]++;
+			}
+			return;
+		}
+		int tag = e.getTag();
+		if (tag >= 0 && tag < DIRECT_TAGS) {
+			if (tag >= tagCounts.length) {
+				long[] grown = new long[Math.min(DIRECT_TAGS, Integer.highestOneBit(tag) << 1)];
+				System.arraycopy(tagCounts, 0, grown, 0, tagCounts.length);
+				tagCounts = grown;
+			}
+			tagCounts[tag]++;
+		} else {
+			Integer key = Integer.valueOf(tag);
+			long[] count = otherTagCounts.get(key);
+			if (count == null) {
+				count = new long[1];
+				otherTagCounts.put(key, count);
+			}
+			count[0]++;
+		}
+	}
+
+	/**
+	 * Records an event processed by an entity.
+	 *
+	 * @param entity the entity
+	 * @param nanos the wall time spent processing the event, in nanoseconds
+	 */
+	void entityEventProcessed(SimEntity entity, long nanos) {
+		int id = entity.getId();
+		if (id < 0) {
+			return;
+		}
+		if (id >= entityEvents.length) {
+			int length = Integer.highestOneBit(id) << 1;
+			String[] names = new String[length];
+			long[] counts = new long[length];
+			long[] times = new long[length];
+			System.arraycopy(entityNames, 0, names, 0, entityNames.length);
+			System.arraycopy(entityEvents, 0, counts, 0, entityEvents.length);
+			System.arraycopy(entityNanos, 0, times, 0, entityNanos.length);
+			entityNames = names;
+			entityEvents = counts;
+			entityNanos = times;
+		}
+		if (entityNames[id] == null) {
+			entityNames[id] = entity.getName();
+		}
+		entityEvents[id]++;
+		entityNanos[id] += nanos;
+	}
+
+	/**
+	 * Samples the size of the future event queue, once the entities of a clock tick have run.
+	 *
+	 * @param time the simulation clock
+	 * @param size the size of the queue
+	 */
+	void sampleFutureQueue(double time, int size) {
+		clock = time;
+		futureSize = size;
+		if (size > peakFutureSize) {
+			peakFutureSize = size;
+		}
+		futureHistogram[bucket(size)]++;
+	}
+
+	/**
+	 * Samples the size of the deferred event queue, once the events of a clock tick have been
+	 * processed.
+	 *
+	 * @param size the size of the queue
+	 */
+	void sampleDeferredQueue(int size) {
+		deferredSize = size;
+		if (size > peakDeferredSize) {
+			peakDeferredSize = size;
+		}
+		deferredHistogram[bucket(size)]++;
+	}
+
+	/**
+	 * Gets the histogram bucket of a queue size.
+	 *
+	 * @param size the size
+	 * @return the bucket
+	 */
+	private static int bucket(int size) {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * Adds a measure to a named timer.
+	 *
+	 * @param name the name of the timer
+	 * @param nanos the measure, in nanoseconds
+	 */
+	public void addTime(String name, long nanos) {
+		long[] timer = timers.get(name);
+		if (timer == null) {
+			timer = new long[2];
+			timers.put(name, timer);
+		}
+		timer[0]++;
+		timer[1] += nanos;
+	}
+
+	// ======== ACCESS METHODS ===============//
+
+	@Override
+	public long getEventsProcessed() {
+		return events;
+	}
+
+	@Override
+	public double getEventsPerSecond() {
+		double elapsed = getElapsedTime();
+		return elapsed > 0 ? events / elapsed : 0;
+	}
+
+	@Override
+	public double getElapsedTime() {
+		long nanos = elapsedNanos;
+		long since = runningSince;
+		if (since != 0) {
+			nanos += System.nanoTime() - since;
+		}
+		return nanos / 1e9;
+	}
+
+	@Override
+	public double getClock() {
+		return clock;
+	}
+
+	@Override
+	public int getFutureQueueSize() {
+		return futureSize;
+	}
+
+	@Override
+	public int getPeakFutureQueueSize() {
+		return peakFutureSize;
+	}
+
+	@Override
+	public int getDeferredQueueSize() {
+		return deferredSize;
+	}
+
+	@Override
+	public int getPeakDeferredQueueSize() {
+		return peakDeferredSize;
+	}
+
+	@Override
+	public long[] getFutureQueueHistogram() {
+		return trimHistogram(futureHistogram);
+	}
+
+	@Override
+	public long[] getDeferredQueueHistogram() {
+		return trimHistogram(deferredHistogram);
+	}
+
+	/**
+	 * Copies a histogram without its trailing empty buckets.
+	 *
+	 * @param histogram the histogram
+	 * @return the copy
+	 */
+	private static long[] trimHistogram(long[] histogram) {
+		int length = histogram.length;
+		while (length > 0 && histogram[length - 1] == 0) {
+			length--;
+		}
+		long[] copy = new long[length];
+		System.arraycopy(histogram, 0, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * Gets the number of events processed per tag. Events that were not sent by an entity are
+	 * counted under the names of their internal type.
+	 *
+	 * @return the number of events, by tag name
+	 */
+	public Map<String, Long> getEventsByTag() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		if (typeCounts[SimEvent.HOLD_DONE] > 0) {
+			counts.put("HOLD_DONE", typeCounts[SimEvent.HOLD_DONE]);
+		}
+		if (typeCounts[SimEvent.CREATE] > 0) {
+			counts.put("CREATE", typeCounts[SimEvent.CREATE]);
+		}
+		long[] direct = tagCounts;
+		for (int tag = 0; tag < direct.length; tag++) {
+			if (direct[tag] > 0) {
+				counts.put(getTagName(tag), direct[tag]);
+			}
+		}
+		for (Map.Entry<Integer, long[]> entry : otherTagCounts.entrySet()) {
+			counts.put(getTagName(entry.getKey()), entry.getValue()[0]);
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the name of a tag.
+	 *
+	 * @param tag the tag
+	 * @return the registered name of the tag, or its value
+	 */
+	static String getTagName(int tag) {
+		String name = TAG_NAMES.get(tag);
+		return name == null ? String.valueOf(tag) : name;
+	}
+
+	@Override
+	public String[] getTagCounts() {
+		List<String> counts = new ArrayList<String>();
+		for (Map.Entry<String, Long> entry : getEventsByTag().entrySet()) {
+			counts.add(entry.getKey() + "=" + entry.getValue());
+		}
+		return counts.toArray(new String[counts.size()]);
+	}
+
+	@Override
+	public String[] getEntityTimes() {
+		String[] names = entityNames;
+		long[] counts = entityEvents;
+		long[] times = entityNanos;
+		int length = Math.min(names.length, Math.min(counts.length, times.length));
+		List<String> entities = new ArrayList<String>();
+		for (int id = 0; id < length; id++) {
+			if (counts[id] > 0) {
+				entities.add(names[id] + "=" + counts[id] + "/" + String.format("%.3f", times[id] / 1e6));
+			}
+		}
+		return entities.toArray(new String[entities.size()]);
+	}
+
+	/**
+	 * Gets the wall time spent by an entity processing events.
+	 *
+	 * @param id the id of the entity
+	 * @return the time, in seconds
+	 */
+	public double getEntityTime(int id) {
+		long[] times = entityNanos;
+		return id >= 0 && id < times.length ? times[id] / 1e9 : 0;
+	}
+
+	/**
+	 * Gets the number of events processed by an entity.
+	 *
+	 * @param id the id of the entity
+	 * @return the number of events
+	 */
+	public long getEntityEvents(int id) {
+		long[] counts = entityEvents;
+		return id >= 0 && id < counts.length ? counts[id] : 0;
+	}
+
+	@Override
+	public String[] getTimers() {
+		Map<String, long[]> sorted = new TreeMap<String, long[]>(timers);
+		List<String> values = new ArrayList<String>();
+		for (Map.Entry<String, long[]> entry : sorted.entrySet()) {
+			long[] timer = entry.getValue();
+			values.add(entry.getKey() + "=" + timer[0] + "/" + String.format("%.3f", timer[1] / 1e6));
+		}
+		return values.toArray(new String[values.size()]);
+	}
+
+	/**
+	 * Gets the total time measured by a named timer.
+	 *
+	 * @param name the name of the timer
+	 * @return the time, in seconds
+	 */
+	public double getTime(String name) {
+		long[] timer = timers.get(name);
+		return timer == null ? 0 : timer[1] / 1e9;
+	}
+
+	@Override
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Simulation metrics at clock %.2f: %d events in %.3f s (%.0f events/s)",
+				getClock(), getEventsProcessed(), getElapsedTime(), getEventsPerSecond()));
+		report.append(String.format("%n  future queue: %d (peak %d), deferred queue: %d (peak %d)",
+				getFutureQueueSize(), getPeakFutureQueueSize(), getDeferredQueueSize(),
+				getPeakDeferredQueueSize()));
+		appendLine(report, "future queue histogram", getFutureQueueHistogram());
+		appendLine(report, "deferred queue histogram", getDeferredQueueHistogram());
+		appendLine(report, "events by tag", getTagCounts());
+		appendLine(report, "events/ms by entity", getEntityTimes());
+		appendLine(report, "timers (count/ms)", getTimers());
+		return report.toString();
+	}
+
+	/**
+	 * Appends a line of the report.
+	 *
+	 * @param report the report
+	 * @param name the name of the line
+	 * @param values the values
+	 */
+	private static void appendLine(StringBuilder report, String name, Object values) {
+		String text = values instanceof long[] ? Arrays.toString((long[]) values) : Arrays
+				.toString((Object[]) values);
+		report.append(String.format("%n  %s: %s", name, text));
+	}
+
+	@Override
+	public synchronized void reset() {
+		events = 0;
+		Arrays.fill(typeCounts, 0);
+		tagCounts = new long[64];
+		otherTagCounts.clear();
+		entityNames = new String[16];
+		entityEvents = new long[16];
+		entityNanos = new long[16];
+		timers.clear();
+		futureSize = 0;
+		peakFutureSize = 0;
+		Arrays.fill(futureHistogram, 0);
+		deferredSize = 0;
+		peakDeferredSize = 0;
+		Arrays.fill(deferredHistogram, 0);
+		elapsedNanos = 0;
+		if (runningSince != 0) {
+			runningSince = System.nanoTime();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+}
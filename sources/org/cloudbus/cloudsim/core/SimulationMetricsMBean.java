@@ -0,0 +1,125 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * The management interface of {@link SimulationMetrics}, through which the metrics of a running
+ * simulation can be read with JMX.
+ *
+ * @see SimulationMetrics#registerMBean()
+ */
+public interface SimulationMetricsMBean {
+
+	/**
+	 * Gets the number of events processed by the simulation kernel.
+	 *
+	 * @return the number of events
+	 */
+	long getEventsProcessed();
+
+	/**
+	 * Gets the number of events processed per second of wall time.
+	 *
+	 * @return the event rate
+	 */
+	double getEventsPerSecond();
+
+	/**
+	 * Gets the wall time elapsed since the simulation started, in seconds.
+	 *
+	 * @return the elapsed time
+	 */
+	double getElapsedTime();
+
+	/**
+	 * Gets the simulation clock of the last clock tick.
+	 *
+	 * @return the simulation clock
+	 */
+	double getClock();
+
+	/**
+	 * Gets the size of the future event queue at the last clock tick.
+	 *
+	 * @return the size of the future event queue
+	 */
+	int getFutureQueueSize();
+
+	/**
+	 * Gets the peak size of the future event queue.
+	 *
+	 * @return the peak size of the future event queue
+	 */
+	int getPeakFutureQueueSize();
+
+	/**
+	 * Gets the size of the deferred event queue at the last clock tick.
+	 *
+	 * @return the size of the deferred event queue
+	 */
+	int getDeferredQueueSize();
+
+	/**
+	 * Gets the peak size of the deferred event queue.
+	 *
+	 * @return the peak size of the deferred event queue
+	 */
+	int getPeakDeferredQueueSize();
+
+	/**
+	 * Gets the histogram of the sizes of the future event queue, sampled once per clock tick.
+	 * Bucket 0 counts the empty queues and bucket i the sizes in [2^(i-1), 2^i).
+	 *
+	 * @return the histogram
+	 */
+	long[] getFutureQueueHistogram();
+
+	/**
+	 * Gets the histogram of the sizes of the deferred event queue, sampled once per clock tick.
+	 * Bucket 0 counts the empty queues and bucket i the sizes in [2^(i-1), 2^i).
+	 *
+	 * @return the histogram
+	 */
+	long[] getDeferredQueueHistogram();
+
+	/**
+	 * Gets the number of events processed per tag, as <tt>name=count</tt> strings.
+	 *
+	 * @return the event counts
+	 */
+	String[] getTagCounts();
+
+	/**
+	 * Gets the number of events processed by each entity and the wall time spent in its
+	 * processEvent method, as <tt>name=events/milliseconds</tt> strings.
+	 *
+	 * @return the entity times
+	 */
+	String[] getEntityTimes();
+
+	/**
+	 * Gets the named timers, as <tt>name=count/milliseconds</tt> strings.
+	 *
+	 * @return the timers
+	 */
+	String[] getTimers();
+
+	/**
+	 * Gets a report of all the metrics.
+	 *
+	 * @return the report
+	 */
+	String report();
+
+	/**
+	 * Resets all the metrics.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * A snapshot of the state of a simulation, taken with {@link SimulationContext#snapshot()}. It
+ * holds the serialized kernel state: the entities and everything they refer to, the future and
+ * deferred event queues, the clock and the wait predicates, as well as the serializable attributes
+ * of the context, which is where extensions keep their per-simulation state.
+ * <p>
+ * A snapshot is immutable: each call to {@link SimulationContext#restoreSnapshot(SimulationSnapshot)}
+ * creates a new copy of the simulation, so that many variants of a simulation can be forked from
+ * the same point, in this JVM or, once the snapshot has been saved, in another one. The classes of
+ * the objects in the simulation must be the same when the snapshot is restored.
+ *
+ * @see SimulationContext#snapshot()
+ */
+public class SimulationSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The clock of the simulation when the snapshot was taken. */
+	private final double clock;
+
+	/** The serialized state. */
+	private final byte[] state;
+
+	/**
+	 * Creates a new snapshot.
+	 *
+	 * @param clock the clock of the simulation
+	 * @param state the serialized state
+	 */
+	private SimulationSnapshot(double clock, byte[] state) {
+		this.clock = clock;
+		this.state = state;
+	}
+
+	/**
+	 * Gets the clock of the simulation when the snapshot was taken.
+	 *
+	 * @return the clock
+	 */
+	public double getClock() {
+		return clock;
+	}
+
+	/**
+	 * Gets the size of the serialized state.
+	 *
+	 * @return the size in bytes
+	 */
+	public int size() {
+		return state.length;
+	}
+
+	/**
+	 * Writes the snapshot to a stream.
+	 *
+	 * @param out the stream, which is not closed
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(this);
+		oos.flush();
+	}
+
+	/**
+	 * Reads a snapshot written with {@link #writeTo(OutputStream)}.
+	 *
+	 * @param in the stream, which is not closed
+	 * @return the snapshot
+	 * @throws IOException if the snapshot can't be read
+	 */
+	public static SimulationSnapshot readFrom(InputStream in) throws IOException {
+		try {
+			return (SimulationSnapshot) new ObjectInputStream(in).readObject();
+		} catch (ClassNotFoundException e) {
+			throw new InvalidObjectException("Not a simulation snapshot: " + e.getMessage());
+		} catch (ClassCastException e) {
+			throw new InvalidObjectException("Not a simulation snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Saves the snapshot to a file.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public void save(String path) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(path));
+		try {
+			writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads a snapshot saved with {@link #save(String)}.
+	 *
+	 * @param path the path of the file
+	 * @return the snapshot
+	 * @throws IOException if the snapshot can't be read
+	 */
+	public static SimulationSnapshot load(String path) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(path));
+		try {
+			return readFrom(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Serializes the state of a simulation. The references to its context, e.g. from its entities,
+	 * are replaced by a placeholder, which is resolved to the context the snapshot is restored in.
+	 *
+	 * @param context the context of the simulation
+	 * @param state the state of the simulation
+	 * @return the snapshot
+	 * @throws IOException if the state can't be serialized
+	 */
+	static SimulationSnapshot write(final SimulationContext context, Object state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes) {
+
+			{
+				enableReplaceObject(true);
+			}
+
+			@Override
+			protected Object replaceObject(Object obj) throws IOException {
+				if (obj == context) {
+					return ContextReference.INSTANCE;
+				} else if (obj instanceof SimulationContext) {
+					throw new IOException("The simulation refers to another simulation context.");
+				}
+				return obj;
+			}
+		};
+		out.writeObject(state);
+		out.close();
+		return new SimulationSnapshot(context.clock(), bytes.toByteArray());
+	}
+
+	/**
+	 * Deserializes the state of the simulation into a context.
+	 *
+	 * @param context the context the snapshot is restored in
+	 * @return a new copy of the state of the simulation
+	 * @throws IOException if the state can't be deserialized
+	 */
+	Object read(final SimulationContext context) throws IOException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state)) {
+
+			{
+				enableResolveObject(true);
+			}
+
+			@Override
+			protected Object resolveObject(Object obj) {
+				return obj instanceof ContextReference ? context : obj;
+			}
+
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException,
+					ClassNotFoundException {
+				// the classes of the simulation may not be visible from the JDK's class loader
+				ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				if (loader != null) {
+					try {
+						return Class.forName(desc.getName(), false, loader);
+					} catch (ClassNotFoundException e) {
+						// falls back to the default resolution
+					}
+				}
+				return super.resolveClass(desc);
+			}
+		};
+		try {
+			return in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new InvalidObjectException("Unknown class in the snapshot: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The placeholder of the simulation context in the serialized state.
+	 */
+	private static final class ContextReference implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The placeholder. */
+		static final ContextReference INSTANCE = new ContextReference();
+	}
+
+}
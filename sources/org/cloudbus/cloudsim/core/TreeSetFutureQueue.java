@@ -0,0 +1,152 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * This class implements the future event queue used by {@link Simulation}. The event queue uses a
+ * {@link TreeSet} in order to store the events. This is the reference implementation of
+ * {@link FutureQueue} and the one used by default.
+ * 
+ * @author Marcos Dias de Assuncao
+ * @since CloudSim Toolkit 1.0
+ * @see Simulation
+ * @see java.util.TreeSet
+ */
+public class TreeSetFutureQueue implements FutureQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The sorted set. */
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+
+	/** The buffer returned by {@link #pollAll(double)}. */
+	private final List<SimEvent> buffer = new ArrayList<SimEvent>();
+
+	/** The serial. */
+	private long serial = 0;
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 * 
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		sortedSet.add(newEvent);
+	}
+
+	/**
+	 * Add a new event to the head of the queue.
+	 * 
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		sortedSet.add(newEvent);
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 * 
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent peek() {
+		if (sortedSet.isEmpty()) {
+			return null;
+		}
+		return sortedSet.first();
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 * 
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent poll() {
+		return sortedSet.pollFirst();
+	}
+
+	/**
+	 * Removes all the events at the head of the queue whose time is equal to the given time.
+	 * 
+	 * @param time the time of the events to be removed
+	 * @return the removed events; the list is reused by the next call
+	 */
+	@Override
+	public List<SimEvent> pollAll(double time) {
+		buffer.clear();
+		while (!sortedSet.isEmpty() && sortedSet.first().eventTime() == time) {
+			buffer.add(sortedSet.pollFirst());
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns an iterator to the queue.
+	 * 
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return sortedSet.iterator();
+	}
+
+	/**
+	 * Returns the size of this event queue.
+	 * 
+	 * @return the size
+	 */
+	@Override
+	public int size() {
+		return sortedSet.size();
+	}
+
+	/**
+	 * Removes the event from the queue.
+	 * 
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		return sortedSet.remove(event);
+	}
+
+	/**
+	 * Removes all the events from the queue.
+	 * 
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		return sortedSet.removeAll(events);
+	}
+
+	/**
+	 * Clears the queue.
+	 */
+	@Override
+	public void clear() {
+		sortedSet.clear();
+	}
+
+}
\ No newline at end of file
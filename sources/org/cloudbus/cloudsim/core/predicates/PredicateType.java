@@ -20,6 +20,8 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class PredicateType extends Predicate {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The tags. */
 	private final int[] tags;
 
@@ -49,7 +51,16 @@ public class PredicateType extends Predicate {
 	 */
 	@Override
 	public boolean match(SimEvent ev) {
-		int tag = ev.getTag();
+		return matchTag(ev.getTag());
+	}
+
+	/**
+	 * Checks whether a tag is one of the tags selected by this predicate.
+	 * 
+	 * @param tag the tag
+	 * @return true, if the tag is selected
+	 */
+	public boolean matchTag(int tag) {
 		for (int tag2 : tags) {
 			if (tag == tag2) {
 				return true;
@@ -31,6 +31,8 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPolicy {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The fallback policy. */
 	private PowerVmSelectionPolicy fallbackPolicy;
 
@@ -26,6 +26,8 @@ package org.cloudbus.cloudsim.power.models;
  */
 public class PowerModelCubic implements PowerModel {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The max power. */
 	private double maxPower;
 
@@ -8,20 +8,21 @@
 
 package org.cloudbus.cloudsim.util;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.core.SimulationMetrics;
 
 /**
- * The class for measuring the execution time.
+ * The class for measuring the execution time. The measures are kept by the current simulation
+ * context, and are added to its {@link SimulationMetrics} timers if metrics are collected.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 3.0
  */
 public class ExecutionTimeMeasurer {
 
-	/** The execution times. */
-	private final static Map<String, Long> executionTimes = new HashMap<String, Long>();
-
 	/**
 	 * Start.
 	 * 
@@ -38,17 +39,29 @@ public class ExecutionTimeMeasurer {
 	 * @return the double
 	 */
 	public static double end(String name) {
-		double time = (System.currentTimeMillis() - getExecutionTimes().get(name)) / 1000.0;
+		long elapsed = System.currentTimeMillis() - getExecutionTimes().get(name);
 		getExecutionTimes().remove(name);
-		return time;
+		SimulationMetrics metrics = SimulationContext.current().getMetrics();
+		if (metrics != null) {
+			metrics.addTime(name, elapsed * 1000000L);
+		}
+		return elapsed / 1000.0;
 	}
 
 	/**
-	 * Gets the execution times.
+	 * Gets the start times of the running measures of the current simulation context.
 	 * 
 	 * @return the execution times
 	 */
+	@SuppressWarnings("unchecked")
 	public static Map<String, Long> getExecutionTimes() {
+		SimulationContext context = SimulationContext.current();
+		Map<String, Long> executionTimes = (Map<String, Long>) context
+				.getAttribute(ExecutionTimeMeasurer.class);
+		if (executionTimes == null) {
+			executionTimes = (Map<String, Long>) context.setAttributeIfAbsent(ExecutionTimeMeasurer.class,
+					new ConcurrentHashMap<String, Long>());
+		}
 		return executionTimes;
 	}
 
@@ -44,6 +44,8 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public final class ClusteringEngine extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The task list
      */
@@ -257,7 +259,8 @@ public final class ClusteringEngine extends SimEntity {
              * To avoid duplicate files
              */
             if (isRealInputFile(list, file)) {
-                ReplicaCatalog.addStorageList(file.getName(), Parameters.SOURCE);
+                ReplicaCatalog.addReplica(ReplicaCatalog.getFileId(file),
+                        ReplicaCatalog.getSiteId(Parameters.SOURCE));
                 fileList.add(file);
             }
         }
@@ -0,0 +1,821 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.ParameterException;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.WorkflowGraph;
+
+/**
+ * CompiledWorkflow is a DAX file compiled to a compact binary format, so that
+ * a workflow run many times is parsed once. The compiled file holds the
+ * length, the type, the depth and the impact factor of each task, the parents
+ * and the children of each task in compressed sparse row form, and the files
+ * each task uses, with their link type, in a table of distinct files whose
+ * names are interned in a string table.
+ *
+ * A compiled file is memory mapped when it is opened and nothing is decoded
+ * up front: the accessors read the mapped file, the strings are decoded when
+ * first needed, and the tasks and their files are only created by
+ * createTasks, in a single pass without recursion. The tasks are the same as
+ * the ones WorkflowParser creates from the DAX file; the lengths are stored
+ * before the runtime scale is applied, so one compiled file serves any scale.
+ *
+ * The file is big endian. It starts with a header of HEADER_SIZE bytes (the
+ * magic number, the version, the number of tasks, dependencies, file uses,
+ * files, strings and string bytes, then the length and the modification time
+ * of the DAX file it was compiled from), followed by the tasks (length,
+ * impact factor, type, depth), the parent and the child offsets and indices,
+ * the use offsets and uses (file, link type), the files (name, size), and the
+ * string offsets and UTF-8 bytes.
+ *
+ * Compiled files are written by a Builder, either from a DAX file by compile
+ * or from a workflow that has no DAX file, such as a generated one.
+ *
+ * @date Oct 18, 2026
+ */
+public class CompiledWorkflow {
+
+    /**
+     * The extension of a compiled file, appended to the path of the DAX file.
+     */
+    public static final String EXTENSION = ".wfb";
+    /**
+     * The magic number at the start of a compiled file: "WSWF".
+     */
+    public static final int MAGIC = 0x57535746;
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the header, in bytes.
+     */
+    public static final int HEADER_SIZE = 64;
+    /**
+     * The size of a task record, in bytes.
+     */
+    private static final int TASK_SIZE = 24;
+    /**
+     * The size of a use or a file record, in bytes.
+     */
+    private static final int PAIR_SIZE = 8;
+    /**
+     * The charset of the strings.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The number of tasks, dependencies, file uses, files and strings.
+     */
+    private final int tasks, edges, uses, files, strings;
+    /**
+     * The offsets of the sections.
+     */
+    private final int parentOffsets, parentIndices, childOffsets, childIndices,
+            useOffsets, useRecords, fileRecords, stringOffsets, stringBytes;
+    /**
+     * The strings decoded so far.
+     */
+    private final String[] decoded;
+
+    /**
+     * Initialize a CompiledWorkflow
+     *
+     * @param buffer the compiled file
+     * @throws IOException if the buffer is not a compiled workflow
+     */
+    private CompiledWorkflow(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled workflow");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported compiled workflow version " + buffer.getInt(4));
+        }
+        this.tasks = buffer.getInt(8);
+        this.edges = buffer.getInt(12);
+        this.uses = buffer.getInt(16);
+        this.files = buffer.getInt(20);
+        this.strings = buffer.getInt(24);
+        int bytes = buffer.getInt(28);
+        this.parentOffsets = HEADER_SIZE + this.tasks * TASK_SIZE;
+        this.parentIndices = this.parentOffsets + (this.tasks + 1) * 4;
+        this.childOffsets = this.parentIndices + this.edges * 4;
+        this.childIndices = this.childOffsets + (this.tasks + 1) * 4;
+        this.useOffsets = this.childIndices + this.edges * 4;
+        this.useRecords = this.useOffsets + (this.tasks + 1) * 4;
+        this.fileRecords = this.useRecords + this.uses * PAIR_SIZE;
+        this.stringOffsets = this.fileRecords + this.files * PAIR_SIZE;
+        this.stringBytes = this.stringOffsets + (this.strings + 1) * 4;
+        if (this.stringBytes + bytes != buffer.capacity()) {
+            throw new IOException("Truncated compiled workflow");
+        }
+        this.decoded = new String[this.strings];
+    }
+
+    /**
+     * Gets the path of the compiled file of a DAX file
+     *
+     * @param daxPath the DAX path
+     * @return the path of the compiled file
+     */
+    public static String getCompiledPath(String daxPath) {
+        return daxPath + EXTENSION;
+    }
+
+    /**
+     * Opens a compiled file
+     *
+     * @param path the path of the compiled file
+     * @return the compiled workflow
+     * @throws IOException if the file can not be read or is not a compiled
+     * workflow
+     */
+    public static CompiledWorkflow open(String path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            // the mapping stays valid once the file is closed
+            return new CompiledWorkflow(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Opens the compiled file of a DAX file if it is up to date, i.e. if it
+     * is newer than the DAX file and was compiled from the DAX file as it is
+     * now
+     *
+     * @param daxPath the DAX path
+     * @param path the path of the compiled file
+     * @return the compiled workflow, or null if there is no compiled file or
+     * if it is out of date
+     * @throws IOException if the compiled file can not be read or is not a
+     * compiled workflow
+     */
+    public static CompiledWorkflow openIfUpToDate(String daxPath, String path) throws IOException {
+        File dax = new File(daxPath);
+        File compiled = new File(path);
+        if (!dax.isFile() || !compiled.isFile() || compiled.lastModified() < dax.lastModified()) {
+            return null;
+        }
+        CompiledWorkflow workflow = open(path);
+        if (workflow.buffer.getLong(32) != dax.length() || workflow.buffer.getLong(40) != dax.lastModified()) {
+            return null;
+        }
+        return workflow;
+    }
+
+    /**
+     * Compiles a DAX file. The file is written to a temporary file first, so
+     * a compiled file is never seen half written. As when a DAX file is
+     * parsed, CloudSim must be initialized, since the files of the tasks need
+     * the simulation calendar.
+     *
+     * @param daxPath the DAX path
+     * @param path the path of the compiled file, which is replaced
+     * @throws Exception if the DAX file can not be parsed or the compiled file
+     * can not be written
+     */
+    public static void compile(String daxPath, String path) throws Exception {
+        File dax = new File(daxPath);
+        long length = dax.length();
+        long lastModified = dax.lastModified();
+        List<Task> taskList = WorkflowParser.parseTasks(daxPath);
+
+        Builder builder = new Builder();
+        builder.setSource(length, lastModified);
+        Map<Task, Integer> indices = new IdentityHashMap<Task, Integer>();
+        Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+        Map<String, Integer> fileIndices = new HashMap<String, Integer>();
+        for (Task task : taskList) {
+            int index = builder.addTask(task.getCloudletLength(), intern(builder, stringIndices, task.getType()));
+            indices.put(task, index);
+            for (Object o : task.getFileList()) {
+                org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) o;
+                int name = intern(builder, stringIndices, file.getName());
+                String key = name + ":" + file.getSize();
+                Integer fileIndex = fileIndices.get(key);
+                if (fileIndex == null) {
+                    fileIndex = builder.addFile(name, file.getSize());
+                    fileIndices.put(key, fileIndex);
+                }
+                builder.addUse(index, fileIndex, file.getType());
+            }
+        }
+        for (Task task : taskList) {
+            int index = indices.get(task);
+            for (Task parent : task.getParentList()) {
+                builder.addParent(index, indices.get(parent));
+            }
+            for (Task child : task.getChildList()) {
+                builder.addChild(index, indices.get(child));
+            }
+        }
+        builder.write(path);
+    }
+
+    /**
+     * Gets the index of a string, adding it to the table if needed
+     *
+     * @param builder the builder of the string table
+     * @param indices map from string to index
+     * @param string the string, may be null
+     * @return the index, -1 for null
+     */
+    private static int intern(Builder builder, Map<String, Integer> indices, String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer index = indices.get(string);
+        if (index == null) {
+            index = builder.addString(string);
+            indices.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Builder writes a compiled file from tasks, dependencies, files and
+     * strings given by index, without creating Task or File objects, so that
+     * a compiled file may be made directly for workflows of millions of tasks.
+     * The tasks, files and strings get their indices in the order they are
+     * added; the dependencies and the uses may be added in any order, and are
+     * kept in the order they were added for each task. The depths and the
+     * impact factors are computed when the file is written.
+     */
+    public static class Builder {
+
+        /**
+         * The lengths of the tasks.
+         */
+        private long[] lengths = new long[16];
+        /**
+         * The type string of each task.
+         */
+        private int[] types = new int[16];
+        /**
+         * The number of tasks.
+         */
+        private int taskCount;
+        /**
+         * The dependencies as pairs of task and parent, and of task and
+         * child.
+         */
+        private int[] parents = new int[32], children = new int[32];
+        /**
+         * The number of pairs of each.
+         */
+        private int parentCount, childCount;
+        /**
+         * The uses as triples of task, file and link type.
+         */
+        private int[] uses = new int[48];
+        /**
+         * The number of uses.
+         */
+        private int useCount;
+        /**
+         * The files as pairs of name string and size.
+         */
+        private int[] files = new int[32];
+        /**
+         * The number of files.
+         */
+        private int fileCount;
+        /**
+         * The end offset of each string in the bytes.
+         */
+        private int[] stringEnds = new int[16];
+        /**
+         * The number of strings.
+         */
+        private int stringCount;
+        /**
+         * The UTF-8 bytes of the strings.
+         */
+        private byte[] bytes = new byte[256];
+        /**
+         * The number of bytes.
+         */
+        private int byteCount;
+        /**
+         * The length and the modification time of the source DAX file.
+         */
+        private long sourceLength, sourceModified;
+
+        /**
+         * Sets the DAX file the workflow is compiled from, so that the
+         * compiled file is up to date with it. By default, the compiled file
+         * has no source and is never up to date with a DAX file.
+         *
+         * @param length the length of the DAX file
+         * @param lastModified the modification time of the DAX file
+         */
+        public void setSource(long length, long lastModified) {
+            this.sourceLength = length;
+            this.sourceModified = lastModified;
+        }
+
+        /**
+         * Adds a string to the string table. The strings are not interned,
+         * that is left to the caller.
+         *
+         * @param string the string
+         * @return the index of the string
+         */
+        public int addString(String string) {
+            byte[] encoded = string.getBytes(UTF8);
+            if (this.byteCount + encoded.length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes,
+                        Math.max(this.bytes.length * 2, this.byteCount + encoded.length));
+            }
+            System.arraycopy(encoded, 0, this.bytes, this.byteCount, encoded.length);
+            this.byteCount += encoded.length;
+            this.stringEnds = grow(this.stringEnds, this.stringCount + 1);
+            this.stringEnds[this.stringCount] = this.byteCount;
+            return this.stringCount++;
+        }
+
+        /**
+         * Adds a task
+         *
+         * @param length the length, before the runtime scale is applied
+         * @param type the index of the type string, -1 for none
+         * @return the index of the task
+         */
+        public int addTask(long length, int type) {
+            if (this.taskCount == this.lengths.length) {
+                this.lengths = Arrays.copyOf(this.lengths, this.taskCount * 2);
+            }
+            this.types = grow(this.types, this.taskCount + 1);
+            this.lengths[this.taskCount] = length;
+            this.types[this.taskCount] = type;
+            return this.taskCount++;
+        }
+
+        /**
+         * Adds a file
+         *
+         * @param name the index of the name string
+         * @param size the size
+         * @return the index of the file
+         */
+        public int addFile(int name, int size) {
+            this.files = grow(this.files, this.fileCount * 2 + 2);
+            this.files[this.fileCount * 2] = name;
+            this.files[this.fileCount * 2 + 1] = size;
+            return this.fileCount++;
+        }
+
+        /**
+         * Adds a file to the files a task uses
+         *
+         * @param task the index of the task
+         * @param file the index of the file
+         * @param type the link type, see Parameters.FileType
+         */
+        public void addUse(int task, int file, int type) {
+            this.uses = grow(this.uses, this.useCount * 3 + 3);
+            this.uses[this.useCount * 3] = task;
+            this.uses[this.useCount * 3 + 1] = file;
+            this.uses[this.useCount * 3 + 2] = type;
+            this.useCount++;
+        }
+
+        /**
+         * Adds a parent to a task. Each dependency must be added both as a
+         * parent and as a child.
+         *
+         * @param task the index of the task
+         * @param parent the index of the parent
+         */
+        public void addParent(int task, int parent) {
+            this.parents = grow(this.parents, this.parentCount * 2 + 2);
+            this.parents[this.parentCount * 2] = task;
+            this.parents[this.parentCount * 2 + 1] = parent;
+            this.parentCount++;
+        }
+
+        /**
+         * Adds a child to a task
+         *
+         * @param task the index of the task
+         * @param child the index of the child
+         */
+        public void addChild(int task, int child) {
+            this.children = grow(this.children, this.childCount * 2 + 2);
+            this.children[this.childCount * 2] = task;
+            this.children[this.childCount * 2 + 1] = child;
+            this.childCount++;
+        }
+
+        /**
+         * Adds a dependency, as a parent of the child and a child of the
+         * parent
+         *
+         * @param parent the index of the parent
+         * @param child the index of the child
+         */
+        public void addDependency(int parent, int child) {
+            addParent(child, parent);
+            addChild(parent, child);
+        }
+
+        /**
+         * Gets the number of tasks added so far
+         *
+         * @return the number of tasks
+         */
+        public int getTaskCount() {
+            return this.taskCount;
+        }
+
+        /**
+         * Grows an array to at least a size
+         */
+        private static int[] grow(int[] array, int size) {
+            return size <= array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, size));
+        }
+
+        /**
+         * Groups records by task with a stable counting sort
+         *
+         * @param records the records, each starting with the index of its
+         * task
+         * @param count the number of records
+         * @param width the number of ints of a record
+         * @param offsets the offsets of the records of each task, filled in
+         * @return the records without their task, grouped by task
+         */
+        private int[] group(int[] records, int count, int width, int[] offsets) {
+            for (int i = 0; i < count; i++) {
+                int task = records[i * width];
+                if (task < 0 || task >= this.taskCount) {
+                    throw new IllegalArgumentException("No task at index " + task);
+                }
+                offsets[task + 1]++;
+            }
+            for (int i = 0; i < this.taskCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] next = Arrays.copyOf(offsets, this.taskCount);
+            int[] grouped = new int[count * (width - 1)];
+            for (int i = 0; i < count; i++) {
+                int position = next[records[i * width]]++ * (width - 1);
+                System.arraycopy(records, i * width + 1, grouped, position, width - 1);
+            }
+            return grouped;
+        }
+
+        /**
+         * Writes the compiled file. The file is written to a temporary file
+         * first, so a compiled file is never seen half written.
+         *
+         * @param path the path of the compiled file, which is replaced
+         * @throws IOException if the file can not be written
+         * @throws IllegalStateException if the parents and the children do
+         * not match or if the dependencies have a cycle
+         */
+        public void write(String path) throws IOException {
+            if (this.parentCount != this.childCount) {
+                throw new IllegalStateException("The parents and the children of the workflow do not match");
+            }
+            int n = this.taskCount;
+            int[] parentOffsets = new int[n + 1];
+            int[] parentIndices = group(this.parents, this.parentCount, 2, parentOffsets);
+            int[] childOffsets = new int[n + 1];
+            int[] childIndices = group(this.children, this.childCount, 2, childOffsets);
+            int[] useOffsets = new int[n + 1];
+            int[] useRecords = group(this.uses, this.useCount, 3, useOffsets);
+            int[][] parentRows = new int[n][];
+            for (int i = 0; i < n; i++) {
+                parentRows[i] = Arrays.copyOfRange(parentIndices, parentOffsets[i], parentOffsets[i + 1]);
+            }
+            int[] depths = WorkflowGraph.getDepths(parentRows);
+            double[] impacts = WorkflowGraph.getImpactFactors(parentRows);
+            parentRows = null;
+
+            long size = HEADER_SIZE + (long) n * TASK_SIZE + 3L * (n + 1) * 4 + 2L * this.parentCount * 4
+                    + (long) this.useCount * PAIR_SIZE + (long) this.fileCount * PAIR_SIZE
+                    + (this.stringCount + 1L) * 4 + this.byteCount;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The workflow is too large to be compiled: " + size + " bytes");
+            }
+            ByteBuffer out = ByteBuffer.allocate((int) size);
+            out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(this.parentCount).putInt(this.useCount)
+                    .putInt(this.fileCount).putInt(this.stringCount).putInt(this.byteCount)
+                    .putLong(this.sourceLength).putLong(this.sourceModified);
+            out.position(HEADER_SIZE);
+            for (int i = 0; i < n; i++) {
+                out.putLong(this.lengths[i]).putDouble(impacts[i]).putInt(this.types[i]).putInt(depths[i]);
+            }
+            for (int offset : parentOffsets) {
+                out.putInt(offset);
+            }
+            for (int index : parentIndices) {
+                out.putInt(index);
+            }
+            for (int offset : childOffsets) {
+                out.putInt(offset);
+            }
+            for (int index : childIndices) {
+                out.putInt(index);
+            }
+            for (int offset : useOffsets) {
+                out.putInt(offset);
+            }
+            for (int record : useRecords) {
+                out.putInt(record);
+            }
+            for (int i = 0; i < this.fileCount * 2; i++) {
+                out.putInt(this.files[i]);
+            }
+            out.putInt(0);
+            for (int i = 0; i < this.stringCount; i++) {
+                out.putInt(this.stringEnds[i]);
+            }
+            out.put(this.bytes, 0, this.byteCount);
+            out.flip();
+
+            File target = new File(path).getAbsoluteFile();
+            File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            try {
+                RandomAccessFile file = new RandomAccessFile(temp, "rw");
+                try {
+                    FileChannel channel = file.getChannel();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                } finally {
+                    file.close();
+                }
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Gets a string of the string table
+     *
+     * @param index the index, -1 for null
+     * @return the string
+     */
+    private String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String string = this.decoded[index];
+        if (string == null) {
+            int start = this.buffer.getInt(this.stringOffsets + index * 4);
+            int end = this.buffer.getInt(this.stringOffsets + index * 4 + 4);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer slice = this.buffer.duplicate();
+            slice.position(this.stringBytes + start);
+            slice.get(bytes);
+            string = new String(bytes, UTF8);
+            this.decoded[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskCount() {
+        return this.tasks;
+    }
+
+    /**
+     * Gets the number of files, i.e. of distinct file names and sizes
+     *
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return this.files;
+    }
+
+    /**
+     * Gets the length of a task, before the runtime scale is applied
+     *
+     * @param task the index of the task, in the order of the DAX file
+     * @return the length
+     */
+    public long getLength(int task) {
+        return this.buffer.getLong(HEADER_SIZE + task * TASK_SIZE);
+    }
+
+    /**
+     * Gets the impact factor of a task
+     *
+     * @param task the index of the task
+     * @return the impact factor
+     */
+    public double getImpact(int task) {
+        return this.buffer.getDouble(HEADER_SIZE + task * TASK_SIZE + 8);
+    }
+
+    /**
+     * Gets the type of a task
+     *
+     * @param task the index of the task
+     * @return the type, the name of the job in the DAX file
+     */
+    public String getType(int task) {
+        return getString(this.buffer.getInt(HEADER_SIZE + task * TASK_SIZE + 16));
+    }
+
+    /**
+     * Gets the depth of a task
+     *
+     * @param task the index of the task
+     * @return the depth, 1 for a root task
+     */
+    public int getDepth(int task) {
+        return this.buffer.getInt(HEADER_SIZE + task * TASK_SIZE + 20);
+    }
+
+    /**
+     * Gets the parents of a task
+     *
+     * @param task the index of the task
+     * @return the indices of the parents
+     */
+    public int[] getParents(int task) {
+        return getRow(this.parentOffsets, this.parentIndices, task);
+    }
+
+    /**
+     * Gets the children of a task
+     *
+     * @param task the index of the task
+     * @return the indices of the children
+     */
+    public int[] getChildren(int task) {
+        return getRow(this.childOffsets, this.childIndices, task);
+    }
+
+    /**
+     * Gets a row of a compressed sparse row section
+     *
+     * @param offsets the position of the offsets
+     * @param indices the position of the indices
+     * @param task the index of the task
+     * @return the indices of the row
+     */
+    private int[] getRow(int offsets, int indices, int task) {
+        int start = this.buffer.getInt(offsets + task * 4);
+        int end = this.buffer.getInt(offsets + task * 4 + 4);
+        int[] row = new int[end - start];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = this.buffer.getInt(indices + (start + i) * 4);
+        }
+        return row;
+    }
+
+    /**
+     * Gets the name of a file
+     *
+     * @param file the index of the file
+     * @return the name
+     */
+    public String getFileName(int file) {
+        return getString(this.buffer.getInt(this.fileRecords + file * PAIR_SIZE));
+    }
+
+    /**
+     * Gets the size of a file
+     *
+     * @param file the index of the file
+     * @return the size
+     */
+    public int getFileSize(int file) {
+        return this.buffer.getInt(this.fileRecords + file * PAIR_SIZE + 4);
+    }
+
+    /**
+     * Creates the tasks, their files and their dependencies. The output files
+     * are new, as when the DAX file is parsed; the input files are shared by
+     * name through a map, in which the missing ones are added.
+     *
+     * @param jobIdStartsFrom the id of the first task
+     * @param userId the user id
+     * @param inputFiles map from file name to input file
+     * @return the tasks, in the order of the DAX file
+     * @throws ParameterException if a file can not be created
+     */
+    public List<Task> createTasks(int jobIdStartsFrom, int userId,
+            Map<String, org.cloudbus.cloudsim.File> inputFiles) throws ParameterException {
+        double scale = Parameters.getRuntimeScale();
+        Task[] taskArray = new Task[this.tasks];
+        for (int i = 0; i < this.tasks; i++) {
+            long length = getLength(i);
+            //multiple the scale, by default it is 1.0
+            length *= scale;
+            Task task = new Task(jobIdStartsFrom + i, length);
+            task.setType(getType(i));
+            task.setUserId(userId);
+            task.setDepth(getDepth(i));
+            task.setImpact(getImpact(i));
+
+            int start = this.buffer.getInt(this.useOffsets + i * 4);
+            int end = this.buffer.getInt(this.useOffsets + i * 4 + 4);
+            List<org.cloudbus.cloudsim.File> fileList = new ArrayList<org.cloudbus.cloudsim.File>(end - start);
+            for (int u = start; u < end; u++) {
+                int file = this.buffer.getInt(this.useRecords + u * PAIR_SIZE);
+                int type = this.buffer.getInt(this.useRecords + u * PAIR_SIZE + 4);
+                String name = getFileName(file);
+                org.cloudbus.cloudsim.File tFile;
+                if (type == Parameters.FileType.OUTPUT.value) {
+                    tFile = new org.cloudbus.cloudsim.File(name, getFileSize(file));
+                } else {
+                    tFile = inputFiles.get(name);
+                    if (tFile == null) {
+                        tFile = new org.cloudbus.cloudsim.File(name, getFileSize(file));
+                        inputFiles.put(name, tFile);
+                    }
+                }
+                tFile.setType(type);
+                fileList.add(tFile);
+                task.addRequiredFile(name);
+            }
+            task.setFileList(fileList);
+            taskArray[i] = task;
+        }
+        List<Task> taskList = new ArrayList<Task>(this.tasks);
+        for (int i = 0; i < this.tasks; i++) {
+            Task task = taskArray[i];
+            for (int parent : getParents(i)) {
+                task.addParent(taskArray[parent]);
+            }
+            for (int child : getChildren(i)) {
+                task.addChild(taskArray[child]);
+            }
+            taskList.add(task);
+        }
+        return taskList;
+    }
+
+    /**
+     * Compiles DAX files, each to the path given by getCompiledPath
+     *
+     * @param args the DAX paths
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: CompiledWorkflow dax...");
+            System.exit(1);
+        }
+        try {
+            CloudSim.init(1, null, false);
+            for (String daxPath : args) {
+                String path = getCompiledPath(daxPath);
+                compile(daxPath, path);
+                CompiledWorkflow workflow = open(path);
+                System.out.println(path + ": " + workflow.getTaskCount() + " tasks, "
+                        + workflow.getFileCount() + " files, " + new File(path).length() + " bytes");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.workflowsim.utils.ReplicaCatalog.FileSystem;
  */
 public class CondorVM extends Vm {
 
+    private static final long serialVersionUID = 1L;
+
     /*
      * The local storage system a vm has if file.system=LOCAL
      */
@@ -35,6 +35,8 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  */
 public class Task extends Cloudlet {
 
+    private static final long serialVersionUID = 1L;
+
     /*
      * The list of parent tasks. 
      */
@@ -46,6 +46,8 @@ import org.workflowsim.utils.Parameters.FileType;
  */
 public class WorkflowDatacenter extends Datacenter {
 
+    private static final long serialVersionUID = 1L;
+
     public WorkflowDatacenter(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
@@ -55,6 +57,18 @@ public class WorkflowDatacenter extends Datacenter {
 
     }
 
+    /**
+     * A WorkflowDatacenter registers the files it stages in the ReplicaCatalog
+     * of the simulation context, which the scheduler and the other
+     * datacenters read, so it can't run in a partition of its own.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isPartitionable() {
+        return false;
+    }
+
     @Override
     protected void processOtherEvent(SimEvent ev) {
     }
@@ -212,6 +226,7 @@ public class WorkflowDatacenter extends Datacenter {
     private void stageInFile2FileSystem(Cloudlet cl) {
         Task t1 = (Task) cl;
         List fList = t1.getFileList();
+        int siteId = ReplicaCatalog.getSiteId(this.getName());
 
         for (Iterator it = fList.iterator(); it.hasNext();) {
             org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) it.next();
@@ -223,7 +238,7 @@ public class WorkflowDatacenter extends Datacenter {
                  */
                 case LOCAL:
 
-                    ReplicaCatalog.addStorageList(file.getName(), this.getName());
+                    ReplicaCatalog.addReplica(ReplicaCatalog.getFileId(file), siteId);
                     /**
                      * Is it not really needed currently but it is left for
                      * future usage
@@ -235,7 +250,7 @@ public class WorkflowDatacenter extends Datacenter {
                  * For shared file system, add it to the shared storage
                  */
                 case SHARED:
-                    ReplicaCatalog.addStorageList(file.getName(), this.getName());
+                    ReplicaCatalog.addReplica(ReplicaCatalog.getFileId(file), siteId);
                     break;
                 default:
                     break;
@@ -282,14 +297,16 @@ public class WorkflowDatacenter extends Datacenter {
 
     protected double processDataStageIn(List<File> requiredFiles, Cloudlet cl) throws Exception {
         double time = 0.0;
+        int dcSiteId = ReplicaCatalog.getSiteId(this.getName());
+        int sourceSiteId = ReplicaCatalog.getSiteId(Parameters.SOURCE);
         Iterator<File> iter = requiredFiles.iterator();
         while (iter.hasNext()) {
             File file = iter.next();
             //The input file is not an output File 
             if (isRealInputFile(requiredFiles, file)) {
                 double maxBwth = 0.0;
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
+                int fileId = ReplicaCatalog.getFileId(file);
+                if (ReplicaCatalog.getReplicaCount(fileId) == 0) {
                     throw new Exception(file.getName() + " does not exist");
                 }
                 switch (ReplicaCatalog.getFileSystem()) {
@@ -317,34 +334,31 @@ public class WorkflowDatacenter extends Datacenter {
                         Host host = getVmAllocationPolicy().getHost(vmId, userId);
                         Vm vm = host.getVm(vmId, userId);
 
-                        boolean requiredFileStagein = true;
+                        /**
+                         * This file is already in the local vm and thus it is
+                         * no need to transfer
+                         */
+                        boolean requiredFileStagein = !ReplicaCatalog.hasReplica(fileId, vmId);
 
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
+                        if (requiredFileStagein) {
                             //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
-                                continue;
-                            }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
-                            double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
-                                //transfers from the source to the VM is limited to the VM bw only
-                                bwth = vm.getBw();
-                                //bwth = dcStorage.getBaseBandwidth();
-                            } else {
-                                //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
-                                //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
-                            }
-                            if (bwth > maxBwth) {
-                                maxBwth = bwth;
+                            for (int site : ReplicaCatalog.getSites(fileId)) {
+                                if (site == dcSiteId) {
+                                    continue;
+                                }
+                                double bwth;
+                                if (site == sourceSiteId) {
+                                    //transfers from the source to the VM is limited to the VM bw only
+                                    bwth = vm.getBw();
+                                    //bwth = dcStorage.getBaseBandwidth();
+                                } else {
+                                    //transfers between two VMs is limited to both VMs
+                                    bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(site, userId).getVm(site, userId).getBw());
+                                    //bwth = dcStorage.getBandwidth(site, vmId);
+                                }
+                                if (bwth > maxBwth) {
+                                    maxBwth = bwth;
+                                }
                             }
                         }
                         if (requiredFileStagein && maxBwth > 0.0) {
@@ -358,7 +372,7 @@ public class WorkflowDatacenter extends Datacenter {
                         //We should add but since CondorVm has a small capability it often fails
                         //We currently don't use this storage to do anything meaningful. It is left for future. 
                         //condorVm.addLocalFile(file);
-                        ReplicaCatalog.addStorageList(file.getName(), Integer.toString(vmId));
+                        ReplicaCatalog.addReplica(fileId, vmId);
                         break;
                 }
             }
@@ -437,7 +451,8 @@ public class WorkflowDatacenter extends Datacenter {
 
                 switch (ReplicaCatalog.getFileSystem()) {
                     case SHARED:
-                        ReplicaCatalog.addStorageList(file.getName(), this.getName());
+                        ReplicaCatalog.addReplica(ReplicaCatalog.getFileId(file),
+                                ReplicaCatalog.getSiteId(this.getName()));
                         break;
                     case LOCAL:
                         int vmId = cl.getVmId();
@@ -448,7 +463,7 @@ public class WorkflowDatacenter extends Datacenter {
                          */
                         CondorVM vm = (CondorVM) host.getVm(vmId, userId);
 
-                        ReplicaCatalog.addStorageList(file.getName(), Integer.toString(vmId));
+                        ReplicaCatalog.addReplica(ReplicaCatalog.getFileId(file), vmId);
                         break;
                 }
             }
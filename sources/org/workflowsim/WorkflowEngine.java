@@ -15,17 +15,24 @@
  */
 package org.workflowsim;
 
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationMetrics;
 import org.workflowsim.reclustering.ReclusteringEngine;
 import org.workflowsim.utils.Parameters;
 
@@ -34,16 +41,25 @@ import org.workflowsim.utils.Parameters;
  * management, as vm creation, submission of cloudlets to this VMs and
  * destruction of VMs.
  *
+ * The engine submits a job once all its parents have returned. Each job of
+ * the job list counts its parents that have not returned yet, and the jobs
+ * are indexed by the ids of those parents, so a returned job only updates
+ * its children and the jobs that become ready are queued. A submission then
+ * costs in proportion to the jobs that became ready, which are submitted in
+ * the order of the job list, rather than a scan of the whole job list.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
 public class WorkflowEngine extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The job list.
      */
-    protected List<? extends Cloudlet> jobsList;
+    protected List<Job> jobsList;
     /**
      * The job submitted list.
      */
@@ -62,6 +78,65 @@ public class WorkflowEngine extends SimEntity {
      */
     private List<Integer> schedulerId;
     private List<WorkflowScheduler> scheduler;
+    /**
+     * The state of each job of the job list.
+     */
+    private Map<Job, JobState> jobStates;
+    /**
+     * The jobs of the job list waiting for a parent, by the id of the parent.
+     */
+    private Map<Integer, List<Job>> waitingJobs;
+    /**
+     * The ids of the received jobs.
+     */
+    private Set<Integer> receivedIds;
+    /**
+     * The jobs of the job list whose parents have all returned, to submit.
+     */
+    private List<Job> readyJobs;
+    /**
+     * The number of jobs added to the job list, which gives their position.
+     */
+    private int jobsAdded;
+    /**
+     * The number of submitted jobs not removed from the job list yet.
+     */
+    private int jobsRemoved;
+    /**
+     * Whether the job list was changed through {@link #getJobsList()} since
+     * it was indexed.
+     */
+    private boolean jobsListChanged;
+
+    /**
+     * The state of a job of the job list.
+     */
+    private static class JobState implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The position of the job in the job list.
+         */
+        final int position;
+        /**
+         * The number of parents that have not returned.
+         */
+        int unfinishedParents;
+        /**
+         * Whether the job has been submitted.
+         */
+        boolean submitted;
+
+        JobState(int position) {
+            this.position = position;
+        }
+    }
+
+    static {
+        // name the WorkflowSim tags in the kernel metrics
+        SimulationMetrics.registerTags(WorkflowSimTags.class);
+    }
 
     /**
      * Created a new WorkflowEngine object.
@@ -83,6 +158,10 @@ public class WorkflowEngine extends SimEntity {
         setJobsList(new ArrayList<Job>());
         setJobsSubmittedList(new ArrayList<Job>());
         setJobsReceivedList(new ArrayList<Job>());
+        this.jobStates = new IdentityHashMap<Job, JobState>();
+        this.waitingJobs = new HashMap<Integer, List<Job>>();
+        this.receivedIds = new HashSet<Integer>();
+        this.readyJobs = new ArrayList<Job>();
 
         jobsSubmitted = 0;
 
@@ -141,7 +220,9 @@ public class WorkflowEngine extends SimEntity {
      */
     public void submitCloudletList(List<? extends Cloudlet> list) {
         getJobsList().addAll(list);
-
+        for (Cloudlet job : list) {
+            addJob((Job) job);
+        }
     }
 
     /**
@@ -222,8 +303,122 @@ public class WorkflowEngine extends SimEntity {
      * @param ev a SimEvent object
      */
     protected void processJobSubmit(SimEvent ev) {
-        List<? extends Cloudlet> list = (List) ev.getData();
-        setJobsList(list);
+        List<?> list = (List<?>) ev.getData();
+        for (Object job : list) {
+            this.jobsList.add((Job) job);
+            addJob((Job) job);
+        }
+    }
+
+    /**
+     * Indexes the jobs of the job list from scratch
+     */
+    private void indexJobs() {
+        this.jobStates.clear();
+        this.waitingJobs.clear();
+        this.readyJobs.clear();
+        this.jobsAdded = 0;
+        for (Job job : this.jobsList) {
+            addJob(job);
+        }
+    }
+
+    /**
+     * Indexes a job added to the job list, queueing it if its parents have
+     * all returned
+     *
+     * @param job the job
+     */
+    private void addJob(Job job) {
+        JobState state = new JobState(this.jobsAdded++);
+        this.jobStates.put(job, state);
+        for (Object parent : job.getParentList()) {
+            int parentId = ((Job) parent).getCloudletId();
+            if (!this.receivedIds.contains(parentId)) {
+                state.unfinishedParents++;
+                waitFor(job, parentId);
+            }
+        }
+        if (state.unfinishedParents == 0) {
+            setReady(job);
+        }
+    }
+
+    /**
+     * Makes a job wait for a parent
+     *
+     * @param job the job
+     * @param parentId the id of the parent
+     */
+    private void waitFor(Job job, int parentId) {
+        List<Job> jobs = this.waitingJobs.get(parentId);
+        if (jobs == null) {
+            jobs = new ArrayList<Job>(2);
+            this.waitingJobs.put(parentId, jobs);
+        }
+        jobs.add(job);
+    }
+
+    /**
+     * Queues a job whose parents have all returned
+     *
+     * @param job the job
+     */
+    private void setReady(Job job) {
+        //a job returned already is not submitted again
+        if (!this.receivedIds.contains(job.getCloudletId())) {
+            this.readyJobs.add(job);
+        }
+    }
+
+    /**
+     * Records a returned job, updating the jobs that wait for it
+     *
+     * @param job the job
+     */
+    private void setReceived(Job job) {
+        getJobsReceivedList().add(job);
+        this.receivedIds.add(job.getCloudletId());
+        List<Job> children = this.waitingJobs.remove(job.getCloudletId());
+        if (children != null) {
+            for (Job child : children) {
+                JobState state = this.jobStates.get(child);
+                if (state != null && !state.submitted && --state.unfinishedParents == 0) {
+                    setReady(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of jobs of the job list that have not been submitted
+     *
+     * @return the number of jobs
+     */
+    private int getPendingJobCount() {
+        return this.jobsList.size() - this.jobsRemoved;
+    }
+
+    /**
+     * Removes the submitted jobs from the job list
+     */
+    private void removeSubmittedJobs() {
+        if (this.jobsRemoved == 0) {
+            return;
+        }
+        List<Job> list = this.jobsList;
+        int size = 0;
+        for (int i = 0; i < list.size(); i++) {
+            Job job = list.get(i);
+            JobState state = this.jobStates.get(job);
+            if (state != null && state.submitted) {
+                this.jobStates.remove(job);
+            } else {
+                list.set(size++, job);
+            }
+        }
+        list.subList(size, list.size()).clear();
+        this.jobsRemoved = 0;
     }
 
     /**
@@ -239,14 +434,27 @@ public class WorkflowEngine extends SimEntity {
 
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
-
+            int newId = getPendingJobCount() + getJobsSubmittedList().size();
+            List<Job> retryJobs = ReclusteringEngine.process(job, newId);
+            this.jobsList.addAll(retryJobs);
+            for (Job retryJob : retryJobs) {
+                addJob(retryJob);
+            }
+            // the retry jobs are new parents of the children of the job
+            for (Job retryJob : retryJobs) {
+                for (Task child : retryJob.getChildList()) {
+                    JobState state = this.jobStates.get(child);
+                    if (state != null && !state.submitted) {
+                        state.unfinishedParents++;
+                        waitFor((Job) child, retryJob.getCloudletId());
+                    }
+                }
+            }
         }
 
-        getJobsReceivedList().add(job);
+        setReceived(job);
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        if (getPendingJobCount() == 0 && jobsSubmitted == 0) {
             //send msg to all the schedulers
             for (int i = 0; i < getSchedulerIds().size(); i++) {
                 sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -277,23 +485,6 @@ public class WorkflowEngine extends SimEntity {
                 + "Error - event unknown by this DatacenterBroker.");
     }
 
-    /**
-     * Checks whether a job list contains a id
-     *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
-     */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Submit jobs to the created VMs.
      *
@@ -302,43 +493,42 @@ public class WorkflowEngine extends SimEntity {
      */
     protected void submitJobs() {
 
-        List<Job> list = getJobsList();
+        if (this.jobsListChanged) {
+            removeSubmittedJobs();
+            indexJobs();
+            this.jobsListChanged = false;
+        }
         Map allocationList = new HashMap<Integer, List>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<Job>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
-            //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
+        /**
+         * These jobs' parents have all returned. Should submit, in the order
+         * of the job list.
+         */
+        List<Job> ready = this.readyJobs;
+        if (ready.size() > 1) {
+            Collections.sort(ready, new Comparator<Job>() {
 
+                @Override
+                public int compare(Job a, Job b) {
+                    return Integer.compare(jobStates.get(a).position, jobStates.get(b).position);
                 }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-
-                    List submittedList = (List) allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
-            }
-
+            });
+        }
+        for (Job job : ready) {
+            List submittedList = (List) allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            this.jobStates.get(job).submitted = true;
+            this.jobsRemoved++;
+        }
+        ready.clear();
+        // the job list is compacted once half of it has been submitted
+        if (this.jobsRemoved * 2 >= this.jobsList.size()) {
+            removeSubmittedJobs();
         }
         /**
          * If we have multiple schedulers. Divide them equally.
@@ -407,26 +597,62 @@ public class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Gets the job list.
+     * Gets the job list. The jobs are indexed again before the next
+     * submission if the list is changed.
      *
      * @param <T> the generic type
      * @return the job list
      */
     @SuppressWarnings("unchecked")
     public <T extends Cloudlet> List<T> getJobsList() {
-        return (List<T>) jobsList;
+        removeSubmittedJobs();
+        return (List<T>) new JobListView();
     }
 
     /**
      * Sets the job list.
      *
-     * @param <T> the generic type
-     * @param cloudletList the new job list
+     * @param jobsList the new job list
      */
-    private <T extends Cloudlet> void setJobsList(List<T> jobsList) {
+    private void setJobsList(List<Job> jobsList) {
         this.jobsList = jobsList;
     }
 
+    /**
+     * The job list as returned by {@link #getJobsList()}, which records the
+     * changes made through it.
+     */
+    private class JobListView extends AbstractList<Job> {
+
+        @Override
+        public Job get(int index) {
+            return jobsList.get(index);
+        }
+
+        @Override
+        public int size() {
+            return jobsList.size();
+        }
+
+        @Override
+        public Job set(int index, Job job) {
+            jobsListChanged = true;
+            return jobsList.set(index, job);
+        }
+
+        @Override
+        public void add(int index, Job job) {
+            jobsListChanged = true;
+            jobsList.add(index, job);
+        }
+
+        @Override
+        public Job remove(int index) {
+            jobsListChanged = true;
+            return jobsList.remove(index);
+        }
+    }
+
     /**
      * Gets the job submitted list.
      *
@@ -15,32 +15,114 @@
  */
 package org.workflowsim;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.ParameterException;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
- * WorkflowParser parse a DAX into tasks so that WorkflowSim can manage them
+ * WorkflowParser parse a DAX into tasks so that WorkflowSim can manage them.
+ *
+ * By default a DAX is parsed into a jdom document first. Large DAX files can
+ * be parsed in one pass with a StAX reader instead, which does not keep the
+ * document in memory, by calling setStreaming or by setting the system
+ * property workflowsim.parser to stax. Both parsers create the same tasks,
+ * files and dependencies.
+ *
+ * Several DAX files (Parameters.getDAXPaths) are parsed concurrently, by as
+ * many threads as there are processors unless the system property
+ * workflowsim.parser.threads or setParallelism says otherwise. The tasks, ids
+ * and files are the same as if the files were parsed one after another.
+ *
+ * A DAX file compiled to a CompiledWorkflow is loaded from the compiled file
+ * instead of being parsed, if the compiled file is up to date. With the
+ * system property workflowsim.parser.compiled set to write, or with
+ * setCompiledCache, the DAX files without an up-to-date compiled file are
+ * compiled first; with off, the compiled files are ignored.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Aug 23, 2013
  * @date Nov 9, 2014
  */
-public class WorkflowParser {
+public class WorkflowParser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The system property used to select the parser: dom or stax.
+     */
+    public static final String PARSER_PROPERTY = "workflowsim.parser";
+
+    /**
+     * The system property used to set the number of threads parsing DAX
+     * files concurrently.
+     */
+    public static final String THREADS_PROPERTY = "workflowsim.parser.threads";
+
+    /**
+     * The system property used to select how the compiled files are used:
+     * off, read or write.
+     */
+    public static final String COMPILED_PROPERTY = "workflowsim.parser.compiled";
+
+    /**
+     * How the compiled files of the DAX files are used.
+     */
+    public enum CompiledCache {
+
+        /**
+         * The compiled files are ignored.
+         */
+        OFF,
+        /**
+         * An up-to-date compiled file is loaded instead of the DAX file.
+         */
+        READ,
+        /**
+         * A DAX file without an up-to-date compiled file is compiled, then
+         * loaded.
+         */
+        WRITE
+    }
+
+    /**
+     * The key of the document cache in the simulation context.
+     */
+    private static final Object DOCUMENT_CACHE = new Object();
 
     /**
      * The path to data size file.
@@ -72,6 +154,42 @@ public class WorkflowParser {
      */
     private int jobIdStartsFrom;
 
+    /**
+     * Whether the DAX files are parsed with the streaming parser.
+     */
+    private boolean streaming;
+
+    /**
+     * The number of threads parsing DAX files concurrently.
+     */
+    private int parallelism;
+
+    /**
+     * How the compiled files are used.
+     */
+    private CompiledCache compiledCache;
+
+    /**
+     * Whether the lengths of the tasks are scaled with the runtime scale,
+     * which they are not when the DAX file is compiled.
+     */
+    private boolean scaled = true;
+
+    /**
+     * The DAX documents shared by the parsers of DAX files parsed
+     * concurrently, or null to use the document cache of the simulation
+     * context.
+     */
+    private transient ConcurrentMap<String, Document> documents;
+
+    /**
+     * Map from file name to the input files created by the parser of a DAX
+     * file parsed concurrently, which are registered in the ReplicaCatalog
+     * when the file is merged; null if the input files are registered while
+     * parsing.
+     */
+    private Map<String, org.cloudbus.cloudsim.File> inputFiles;
+
     /**
      * Gets the task list
      *
@@ -110,6 +228,9 @@ public class WorkflowParser {
         this.daxPaths = Parameters.getDAXPaths();
         this.runtimePath = Parameters.getRuntimePath();
         this.jobIdStartsFrom = 1;
+        this.streaming = isStreamingDefault();
+        this.parallelism = getParallelismDefault();
+        this.compiledCache = getCompiledCacheDefault();
             
         setTaskList(new ArrayList<Task>());
 
@@ -124,209 +245,484 @@ public class WorkflowParser {
     }
 
     /**
-     * Start to parse a workflow which includes text files and xml files.
+     * Initialize the parser of a DAX file parsed concurrently with others
+     *
+     * @param parser the parser of all the DAX files
+     * @param daxPath the DAX path
+     * @param jobIdStartsFrom the first id of the range reserved for the file
+     * @param documents the DAX documents shared by the parsers
      */
-    public void parse() {
-        if(this.daxPath != null){
-            parseXmlFile(this.daxPath);
-        } else if(this.daxPaths != null){
-            for(String path: this.daxPaths){
-                parseXmlFile(path);
-            }
+    private WorkflowParser(WorkflowParser parser, String daxPath, int jobIdStartsFrom,
+            ConcurrentMap<String, Document> documents) {
+        this.userId = parser.userId;
+        this.mName2Task = new HashMap<String, Task>();
+
+        this.fileSizePath = parser.fileSizePath;
+        this.daxPath = daxPath;
+        this.runtimePath = parser.runtimePath;
+        this.jobIdStartsFrom = jobIdStartsFrom;
+        this.streaming = parser.streaming;
+        this.parallelism = 1;
+        this.compiledCache = parser.compiledCache;
+        this.documents = documents;
+        this.inputFiles = new LinkedHashMap<String, org.cloudbus.cloudsim.File>();
+
+        setTaskList(new ArrayList<Task>());
+    }
+
+    /**
+     * Initialize the parser compiling a DAX file, which parses it with the
+     * streaming parser, numbers the tasks from 0 and does not scale their
+     * lengths nor register the files in the ReplicaCatalog
+     *
+     * @param daxPath the DAX path
+     */
+    private WorkflowParser(String daxPath) {
+        this.mName2Task = new HashMap<String, Task>();
+        this.daxPath = daxPath;
+        this.streaming = true;
+        this.parallelism = 1;
+        this.compiledCache = CompiledCache.OFF;
+        this.scaled = false;
+        this.inputFiles = new LinkedHashMap<String, org.cloudbus.cloudsim.File>();
+
+        setTaskList(new ArrayList<Task>());
+    }
+
+    /**
+     * Parses a DAX file for CompiledWorkflow.compile
+     *
+     * @param daxPath the DAX path
+     * @return the tasks, numbered from 0, with their depths
+     * @throws Exception if the DAX file can not be parsed
+     */
+    static List<Task> parseTasks(String daxPath) throws Exception {
+        WorkflowParser parser = new WorkflowParser(daxPath);
+        parser.parseXmlStream(daxPath);
+        WorkflowGraph.setDepths(parser.mName2Task.values());
+        return parser.getTaskList();
+    }
+
+    /**
+     * Gets the parser selected by the workflowsim.parser system property
+     *
+     * @return whether the streaming parser is selected
+     */
+    private static boolean isStreamingDefault() {
+        String parser = System.getProperty(PARSER_PROPERTY, "dom").trim();
+        if (parser.equalsIgnoreCase("stax")) {
+            return true;
+        } else if (!parser.equalsIgnoreCase("dom")) {
+            throw new IllegalArgumentException("Unknown DAX parser: " + parser);
         }
+        return false;
     }
 
     /**
-     * Sets the depth of a task
+     * Selects the parser. The streaming parser does not use the document
+     * cache.
      *
-     * @param task the task
-     * @param depth the depth
+     * @param streaming true to parse with the StAX parser, false to parse
+     * with jdom
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Checks whether the DAX files are parsed with the streaming parser
+     *
+     * @return true if they are parsed with the StAX parser
+     */
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /**
+     * Gets the number of threads set by the workflowsim.parser.threads system
+     * property
+     *
+     * @return the number of threads, by default the number of processors
      */
-    private void setDepth(Task task, int depth) {
-        if (depth > task.getDepth()) {
-            task.setDepth(depth);
+    private static int getParallelismDefault() {
+        String threads = System.getProperty(THREADS_PROPERTY);
+        if (threads == null) {
+            return Runtime.getRuntime().availableProcessors();
         }
-        for (Iterator it = task.getChildList().iterator(); it.hasNext();) {
-            Task cTask = (Task) it.next();
-            setDepth(cTask, task.getDepth() + 1);
+        int parallelism = Integer.parseInt(threads.trim());
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The number of parser threads should be positive, but is:" + parallelism);
         }
+        return parallelism;
     }
 
     /**
-     * Parse a DAX file with jdom
+     * Gets the use of the compiled files set by the
+     * workflowsim.parser.compiled system property
+     *
+     * @return the use of the compiled files, by default READ
      */
-    private void parseXmlFile(String path) {
+    private static CompiledCache getCompiledCacheDefault() {
+        String cache = System.getProperty(COMPILED_PROPERTY, "read").trim();
+        for (CompiledCache value : CompiledCache.values()) {
+            if (value.name().equalsIgnoreCase(cache)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown use of the compiled workflows: " + cache);
+    }
 
-        try {
+    /**
+     * Sets how the compiled files of the DAX files are used
+     *
+     * @param compiledCache the use of the compiled files
+     */
+    public void setCompiledCache(CompiledCache compiledCache) {
+        this.compiledCache = compiledCache;
+    }
 
-            SAXBuilder builder = new SAXBuilder();
-            //parse using builder to get DOM representation of the XML file
-            Document dom = builder.build(new File(path));
-            Element root = dom.getRootElement();
-            List list = root.getChildren();
-            for (Iterator it = list.iterator(); it.hasNext();) {
-                Element node = (Element) it.next();
-                if (node.getName().toLowerCase().equals("job")) {
-
-                    long length = 0;
-                    String nodeName = node.getAttributeValue("id");
-                    String nodeType = node.getAttributeValue("name");
-
-                    /**
-                     * capture runtime. If not exist, by default the runtime is
-                     * 0
-                     */
-                    double runtime = 0.0;
-                    if (node.getAttributeValue("runtime") != null) {
-                        String nodeTime = node.getAttributeValue("runtime");
-                        runtime = 1000 * Double.parseDouble(nodeTime);
-                        length = (long) runtime;
-                    } else {
-                        Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                    }
-                    //multiple the scale, by default it is 1.0
-                    length *= Parameters.getRuntimeScale();
-                    
-                    List fileList = node.getChildren();
-
-                    List mFileList = new ArrayList<org.cloudbus.cloudsim.File>();
-
-                    /**
-                     * capture file.
-                     */
-                    for (Iterator itf = fileList.iterator(); itf.hasNext();) {
-                        Element file = (Element) itf.next();
-                        if (file.getName().toLowerCase().equals("uses")) {
-                            String fileName = file.getAttributeValue("name");//DAX version 3.3
-                            if (fileName == null) {
-                                fileName = file.getAttributeValue("file");//DAX version 3.0
-                            }
-                            if (fileName == null) {
-                                Log.print("Error in parsing xml");
-                            }
+    /**
+     * Gets how the compiled files of the DAX files are used
+     *
+     * @return the use of the compiled files
+     */
+    public CompiledCache getCompiledCache() {
+        return this.compiledCache;
+    }
 
-                            String inout = file.getAttributeValue("link");
-                            double size = 0.0;
-                            
-                            String fileSize = file.getAttributeValue("size");
-                            if (fileSize != null) {
-                                size = Double.parseDouble(fileSize) /*/ 1024*/;
-                            } else {
-                                Log.printLine("File Size not found for " + fileName);
-                            }
-                            
-                            /**
-                             * a bug of cloudsim, size 0 causes a problem. 1 is
-                             * ok.
-                             */
-                            if (size == 0) {
-                                size++;
-                            }
-                            /**
-                             * Sets the file type 1 is input 2 is output
-                             */
-                            int type = 0;
-                            if (inout.equals("input")) {
-                                type = Parameters.FileType.INPUT.value;
-                            } else if (inout.equals("output")) {
-                                type = Parameters.FileType.OUTPUT.value;
-                            } else {
-                                Log.printLine("Parsing Error");
-                            }
-                            org.cloudbus.cloudsim.File tFile;
-                            /*
-                             * Already exists an input file (forget output file)
-                             */
-                            if (size < 0) {
-                                /*
-                                 * Assuming it is a parsing error
-                                 */
-                                size = 0 - size;
-                                Log.printLine("Size is negative, I assume it is a parser error");
-                            }
-                            if (type == Parameters.FileType.OUTPUT.value) {
-                                /**
-                                 * It is good that CloudSim does tell whether a
-                                 * size is zero
-                                 */
-                                tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
-                            } else if (ReplicaCatalog.containsFile(fileName)) {
-                                tFile = ReplicaCatalog.getFile(fileName);
-                            } else {
-
-                                tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
-                                ReplicaCatalog.setFile(fileName, tFile);
-                            }
+    /**
+     * Sets the number of threads parsing DAX files concurrently
+     *
+     * @param parallelism the number of threads, 1 to parse the DAX files one
+     * after another
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The number of parser threads should be positive, but is:" + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
 
-                            tFile.setType(type);
-                            mFileList.add(tFile);
+    /**
+     * Gets the number of threads parsing DAX files concurrently
+     *
+     * @return the number of threads
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
 
-                        }
+    /**
+     * Start to parse a workflow which includes text files and xml files.
+     */
+    public void parse() {
+        if(this.daxPath != null){
+            parseXmlFile(this.daxPath);
+        } else if(this.daxPaths != null){
+            if (this.parallelism > 1 && this.daxPaths.size() > 1) {
+                parseXmlFiles(this.daxPaths);
+            } else {
+                for(String path: this.daxPaths){
+                    parseXmlFile(path);
+                }
+            }
+        }
+    }
 
+    /**
+     * Parse DAX files concurrently. The jobs of each file are counted first,
+     * so that each file gets the range of task ids it would get if the files
+     * were parsed one after another. Each file is then parsed into tasks of
+     * its own, and the files are merged in order.
+     *
+     * @param paths the DAX paths
+     */
+    private void parseXmlFiles(List<String> paths) {
+        final SimulationContext context = SimulationContext.current();
+        ConcurrentMap<String, Document> cache = getDocumentCache();
+        final boolean shared = cache != null;
+        final ConcurrentMap<String, Document> dom = shared ? cache : new ConcurrentHashMap<String, Document>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, paths.size()),
+                new ThreadFactory() {
+
+                    private int threads = 0;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "WorkflowParser " + threads++);
+                        thread.setDaemon(true);
+                        return thread;
                     }
-                    Task task;
-                    //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent. 
-                    synchronized (this){
-                        task = new Task(this.jobIdStartsFrom, length);
-                        this.jobIdStartsFrom ++ ;
+                });
+        try {
+            List<Future<Integer>> counts = new ArrayList<Future<Integer>>();
+            for (final String path : paths) {
+                counts.add(submit(executor, context, new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return countJobs(path, dom);
                     }
-                    task.setType(nodeType);
+                }));
+            }
 
-                    task.setUserId(userId);
-                    mName2Task.put(nodeName, task);
+            List<Future<WorkflowParser>> parsers = new ArrayList<Future<WorkflowParser>>();
+            for (int i = 0; i < paths.size(); i++) {
+                final String path = paths.get(i);
+                final WorkflowParser parser = new WorkflowParser(this, path, this.jobIdStartsFrom, dom);
+                this.jobIdStartsFrom += counts.get(i).get();
+                parsers.add(submit(executor, context, new Callable<WorkflowParser>() {
+                    @Override
+                    public WorkflowParser call() {
+                        parser.parse();
+                        if (!shared) {
+                            dom.remove(path);
+                        }
+                        return parser;
+                    }
+                }));
+            }
 
+            for (Future<WorkflowParser> parser : parsers) {
+                merge(parser.get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            Log.printLine("Parsing interrupted");
 
-                    for (Iterator itm = mFileList.iterator(); itm.hasNext();) {
-                        org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) itm.next();
-                        task.addRequiredFile(file.getName());
-                    }
+        } catch (ExecutionException ee) {
+            ee.getCause().printStackTrace();
+            Log.printLine("Parsing Exception");
 
-                    task.setFileList(mFileList);
-                    this.getTaskList().add(task);
-
-                    /**
-                     * Add dependencies info.
-                     */
-                } else if (node.getName().toLowerCase().equals("child")) {
-                    List pList = node.getChildren();
-                    String childName = node.getAttributeValue("ref");
-                    if (mName2Task.containsKey(childName)) {
-
-                        Task childTask = (Task) mName2Task.get(childName);
-
-                        for (Iterator itc = pList.iterator(); itc.hasNext();) {
-                            Element parent = (Element) itc.next();
-                            String parentName = parent.getAttributeValue("ref");
-                            if (mName2Task.containsKey(parentName)) {
-                                Task parentTask = (Task) mName2Task.get(parentName);
-                                parentTask.addChild(childTask);
-                                childTask.addParent(parentTask);
-                            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a task run with a simulation context bound to the thread
+     *
+     * @param executor the executor
+     * @param context the simulation context
+     * @param task the task
+     * @return the result of the task
+     */
+    private static <T> Future<T> submit(ExecutorService executor, final SimulationContext context,
+            final Callable<T> task) {
+        return executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return context.call(task);
+            }
+        });
+    }
 
+    /**
+     * Counts the jobs of a DAX file, i.e. the tasks parseXmlFile creates
+     *
+     * @param path the DAX path
+     * @param dom the DAX documents, to which the document is added
+     * @return the number of jobs, 0 if the file can not be parsed, which is
+     * reported when it is parsed
+     */
+    private int countJobs(String path, ConcurrentMap<String, Document> dom) {
+        int count = 0;
+        try {
+            CompiledWorkflow compiled = openCompiled(path);
+            if (compiled != null) {
+                count = compiled.getTaskCount();
+            } else if (isStreaming()) {
+                InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 16);
+                XMLStreamReader reader = createReader(in);
+                try {
+                    int level = 0;
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT) {
+                            level++;
+                            if (level == 2 && reader.getLocalName().toLowerCase().equals("job")) {
+                                count++;
+                            }
+                        } else if (event == XMLStreamConstants.END_ELEMENT) {
+                            level--;
                         }
                     }
+                } finally {
+                    reader.close();
+                    in.close();
                 }
+            } else {
+                for (Object node : getDocument(path, dom).getRootElement().getChildren()) {
+                    if (((Element) node).getName().toLowerCase().equals("job")) {
+                        count++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            count = 0;
+        }
+        return count;
+    }
 
+    /**
+     * Appends the tasks of a DAX file parsed concurrently and registers its
+     * input files in the ReplicaCatalog. An input file of the same name as a
+     * registered file, e.g. of a DAX file merged before, is replaced with the
+     * registered file, as it would have been by a sequential parse.
+     *
+     * @param parser the parser of the DAX file
+     */
+    private void merge(WorkflowParser parser) {
+        register(parser.inputFiles, parser.getTaskList());
+        getTaskList().addAll(parser.getTaskList());
+    }
+
+    /**
+     * Registers input files in the ReplicaCatalog. An input file of the same
+     * name as a registered file is replaced with the registered file in the
+     * file lists of the tasks, and the ids of all the files of the tasks are
+     * interned.
+     *
+     * @param files map from file name to input file
+     * @param tasks the tasks using the files
+     */
+    private static void register(Map<String, org.cloudbus.cloudsim.File> files, List<Task> tasks) {
+        Map<org.cloudbus.cloudsim.File, org.cloudbus.cloudsim.File> replaced =
+                new IdentityHashMap<org.cloudbus.cloudsim.File, org.cloudbus.cloudsim.File>();
+        for (Map.Entry<String, org.cloudbus.cloudsim.File> entry : files.entrySet()) {
+            if (ReplicaCatalog.containsFile(entry.getKey())) {
+                org.cloudbus.cloudsim.File file = ReplicaCatalog.getFile(entry.getKey());
+                file.setType(Parameters.FileType.INPUT.value);
+                replaced.put(entry.getValue(), file);
+            } else {
+                ReplicaCatalog.setFile(entry.getKey(), entry.getValue());
             }
-            /**
-             * If a task has no parent, then it is root task.
-             */
-            ArrayList roots = new ArrayList<Task>();
-            for (Iterator it = mName2Task.values().iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                task.setDepth(0);
-                if (task.getParentList().isEmpty()) {
-                    roots.add(task);
+        }
+        for (Task task : tasks) {
+            List<org.cloudbus.cloudsim.File> fileList = task.getFileList();
+            for (int i = 0; i < fileList.size(); i++) {
+                org.cloudbus.cloudsim.File file = replaced.get(fileList.get(i));
+                if (file != null) {
+                    fileList.set(i, file);
+                } else {
+                    file = fileList.get(i);
                 }
+                ReplicaCatalog.getFileId(file);
+            }
+        }
+    }
+
+    /**
+     * Sets the DAX documents shared by the simulations of the current
+     * simulation context, so that a DAX used by many simulations is only
+     * parsed once. The documents must not be modified once they are shared.
+     *
+     * @param documents map from DAX path to document, to which the documents
+     * parsed from now on are added; null to parse each DAX again
+     */
+    public static void setDocumentCache(ConcurrentMap<String, Document> documents) {
+        SimulationContext.current().setAttribute(DOCUMENT_CACHE, documents);
+    }
+
+    /**
+     * Gets the document cache of the current simulation context
+     *
+     * @return map from DAX path to document, or null
+     */
+    private static ConcurrentMap<String, Document> getDocumentCache() {
+        return (ConcurrentMap<String, Document>) SimulationContext.current().getAttribute(DOCUMENT_CACHE);
+    }
+
+    /**
+     * Gets the DOM representation of a DAX file, from a document cache if
+     * there is one
+     *
+     * @param path the DAX path
+     * @param documents map from DAX path to document, or null
+     * @return the document
+     */
+    private static Document getDocument(String path, ConcurrentMap<String, Document> documents)
+            throws JDOMException, IOException {
+        Document dom = documents == null ? null : documents.get(path);
+        if (dom == null) {
+            SAXBuilder builder = new SAXBuilder();
+            //parse using builder to get DOM representation of the XML file
+            dom = builder.build(new File(path));
+            if (documents != null) {
+                Document cached = documents.putIfAbsent(path, dom);
+                if (cached != null) {
+                    dom = cached;
+                }
+            }
+        }
+        return dom;
+    }
+
+    /**
+     * Opens the compiled file of a DAX file if it is up to date, compiling
+     * the DAX file first if the compiled files are written
+     *
+     * @param path the DAX path
+     * @return the compiled workflow, or null if the DAX file is to be parsed
+     */
+    private CompiledWorkflow openCompiled(String path) {
+        if (this.compiledCache == CompiledCache.OFF) {
+            return null;
+        }
+        String compiledPath = CompiledWorkflow.getCompiledPath(path);
+        try {
+            CompiledWorkflow compiled = CompiledWorkflow.openIfUpToDate(path, compiledPath);
+            if (compiled == null && this.compiledCache == CompiledCache.WRITE) {
+                CompiledWorkflow.compile(path, compiledPath);
+                compiled = CompiledWorkflow.openIfUpToDate(path, compiledPath);
+            }
+            return compiled;
+        } catch (Exception e) {
+            Log.printLine("Cannot use the compiled workflow " + compiledPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Creates the tasks of a compiled DAX file
+     *
+     * @param compiled the compiled workflow
+     */
+    private void addCompiledTasks(CompiledWorkflow compiled) throws ParameterException {
+        Map<String, org.cloudbus.cloudsim.File> files = this.inputFiles;
+        if (files == null) {
+            files = new LinkedHashMap<String, org.cloudbus.cloudsim.File>();
+        }
+        List<Task> tasks = compiled.createTasks(this.jobIdStartsFrom, this.userId, files);
+        this.jobIdStartsFrom += tasks.size();
+        if (this.inputFiles == null) {
+            register(files, tasks);
+        }
+        getTaskList().addAll(tasks);
+    }
+
+    /**
+     * Parse a DAX file, with jdom or with the streaming parser, or load it
+     * from its compiled file
+     */
+    private void parseXmlFile(String path) {
+
+        try {
+            CompiledWorkflow compiled = openCompiled(path);
+            if (compiled != null) {
+                addCompiledTasks(compiled);
+                return;
+            }
+            if (isStreaming()) {
+                parseXmlStream(path);
+            } else {
+                parseXmlDocument(path);
             }
 
             /**
-             * Add depth from top to bottom.
+             * Add depth from top to bottom, a root task (without parents)
+             * being at depth 1.
              */
-            for (Iterator it = roots.iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                setDepth(task, 1);
-            }
+            WorkflowGraph.setDepths(mName2Task.values());
             /**
              * Clean them so as to save memory. Parsing workflow may take much memory
              */
@@ -336,6 +732,9 @@ public class WorkflowParser {
         } catch (JDOMException jde) {
             Log.printLine("JDOM Exception;Please make sure your dax file is valid");
 
+        } catch (XMLStreamException xse) {
+            Log.printLine("XML Stream Exception;Please make sure your dax file is valid");
+
         } catch (IOException ioe) {
             Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
 
@@ -345,4 +744,273 @@ public class WorkflowParser {
 
         }
     }
+
+    /**
+     * Parse the jobs and the dependencies of a DAX file with jdom
+     */
+    private void parseXmlDocument(String path) throws JDOMException, IOException, ParameterException {
+        Document dom = getDocument(path, this.documents != null ? this.documents : getDocumentCache());
+        Element root = dom.getRootElement();
+        List list = root.getChildren();
+        for (Iterator it = list.iterator(); it.hasNext();) {
+            Element node = (Element) it.next();
+            if (node.getName().toLowerCase().equals("job")) {
+
+                long length = getLength(node.getAttributeValue("id"), node.getAttributeValue("runtime"));
+
+                List fileList = node.getChildren();
+
+                List mFileList = new ArrayList<org.cloudbus.cloudsim.File>();
+
+                /**
+                 * capture file.
+                 */
+                for (Iterator itf = fileList.iterator(); itf.hasNext();) {
+                    Element file = (Element) itf.next();
+                    if (file.getName().toLowerCase().equals("uses")) {
+                        mFileList.add(getFile(file.getAttributeValue("name"), file.getAttributeValue("file"),
+                                file.getAttributeValue("link"), file.getAttributeValue("size")));
+                    }
+
+                }
+                addTask(node.getAttributeValue("id"), node.getAttributeValue("name"), length, mFileList);
+
+                /**
+                 * Add dependencies info.
+                 */
+            } else if (node.getName().toLowerCase().equals("child")) {
+                List pList = node.getChildren();
+                Task childTask = mName2Task.get(node.getAttributeValue("ref"));
+                if (childTask != null) {
+                    for (Iterator itc = pList.iterator(); itc.hasNext();) {
+                        Element parent = (Element) itc.next();
+                        addParent(childTask, parent.getAttributeValue("ref"));
+                    }
+                }
+            }
+
+        }
+    }
+
+    /**
+     * Parse the jobs and the dependencies of a DAX file in one pass with a
+     * StAX reader, without building the document. It follows the jdom parser:
+     * only the job and child elements directly under the root, and their
+     * uses and parent elements, are read.
+     */
+    private void parseXmlStream(String path) throws XMLStreamException, IOException,
+            ParameterException {
+        InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 16);
+        XMLStreamReader reader = createReader(in);
+        try {
+            int level = 0;
+            String nodeName = null;
+            String nodeType = null;
+            long length = 0;
+            List mFileList = null;
+            Task childTask = null;
+            boolean inChild = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    level++;
+                    String name = reader.getLocalName().toLowerCase();
+                    if (level == 2 && name.equals("job")) {
+                        nodeName = reader.getAttributeValue(null, "id");
+                        nodeType = reader.getAttributeValue(null, "name");
+                        length = getLength(nodeName, reader.getAttributeValue(null, "runtime"));
+                        mFileList = new ArrayList<org.cloudbus.cloudsim.File>();
+                    } else if (level == 2 && name.equals("child")) {
+                        childTask = mName2Task.get(reader.getAttributeValue(null, "ref"));
+                        inChild = true;
+                    } else if (level == 3 && mFileList != null && name.equals("uses")) {
+                        mFileList.add(getFile(reader.getAttributeValue(null, "name"),
+                                reader.getAttributeValue(null, "file"),
+                                reader.getAttributeValue(null, "link"),
+                                reader.getAttributeValue(null, "size")));
+                    } else if (level == 3 && inChild && childTask != null) {
+                        addParent(childTask, reader.getAttributeValue(null, "ref"));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (level == 2 && mFileList != null) {
+                        addTask(nodeName, nodeType, length, mFileList);
+                        mFileList = null;
+                    }
+                    if (level == 2) {
+                        childTask = null;
+                        inChild = false;
+                    }
+                    level--;
+                }
+            }
+        } finally {
+            reader.close();
+            in.close();
+        }
+    }
+
+    /**
+     * Creates a StAX reader, which does not resolve external entities
+     *
+     * @param in the DAX stream
+     * @return the reader
+     */
+    private static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(in);
+    }
+
+    /**
+     * Gets the length of a job from its runtime. If there is no runtime, by
+     * default the runtime is 0
+     *
+     * @param nodeName the id of the job
+     * @param nodeTime the runtime attribute, in seconds
+     * @return the length, scaled with the runtime scale
+     */
+    private long getLength(String nodeName, String nodeTime) {
+        long length = 0;
+        double runtime = 0.0;
+        if (nodeTime != null) {
+            runtime = 1000 * Double.parseDouble(nodeTime);
+            length = (long) runtime;
+        } else {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+        }
+        //multiple the scale, by default it is 1.0
+        if (this.scaled) {
+            length *= Parameters.getRuntimeScale();
+        }
+        return length;
+    }
+
+    /**
+     * Gets the file of a uses element, and registers the input files in the
+     * ReplicaCatalog and the ids of all the files
+     *
+     * @param name the name attribute (DAX version 3.3)
+     * @param oldName the file attribute (DAX version 3.0)
+     * @param inout the link attribute
+     * @param fileSize the size attribute
+     * @return the file
+     * @throws ParameterException if the file can not be created
+     */
+    private org.cloudbus.cloudsim.File getFile(String name, String oldName, String inout, String fileSize)
+            throws ParameterException {
+        String fileName = name;//DAX version 3.3
+        if (fileName == null) {
+            fileName = oldName;//DAX version 3.0
+        }
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        }
+
+        double size = 0.0;
+
+        if (fileSize != null) {
+            size = Double.parseDouble(fileSize) /*/ 1024*/;
+        } else {
+            Log.printLine("File Size not found for " + fileName);
+        }
+
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1 is
+         * ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        int type = 0;
+        if (inout.equals("input")) {
+            type = Parameters.FileType.INPUT.value;
+        } else if (inout.equals("output")) {
+            type = Parameters.FileType.OUTPUT.value;
+        } else {
+            Log.printLine("Parsing Error");
+        }
+        org.cloudbus.cloudsim.File tFile;
+        /*
+         * Already exists an input file (forget output file)
+         */
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        if (type == Parameters.FileType.OUTPUT.value) {
+            /**
+             * It is good that CloudSim does tell whether a
+             * size is zero
+             */
+            tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
+        } else if (this.inputFiles != null) {
+            tFile = this.inputFiles.get(fileName);
+            if (tFile == null) {
+                tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
+                this.inputFiles.put(fileName, tFile);
+            }
+        } else if (ReplicaCatalog.containsFile(fileName)) {
+            tFile = ReplicaCatalog.getFile(fileName);
+        } else {
+
+            tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
+            ReplicaCatalog.setFile(fileName, tFile);
+        }
+
+        tFile.setType(type);
+        if (this.inputFiles == null) {
+            ReplicaCatalog.getFileId(tFile);
+        }
+        return tFile;
+    }
+
+    /**
+     * Creates the task of a job
+     *
+     * @param nodeName the id of the job
+     * @param nodeType the name of the job
+     * @param length the length of the job
+     * @param mFileList the files of the job
+     */
+    private void addTask(String nodeName, String nodeType, long length, List mFileList) {
+        Task task;
+        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent. 
+        synchronized (this){
+            task = new Task(this.jobIdStartsFrom, length);
+            this.jobIdStartsFrom ++ ;
+        }
+        task.setType(nodeType);
+
+        task.setUserId(userId);
+        mName2Task.put(nodeName, task);
+
+
+        for (Iterator itm = mFileList.iterator(); itm.hasNext();) {
+            org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) itm.next();
+            task.addRequiredFile(file.getName());
+        }
+
+        task.setFileList(mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Adds a parent to a task, if the parent has been parsed
+     *
+     * @param childTask the task
+     * @param parentName the id of the parent job
+     */
+    private void addParent(Task childTask, String parentName) {
+        Task parentTask = mName2Task.get(parentName);
+        if (parentTask != null) {
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+        }
+    }
 }
@@ -27,6 +27,7 @@ import org.workflowsim.planning.HEFTPlanningAlgorithm;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
  * WorkflowPlanner supports dynamic planning. In the future we will have global
@@ -40,6 +41,8 @@ import org.workflowsim.utils.Parameters.PlanningAlgorithm;
  */
 public class WorkflowPlanner extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The task list.
      */
@@ -48,6 +51,10 @@ public class WorkflowPlanner extends SimEntity {
      * The workflow parser.
      */
     protected WorkflowParser parser;
+    /**
+     * The tasks of the workflow, if they are given instead of parsed.
+     */
+    private List<Task> workflowTasks;
     /**
      * The associated clustering engine.
      */
@@ -106,6 +113,27 @@ public class WorkflowPlanner extends SimEntity {
         return this.parser;
     }
 
+    /**
+     * Sets the tasks of the workflow, such as the ones a WorkflowGenerator
+     * creates, which are planned instead of the tasks of the DAX files when
+     * the simulation starts
+     *
+     * @param tasks the tasks, with their files and dependencies, or null to
+     * parse the DAX files
+     */
+    public void setWorkflowTasks(List<Task> tasks) {
+        this.workflowTasks = tasks;
+    }
+
+    /**
+     * Gets the tasks of the workflow given instead of the DAX files
+     *
+     * @return the tasks, or null if the DAX files are parsed
+     */
+    public List<Task> getWorkflowTasks() {
+        return this.workflowTasks;
+    }
+
     /**
      * Gets the workflow engine id
      *
@@ -135,8 +163,12 @@ public class WorkflowPlanner extends SimEntity {
     public void processEvent(SimEvent ev) {
         switch (ev.getTag()) {
             case WorkflowSimTags.START_SIMULATION:
-                getWorkflowParser().parse();
-                setTaskList(getWorkflowParser().getTaskList());
+                if (getWorkflowTasks() != null) {
+                    setTaskList(getWorkflowTasks());
+                } else {
+                    getWorkflowParser().parse();
+                    setTaskList(getWorkflowParser().getTaskList());
+                }
 
                 processPlanning();
 
@@ -211,34 +243,7 @@ public class WorkflowPlanner extends SimEntity {
      * @param taskList all the tasks
      */
     private void processImpactFactors(List<Task> taskList) {
-        ArrayList<Task> exits = new ArrayList();
-        for (Task task : taskList) {
-            if (task.getChildList().isEmpty()) {
-                exits.add(task);
-            }
-        }
-        double avg = 1.0 / exits.size();
-        for (Task task : exits) {
-            addImpact(task, avg);
-        }
-    }
-
-    /**
-     * Add impact factor for one particular task
-     *
-     * @param task, the task
-     * @param impact , the impact factor
-     */
-    private void addImpact(Task task, double impact) {
-
-        task.setImpact(task.getImpact() + impact);
-        int size = task.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (Task parent : task.getParentList()) {
-                addImpact(parent, avg);
-            }
-        }
+        WorkflowGraph.setImpactFactors(taskList);
     }
 
     /**
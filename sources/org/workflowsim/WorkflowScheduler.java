@@ -15,8 +15,8 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
@@ -50,11 +50,41 @@ import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
  */
 public class WorkflowScheduler extends DatacenterBroker {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The workflow engine id associated with this workflow algorithm.
      */
     private int workflowEngineId;
 
+    /**
+     * Whether a scheduling pass has been requested and has not run yet
+     */
+    private boolean updatePending;
+
+    /**
+     * The time of the first request since the last scheduling pass
+     */
+    private double updateRequestTime;
+
+    /**
+     * The time the pending scheduling pass runs at
+     */
+    private double updateTime;
+
+    /**
+     * The number of scheduling passes requested so far. An update event
+     * carrying an older number has been put off and is ignored
+     */
+    private int updateCount;
+
+    /**
+     * The scheduling algorithm. It is created at the first scheduling pass
+     * and kept for the whole simulation; it holds the jobs that have not been
+     * scheduled yet and the idle vms.
+     */
+    private BaseSchedulingAlgorithm algorithm;
+
     /**
      * Created a new WorkflowScheduler object.
      *
@@ -176,6 +206,50 @@ public class WorkflowScheduler extends DatacenterBroker {
         return algorithm;
     }
 
+    /**
+     * Gets the scheduling algorithm of this scheduler, creating it the first
+     * time. Its vm list is set again if vms have been created since.
+     *
+     * @return the scheduling algorithm
+     */
+    private BaseSchedulingAlgorithm getSchedulingAlgorithm() {
+        if (this.algorithm == null) {
+            this.algorithm = getScheduler(Parameters.getSchedulingAlgorithm());
+            this.algorithm.setVmList(getVmsCreatedList());
+        } else if (this.algorithm.getIdleVmIndex().getVmCount() != getVmsCreatedList().size()) {
+            this.algorithm.setVmList(getVmsCreatedList());
+        }
+        return this.algorithm;
+    }
+
+    /**
+     * Gets the jobs submitted to this scheduler that have not been scheduled
+     * to a vm yet. The scheduling algorithm keeps them, so the list is a copy:
+     * changing it does not change the jobs to schedule, which are added with
+     * submitCloudletList.
+     *
+     * @return the pending jobs
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Cloudlet> List<T> getCloudletList() {
+        if (this.algorithm == null) {
+            return new ArrayList<T>();
+        }
+        return (List<T>) this.algorithm.getPendingList();
+    }
+
+    /**
+     * Submits jobs to this scheduler. They are handed to the scheduling
+     * algorithm and scheduled at the next scheduling pass.
+     *
+     * @param list the jobs
+     */
+    @Override
+    public void submitCloudletList(List<? extends Cloudlet> list) {
+        getSchedulingAlgorithm().onCloudletsArrived(list);
+    }
+
     /**
      * Process the ack received due to a request for VM creation.
      *
@@ -242,21 +316,25 @@ public class WorkflowScheduler extends DatacenterBroker {
      * @param ev a simEvent object
      */
     protected void processCloudletUpdate(SimEvent ev) {
+        if (ev.getData() != null) {
+            //this pass has been put off by a later request
+            if ((Integer) ev.getData() != updateCount) {
+                return;
+            }
+            updatePending = false;
+        }
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
-        scheduler.setCloudletList(getCloudletList());
-        scheduler.setVmList(getVmsCreatedList());
-
+        BaseSchedulingAlgorithm scheduler = getSchedulingAlgorithm();
+        List<Cloudlet> scheduledList;
         try {
-            scheduler.run();
+            scheduledList = scheduler.nextAssignments();
         } catch (Exception e) {
             Log.printLine("Error in configuring scheduler_method");
             e.printStackTrace();
+            scheduledList = new ArrayList<Cloudlet>();
         }
 
-        List scheduledList = scheduler.getScheduledList();
-        for (Iterator it = scheduledList.iterator(); it.hasNext();) {
-            Cloudlet cloudlet = (Cloudlet) it.next();
+        for (Cloudlet cloudlet : scheduledList) {
             int vmId = cloudlet.getVmId();
             double delay = 0.0;
             if(Parameters.getOverheadParams().getQueueDelay()!=null){
@@ -265,7 +343,6 @@ public class WorkflowScheduler extends DatacenterBroker {
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
 
         }
-        getCloudletList().removeAll(scheduledList);
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
 
@@ -294,7 +371,11 @@ public class WorkflowScheduler extends DatacenterBroker {
 
         CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
         //so that this resource is released
-        vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        if (algorithm != null) {
+            algorithm.onVmIdle(vm);
+        } else {
+            vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        }
 
         double delay = 0.0;
         if(Parameters.getOverheadParams().getPostDelay()!=null){
@@ -303,10 +384,35 @@ public class WorkflowScheduler extends DatacenterBroker {
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
         cloudletsSubmitted--;
-        //not really update right now, should wait 1 s until many jobs have returned
+        //not really update right now, wait until many jobs have returned
+        requestUpdate();
 
-        schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+    }
 
+    /**
+     * Requests a scheduling pass. The requests made before the pending pass
+     * runs are served by it. The pass is put off until no request has come for
+     * the scheduling window, but not longer than the maximum scheduling delay
+     * after the first request
+     */
+    protected void requestUpdate() {
+        double clock = CloudSim.clock();
+        double window = Parameters.getSchedulingWindow();
+        if (updatePending) {
+            double time = Math.min(clock + window,
+                    updateRequestTime + Parameters.getMaxSchedulingDelay());
+            if (time <= updateTime) {
+                return;
+            }
+            updateTime = time;
+        } else {
+            updatePending = true;
+            updateRequestTime = clock;
+            updateTime = clock + Math.max(0.0, Math.min(window,
+                    Parameters.getMaxSchedulingDelay()));
+        }
+        updateCount++;
+        schedule(this.getId(), updateTime - clock, WorkflowSimTags.CLOUDLET_UPDATE, updateCount);
     }
 
     /**
@@ -376,9 +482,9 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletSubmit(SimEvent ev) {
         List<Job> list = (List) ev.getData();
-        getCloudletList().addAll(list);
+        getSchedulingAlgorithm().onCloudletsArrived(list);
 
-        sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        requestUpdate();
         if (!processCloudletSubmitHasShown) {
             //Log.printLine("Pay Attention that the actual vm size is " + getVmsCreatedList().size());
             processCloudletSubmitHasShown = true;
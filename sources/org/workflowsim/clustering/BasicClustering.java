@@ -15,6 +15,7 @@
  */
 package org.workflowsim.clustering;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,7 +34,9 @@ import org.workflowsim.utils.Parameters.FileType;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class BasicClustering implements ClusteringInterface {
+public class BasicClustering implements ClusteringInterface, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The task list.
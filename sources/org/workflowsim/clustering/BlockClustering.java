@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import org.workflowsim.Task;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
  * BlockClustering groups tasks in both horizontal and vertical direction
@@ -31,6 +32,8 @@ import org.workflowsim.Task;
  */
 public class BlockClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
@@ -100,18 +103,7 @@ public class BlockClustering extends BasicClustering {
 
         // level by level
         if (clusterNum > 0 || clusterSize > 0) {
-            for (Iterator it = getTaskList().iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                int depth = task.getDepth();
-                if (!mDepth2Task.containsKey(depth)) {
-                    mDepth2Task.put(depth, new ArrayList<Task>());
-                }
-                ArrayList list = (ArrayList) mDepth2Task.get(depth);
-                if (!list.contains(task)) {
-                    list.add(task);
-                }
-
-            }
+            mDepth2Task.putAll(WorkflowGraph.forTasks(getTaskList()).getLevels());
         }
 
 
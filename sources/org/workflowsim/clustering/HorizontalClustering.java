@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Random;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
  * HorizontalClustering merges task at the same horizontal level
@@ -33,6 +34,8 @@ import org.workflowsim.Task;
  */
 public class HorizontalClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
@@ -67,18 +70,7 @@ public class HorizontalClustering extends BasicClustering {
     @Override
     public void run() {
         if (clusterNum > 0 || clusterSize > 0) {
-            for (Iterator it = getTaskList().iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                int depth = task.getDepth();
-                if (!mDepth2Task.containsKey(depth)) {
-                    mDepth2Task.put(depth, new ArrayList<Task>());
-                }
-                ArrayList list = (ArrayList) mDepth2Task.get(depth);
-                if (!list.contains(task)) {
-                    list.add(task);
-                }
-
-            }
+            mDepth2Task.putAll(WorkflowGraph.forTasks(getTaskList()).getLevels());
         }
         /**
          * if clusters.num is set.
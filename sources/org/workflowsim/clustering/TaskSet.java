@@ -15,6 +15,7 @@
  */
 package org.workflowsim.clustering;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import org.workflowsim.Task;
 
@@ -25,7 +26,9 @@ import org.workflowsim.Task;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class TaskSet {
+public class TaskSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * the task list.
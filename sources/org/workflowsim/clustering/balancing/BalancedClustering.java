@@ -36,6 +36,7 @@ import org.workflowsim.clustering.balancing.metrics.HorizontalRuntimeVariance;
 import org.workflowsim.clustering.balancing.metrics.ImpactFactorVariance;
 import org.workflowsim.clustering.balancing.metrics.PipelineRuntimeVariance;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
  * BalancedClustering is a clustering method that aims balancing task runtime
@@ -47,6 +48,8 @@ import org.workflowsim.utils.Parameters;
  */
 public class BalancedClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Number of clustered jobs per level.
      */
@@ -55,10 +58,6 @@ public class BalancedClustering extends BasicClustering {
      * Map from task to taskSet.
      */
     private Map<Task, TaskSet> mTask2TaskSet;
-    /**
-     * Map from taskSet to its depth.
-     */
-    private Map mTaskSet2Depth;
 
     /**
      * Initialize a BalancedClustering method
@@ -69,7 +68,6 @@ public class BalancedClustering extends BasicClustering {
         super();
         this.clusterNum = clusterNum;
         this.mTask2TaskSet = new HashMap<Task, TaskSet>();
-        mTaskSet2Depth = new HashMap<TaskSet, Integer>();
 
     }
 
@@ -86,34 +84,11 @@ public class BalancedClustering extends BasicClustering {
         }
     }
 
-    /**
-     * Add impact factor to a TaskSet
-     *
-     * @param set TaskSet
-     * @param impact Impact Factor
-     */
-    private void addImpact(TaskSet set, double impact) {
-        /*
-         * follow the path from set
-         */
-        set.setImpactFafctor(set.getImpactFactor() + impact);
-        int size = set.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (TaskSet parent : set.getParentList()) {
-                addImpact(parent, avg);
-            }
-        }
-    }
-
     /**
      * Print out all the balancing metrics
      */
     public void printMetrics() {
         Map<Integer, ArrayList<TaskSet>> map = getCurrentTaskSetAtLevels();
-        for (TaskSet set : mTask2TaskSet.values()) {
-            set.setImpactFafctor(0.0);
-        }
 
         int maxDepth = 0;
         for (Entry entry : map.entrySet()) {
@@ -123,10 +98,10 @@ public class BalancedClustering extends BasicClustering {
             }
         }
         ArrayList<TaskSet> exits = map.get(maxDepth);
-        double avg = 1.0 / exits.size();
-        for (TaskSet set : exits) {
-            //set.setImpactFafctor(avg);
-            addImpact(set, avg);
+        Map<TaskSet, Double> impacts = WorkflowGraph.forTaskSets(mTask2TaskSet.values())
+                .getImpactFactors(exits);
+        for (Entry<TaskSet, Double> entry : impacts.entrySet()) {
+            entry.getKey().setImpactFafctor(entry.getValue());
         }
 
         for (Entry entry : map.entrySet()) {
@@ -167,11 +142,12 @@ public class BalancedClustering extends BasicClustering {
         //makesure Taskset.hasChecked is false
         Map map = new HashMap<Integer, ArrayList<TaskSet>>();
         Collection sets = mTask2TaskSet.values();
+        Map<TaskSet, Integer> depths = WorkflowGraph.forTaskSets(sets).getDepths();
         for (Iterator it = sets.iterator(); it.hasNext();) {
             TaskSet set = (TaskSet) it.next();
             if (!set.hasChecked) {
                 set.hasChecked = true;
-                int depth = getDepth(set);
+                int depth = depths.get(set);
                 if (!map.containsKey(depth)) {
                     map.put(depth, new ArrayList<TaskSet>());
                 }
@@ -181,38 +157,11 @@ public class BalancedClustering extends BasicClustering {
             }
 
         }
-        mTaskSet2Depth.clear();
         //must do
         cleanTaskSetChecked();
         return map;
     }
 
-    /**
-     * Gets the depth of a TaskSet
-     *
-     * @param set TaskSet
-     * @return depth
-     */
-    private int getDepth(TaskSet set) {
-        if (mTaskSet2Depth.containsKey(set)) {
-            return (Integer) mTaskSet2Depth.get(set);
-        } else {
-            int depth = 0;
-            for (Iterator it = set.getParentList().iterator(); it.hasNext();) {
-                TaskSet parent = (TaskSet) it.next();
-                int curDepth = getDepth(parent);
-                if (curDepth > depth) {
-                    depth = curDepth;
-                }
-            }
-            depth++;
-            mTaskSet2Depth.put(set, depth);
-            return depth;
-
-        }
-
-    }
-
     /**
      * Check whether a task is an ancestor of another set
      *
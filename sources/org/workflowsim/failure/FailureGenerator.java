@@ -15,12 +15,15 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Random;
 import org.apache.commons.math3.distribution.GammaDistribution;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -42,8 +45,26 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
     private static boolean hasChangeTime = false;
+
+    /**
+     * The number of sample extensions so far, kept per simulation context
+     */
+    private static final class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private int failureSizeExtension = 0;
+    }
+
+    /**
+     * Gets the state of the generator in the current simulation context
+     *
+     * @return the state
+     */
+    private static State state() {
+        return SimulationContext.current().getAttribute(State.class, new State());
+    }
     /**
      *
      */
@@ -66,6 +87,10 @@ public class FailureGenerator {
             default:
                 break;
         }
+        Random random = Parameters.getRandom();
+        if (distribution != null && random != null) {
+            distribution.reseedRandomGenerator(random.nextLong());
+        }
         return distribution;
     }
 
@@ -118,12 +143,13 @@ public class FailureGenerator {
         
         
         double[] samples = generator.getCumulativeSamples();
+        State state = state();
         
         while (samples[samples.length - 1] < start) {
             generator.extendSamples();
             samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            state.failureSizeExtension++;
+            if (state.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
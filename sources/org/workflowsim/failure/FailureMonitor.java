@@ -15,15 +15,18 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.Parameters;
 
 /**
- * FailureMonitor collects failure information
+ * FailureMonitor collects failure information. The failure records are kept
+ * per simulation context.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -32,21 +35,42 @@ import org.workflowsim.utils.Parameters;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The failure records, kept per simulation context
      */
-    protected static Map<Integer, ArrayList<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, ArrayList<FailureRecord>> type2record;
-    /**
-     * JobID to a Failure Record. *
-     */
-    protected static Map<Integer, FailureRecord> jobid2record;
+    private static final class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        private Map<Integer, ArrayList<FailureRecord>> vm2record;
+
+        /**
+         * Type to a Failure Record. *
+         */
+        private Map<Integer, ArrayList<FailureRecord>> type2record;
+
+        /**
+         * JobID to a Failure Record. *
+         */
+        private Map<Integer, FailureRecord> jobid2record;
+
+        /**
+         * All the record list.
+         */
+        private List<FailureRecord> recordList;
+    }
+
     /**
-     * All the record list.
+     * Gets the failure records of the current simulation context
+     *
+     * @return the failure records
      */
-    protected static List<FailureRecord> recordList;
+    private static State state() {
+        return SimulationContext.current().getAttribute(State.class, new State());
+    }
+
     /**
      * Id to a Job.
      */
@@ -56,10 +80,11 @@ public class FailureMonitor {
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        jobid2record = new HashMap<Integer, FailureRecord>();
-        recordList = new ArrayList<FailureRecord>();
+        State state = state();
+        state.vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        state.type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        state.jobid2record = new HashMap<Integer, FailureRecord>();
+        state.recordList = new ArrayList<FailureRecord>();
 
     }
 
@@ -127,9 +152,11 @@ public class FailureMonitor {
             return;
         }
 
+        State state = state();
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
+                Map<Integer, ArrayList<FailureRecord>> vm2record = state.vm2record;
                 if (!vm2record.containsKey(record.vmId)) {
                     vm2record.put(record.vmId, new ArrayList<FailureRecord>());
                 }
@@ -138,6 +165,7 @@ public class FailureMonitor {
                 break;
             case MONITOR_JOB:
 
+                Map<Integer, ArrayList<FailureRecord>> type2record = state.type2record;
                 if (!type2record.containsKey(record.depth)) {
                     type2record.put(record.depth, new ArrayList<FailureRecord>());
                 }
@@ -148,7 +176,7 @@ public class FailureMonitor {
                 break;
         }
 
-        recordList.add(record);
+        state.recordList.add(record);
     }
 
     /**
@@ -165,10 +193,11 @@ public class FailureMonitor {
          */
         int sumFailures = 0;
         int sumJobs = 0;
+        State state = state();
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : state.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -177,8 +206,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (state.type2record.containsKey(type)) {
+                    for (FailureRecord record : state.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -188,8 +217,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (state.vm2record.containsKey(type)) {
+                    for (FailureRecord record : state.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -26,6 +26,7 @@ import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.WorkflowGraph;
 
 /**
  * The HEFT planning algorithm.
@@ -201,12 +202,13 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
+     * Invokes calculateRank for each task to be scheduled, children first so
+     * that the rank of the children is known and the recursion stays shallow
      */
     private void calculateRanks() {
-        for (Object taskObject : getTaskList()) {
-            Task task = (Task) taskObject;
-            calculateRank(task);
+        List<Task> order = WorkflowGraph.forTasks(getTaskList()).getTopologicalOrder();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            calculateRank(order.get(i));
         }
     }
 
@@ -15,20 +15,35 @@
  */
 package org.workflowsim.scheduling;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
  * should extend from BaseSchedulingAlgorithm but should not directly use it. 
  *
+ * An algorithm can be used in two ways. run() schedules the jobs of the job
+ * list once. WorkflowScheduler instead keeps one algorithm for the whole
+ * simulation and tells it when jobs arrive (onCloudletsArrived) and when a vm
+ * becomes idle (onVmIdle), then asks for the jobs to submit
+ * (nextAssignments). The algorithms of this package keep their own queues for
+ * that; an algorithm that only implements run() gets it run on the jobs that
+ * have not been scheduled yet.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInterface {
+public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInterface, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * the job list.
@@ -42,12 +57,21 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * the scheduled job list.
      */
     private List< Cloudlet> scheduledList;
+    /**
+     * the idle vm index.
+     */
+    private IdleVmIndex idleVmIndex;
+    /**
+     * the jobs that have arrived and have not been scheduled yet.
+     */
+    private List<Cloudlet> pendingList;
 
     /**
      * Initialize a BaseSchedulingAlgorithm
      */
     public BaseSchedulingAlgorithm() {
         this.scheduledList = new ArrayList();
+        this.pendingList = new ArrayList<Cloudlet>();
     }
 
     /**
@@ -61,13 +85,38 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
     }
 
     /**
-     * Sets the vm list
+     * Sets the vm list. The list is not copied and should not be changed
+     * while the algorithm runs. The idle vm index is built again from it.
      *
      * @param list
      */
     @Override
     public void setVmList(List list) {
-        this.vmList = new ArrayList(list);
+        this.vmList = list;
+        this.idleVmIndex = null;
+    }
+
+    /**
+     * Sets the index of the idle vms of the vm list. It is kept by the caller
+     * across runs, so that the algorithm does not build one every time.
+     *
+     * @param index the idle vm index
+     */
+    public void setIdleVmIndex(IdleVmIndex index) {
+        this.idleVmIndex = index;
+    }
+
+    /**
+     * Gets the index of the idle vms. If none has been set, one is built from
+     * the vm list.
+     *
+     * @return the idle vm index
+     */
+    public IdleVmIndex getIdleVmIndex() {
+        if (this.idleVmIndex == null) {
+            this.idleVmIndex = new IdleVmIndex(this.vmList);
+        }
+        return this.idleVmIndex;
     }
 
     /**
@@ -80,6 +129,15 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
         return this.cloudletList;
     }
 
+    /**
+     * Gets the jobs of the job list.
+     *
+     * @return the job list
+     */
+    protected List<? extends Cloudlet> getCloudlets() {
+        return this.cloudletList;
+    }
+
     /**
      * Gets the vm list
      *
@@ -104,4 +162,64 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
     public List getScheduledList() {
         return this.scheduledList;
     }
+
+    /**
+     * Adds the jobs that have arrived to the jobs to be scheduled.
+     *
+     * @param list the jobs
+     */
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        this.pendingList.addAll(list);
+    }
+
+    /**
+     * Sets a vm idle once its job has returned.
+     *
+     * @param vm the vm
+     */
+    @Override
+    public void onVmIdle(CondorVM vm) {
+        getIdleVmIndex().setIdle(vm);
+    }
+
+    /**
+     * Schedules the jobs that can be submitted now. By default run() is called
+     * on the jobs that have arrived and have not been scheduled yet, and the
+     * scheduled ones are taken out of them in one pass.
+     *
+     * @return the scheduled jobs, with their vm set
+     * @throws Exception if the algorithm fails
+     */
+    @Override
+    public List<Cloudlet> nextAssignments() throws Exception {
+        this.scheduledList.clear();
+        setCloudletList(this.pendingList);
+        run();
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>(this.scheduledList);
+        this.scheduledList.clear();
+        if (!scheduled.isEmpty()) {
+            Set<Cloudlet> done = Collections.newSetFromMap(new IdentityHashMap<Cloudlet, Boolean>());
+            done.addAll(scheduled);
+            List<Cloudlet> pending = new ArrayList<Cloudlet>(this.pendingList.size() - done.size());
+            for (Cloudlet cloudlet : this.pendingList) {
+                if (!done.contains(cloudlet)) {
+                    pending.add(cloudlet);
+                }
+            }
+            this.pendingList = pending;
+        }
+        return scheduled;
+    }
+
+    /**
+     * Gets the jobs that have arrived and have not been scheduled yet, in the
+     * order they arrived. The list is a copy.
+     *
+     * @return the pending jobs
+     */
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return new ArrayList<Cloudlet>(this.pendingList);
+    }
 }
@@ -0,0 +1,305 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * CloudletQueue orders jobs by their length, shortest or longest first, or by
+ * their id. The jobs with the same key come out in the order they were added.
+ * It is a binary heap over primitive keys: filling it with a job list costs
+ * O(n), adding or taking out a job O(log n). The arrays are kept and reused
+ * as the queue is emptied and filled again.
+ *
+ * @date Oct 18, 2026
+ */
+class CloudletQueue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The orders of a queue.
+     */
+    enum Order {
+
+        SHORTEST_FIRST, LONGEST_FIRST, ID
+    }
+    /**
+     * The order of the jobs.
+     */
+    private final Order order;
+    /**
+     * The jobs, in heap order.
+     */
+    private Cloudlet[] cloudlets = new Cloudlet[0];
+    /**
+     * The key of each job, in heap order.
+     */
+    private long[] keys = new long[0];
+    /**
+     * The number of each job in the order the jobs were added, in heap order.
+     */
+    private long[] sequences = new long[0];
+    /**
+     * The number of jobs in the heap.
+     */
+    private int size;
+    /**
+     * The number of the next job added.
+     */
+    private long sequence;
+
+    /**
+     * Initialize a CloudletQueue.
+     *
+     * @param order the order of the jobs
+     */
+    CloudletQueue(Order order) {
+        this.order = order;
+    }
+
+    /**
+     * Empties the queue and fills it with the jobs of a job list.
+     *
+     * @param list the job list
+     */
+    void reset(List<? extends Cloudlet> list) {
+        int count = list.size();
+        clear();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            Cloudlet cloudlet = list.get(i);
+            this.cloudlets[i] = cloudlet;
+            this.keys[i] = key(cloudlet);
+            this.sequences[i] = this.sequence++;
+        }
+        this.size = count;
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(i, this.cloudlets[i], this.keys[i], this.sequences[i]);
+        }
+    }
+
+    /**
+     * Adds the jobs of a job list to the queue.
+     *
+     * @param list the job list
+     */
+    void addAll(List<? extends Cloudlet> list) {
+        ensureCapacity(this.size + list.size());
+        for (Cloudlet cloudlet : list) {
+            add(cloudlet);
+        }
+    }
+
+    /**
+     * Adds a job to the queue.
+     *
+     * @param cloudlet the job
+     */
+    void add(Cloudlet cloudlet) {
+        ensureCapacity(this.size + 1);
+        siftUp(this.size++, cloudlet, key(cloudlet), this.sequence++);
+    }
+
+    /**
+     * Empties the queue.
+     */
+    void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.cloudlets[i] = null;
+        }
+        this.size = 0;
+        this.sequence = 0;
+    }
+
+    /**
+     * Gets the number of jobs in the queue.
+     *
+     * @return the number of jobs
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the first job of the queue.
+     *
+     * @return the job
+     */
+    Cloudlet peek() {
+        return this.cloudlets[0];
+    }
+
+    /**
+     * Takes the first job out of the queue.
+     *
+     * @return the job
+     */
+    Cloudlet poll() {
+        Cloudlet first = this.cloudlets[0];
+        int last = --this.size;
+        if (last > 0) {
+            siftDown(0, this.cloudlets[last], this.keys[last], this.sequences[last]);
+        }
+        this.cloudlets[last] = null;
+        return first;
+    }
+
+    /**
+     * Gets the jobs of the queue, in the order they would be taken out.
+     *
+     * @return the jobs
+     */
+    List<Cloudlet> toList() {
+        Integer[] slots = new Integer[this.size];
+        for (int i = 0; i < this.size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer s1, Integer s2) {
+                if (s1.intValue() == s2.intValue()) {
+                    return 0;
+                }
+                return before(s1, keys[s2], sequences[s2]) ? -1 : 1;
+            }
+        });
+        List<Cloudlet> list = new ArrayList<Cloudlet>(this.size);
+        for (Integer slot : slots) {
+            list.add(this.cloudlets[slot]);
+        }
+        return list;
+    }
+
+    /**
+     * Gets the key of a job. The jobs with the smallest key come first.
+     *
+     * @param cloudlet the job
+     * @return the key
+     */
+    private long key(Cloudlet cloudlet) {
+        switch (this.order) {
+            case SHORTEST_FIRST:
+                return cloudlet.getCloudletLength();
+            case LONGEST_FIRST:
+                return -cloudlet.getCloudletLength();
+            default:
+                return cloudlet.getCloudletId();
+        }
+    }
+
+    /**
+     * Makes room for a number of jobs.
+     *
+     * @param capacity the number of jobs
+     */
+    private void ensureCapacity(int capacity) {
+        if (this.cloudlets.length < capacity) {
+            int length = Math.max(capacity, this.cloudlets.length * 2);
+            Cloudlet[] cloudlets = new Cloudlet[length];
+            long[] keys = new long[length];
+            long[] sequences = new long[length];
+            System.arraycopy(this.cloudlets, 0, cloudlets, 0, this.size);
+            System.arraycopy(this.keys, 0, keys, 0, this.size);
+            System.arraycopy(this.sequences, 0, sequences, 0, this.size);
+            this.cloudlets = cloudlets;
+            this.keys = keys;
+            this.sequences = sequences;
+        }
+    }
+
+    /**
+     * Whether the job in a slot comes before a given job.
+     *
+     * @param slot the slot
+     * @param key the key of the job
+     * @param sequence the number of the job
+     * @return true if the job in the slot comes first
+     */
+    private boolean before(int slot, long key, long sequence) {
+        if (this.keys[slot] != key) {
+            return this.keys[slot] < key;
+        }
+        return this.sequences[slot] < sequence;
+    }
+
+    /**
+     * Moves a job from one slot to another.
+     *
+     * @param from the slot the job is in
+     * @param to the slot the job goes to
+     */
+    private void move(int from, int to) {
+        this.cloudlets[to] = this.cloudlets[from];
+        this.keys[to] = this.keys[from];
+        this.sequences[to] = this.sequences[from];
+    }
+
+    /**
+     * Puts a job in a slot.
+     */
+    private void put(int slot, Cloudlet cloudlet, long key, long sequence) {
+        this.cloudlets[slot] = cloudlet;
+        this.keys[slot] = key;
+        this.sequences[slot] = sequence;
+    }
+
+    /**
+     * Moves a job up the heap to its place.
+     *
+     * @param slot the slot to start from
+     */
+    private void siftUp(int slot, Cloudlet cloudlet, long key, long sequence) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (before(parent, key, sequence)) {
+                break;
+            }
+            move(parent, slot);
+            slot = parent;
+        }
+        put(slot, cloudlet, key, sequence);
+    }
+
+    /**
+     * Moves a job down the heap to its place.
+     *
+     * @param slot the slot to start from
+     */
+    private void siftDown(int slot, Cloudlet cloudlet, long key, long sequence) {
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= this.size) {
+                break;
+            }
+            if (child + 1 < this.size
+                    && before(child + 1, this.keys[child], this.sequences[child])) {
+                child++;
+            }
+            if (!before(child, key, sequence)) {
+                break;
+            }
+            move(child, slot);
+            slot = child;
+        }
+        put(slot, cloudlet, key, sequence);
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
@@ -22,7 +24,6 @@ import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
-import org.workflowsim.WorkflowSimTags;
 import org.workflowsim.utils.Parameters.FileType;
 import org.workflowsim.utils.ReplicaCatalog;
 
@@ -36,10 +37,17 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public DataAwareSchedulingAlgorithm() {
         super();
     }
 
+    /**
+     * The jobs that have arrived and have not been scheduled yet.
+     */
+    private final ArrayDeque<Cloudlet> pending = new ArrayDeque<Cloudlet>();
+
     @Override
     public void run() {
 
@@ -49,41 +57,63 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         for (int i = 0; i < size; i++) {
 
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-
-            int vmSize = getVmList().size();
-            CondorVM closestVm = null;//(CondorVM)getVmList().get(0);
-            double minTime = Double.MAX_VALUE;
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                   
-                    
-                    Job job = (Job)cloudlet;
-                    double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
-                    if(time < minTime){
-                        minTime = time;
-                        closestVm = vm;
-                    }
-                    
-                }
+            if (!schedule(cloudlet, getScheduledList())) {
+                break;
             }
 
-            if(closestVm!=null){
-                closestVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                cloudlet.setVmId(closestVm.getId());
-                getScheduledList().add(cloudlet);
-            
-            
-            
-            Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
-                    + cloudlet.getCloudletLength() + " to VM " + closestVm.getId() 
-                    +" with " + closestVm.getCurrentRequestedTotalMips() + " and data is " + minTime);
-            }
+        }
 
+    }
+
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
+
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        while (!pending.isEmpty() && schedule(pending.peek(), scheduled)) {
+            pending.poll();
+        }
+        return scheduled;
+    }
 
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return new ArrayList<Cloudlet>(pending);
+    }
 
+    /**
+     * Schedules a job to the idle vm that has most of its input data.
+     *
+     * @param cloudlet the job
+     * @param scheduled the scheduled jobs
+     * @return false if no vm is idle
+     */
+    private boolean schedule(Cloudlet cloudlet, List scheduled) {
+        CondorVM closestVm = null;//(CondorVM)getVmList().get(0);
+        double minTime = Double.MAX_VALUE;
+        for (CondorVM vm : getIdleVmIndex().getIdleVms()) {
+            Job job = (Job)cloudlet;
+            double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
+            if(time < minTime){
+                minTime = time;
+                closestVm = vm;
+            }
         }
 
+        if(closestVm==null){
+            return false;
+        }
+        getIdleVmIndex().setBusy(closestVm);
+        cloudlet.setVmId(closestVm.getId());
+        scheduled.add(cloudlet);
+
+        Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
+                + cloudlet.getCloudletLength() + " to VM " + closestVm.getId() 
+                +" with " + closestVm.getCurrentRequestedTotalMips() + " and data is " + minTime);
+        return true;
     }
     
        /**
@@ -132,23 +162,8 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
             //The input file is not an output File 
             if (isRealInputFile(requiredFiles, file)) {
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    
-                }
-
-                boolean hasFile = false;
-                for (Iterator it = siteList.iterator(); it.hasNext();) {
-                    //site is where one replica of this data is located at
-                    String site = (String) it.next();
-
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-
-                }
-                if(!hasFile){
+                //whether one replica of this data is located at the vm
+                if (!ReplicaCatalog.hasReplica(ReplicaCatalog.getFileId(file), vmId)) {
                     time += file.getSize() ;
                 }
 
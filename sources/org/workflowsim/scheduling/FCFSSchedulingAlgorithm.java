@@ -15,10 +15,12 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * The FCFS algorithm. 
@@ -29,6 +31,13 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The jobs that have arrived and have not been scheduled yet.
+     */
+    private final ArrayDeque<Cloudlet> pending = new ArrayDeque<Cloudlet>();
+
     /**
      * The main function
      */
@@ -38,25 +47,49 @@ public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
         for (Iterator it = getCloudletList().iterator(); it.hasNext();) {
             Cloudlet cloudlet = (Cloudlet) it.next();
-            boolean stillHasVm = false;
-            for (Iterator itc = getVmList().iterator(); itc.hasNext();) {
-
-                CondorVM vm = (CondorVM) itc.next();
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    stillHasVm = true;
-                    vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                    cloudlet.setVmId(vm.getId());
-                    getScheduledList().add(cloudlet);
-                    break;
-                }
-            }
             //no vm available 
-            if (!stillHasVm) {
+            if (!schedule(cloudlet, getScheduledList())) {
                 break;
             }
 
         }
     }
 
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
+
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        while (!pending.isEmpty() && schedule(pending.peek(), scheduled)) {
+            pending.poll();
+        }
+        return scheduled;
+    }
+
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return new ArrayList<Cloudlet>(pending);
+    }
+
+    /**
+     * Schedules a job to the first idle vm.
+     *
+     * @param cloudlet the job
+     * @param scheduled the scheduled jobs
+     * @return false if no vm is idle
+     */
+    private boolean schedule(Cloudlet cloudlet, List scheduled) {
+        CondorVM vm = getIdleVmIndex().getFirstVm();
+        if (vm == null) {
+            return false;
+        }
+        getIdleVmIndex().setBusy(vm);
+        cloudlet.setVmId(vm.getId());
+        scheduled.add(cloudlet);
+        return true;
+    }
 
 }
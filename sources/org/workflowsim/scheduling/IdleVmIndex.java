@@ -0,0 +1,432 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * IdleVmIndex keeps the idle vms of a vm list, so that a scheduling algorithm
+ * does not walk the whole vm list for every job. The idle vms are bucketed by
+ * their mips (getCurrentRequestedTotalMips) and the buckets are kept in a
+ * max-heap, so the fastest idle vm and the first idle vm in the list are both
+ * found in O(log V). Among the vms with the same mips the one that comes first
+ * in the vm list is chosen, as the scheduling algorithms always did.
+ *
+ * The vms should be set busy or idle through setBusy and setIdle. A vm set
+ * busy directly is dropped from the index the next time it is looked up.
+ *
+ * @date Oct 18, 2026
+ */
+public class IdleVmIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The vms, by position in the vm list.
+     */
+    private final List<CondorVM> vms;
+    /**
+     * The position of a vm, by vm id.
+     */
+    private final Map<Integer, Integer> positions;
+    /**
+     * The positions of the idle vms.
+     */
+    private final BitSet idle;
+    /**
+     * The mips class of each idle vm, by position.
+     */
+    private final MipsClass[] classOf;
+    /**
+     * The mips classes, by mips.
+     */
+    private final Map<Double, MipsClass> classes;
+    /**
+     * The max-heap of the mips classes that have idle vms.
+     */
+    private MipsClass[] classHeap;
+    /**
+     * The number of mips classes in the heap.
+     */
+    private int classCount;
+    /**
+     * The slots of the idle vms in the heap of their mips class, by position.
+     */
+    private final int[] classSlots;
+    /**
+     * The heap of all the idle vms, in the order of the vm list.
+     */
+    private final PositionHeap first;
+
+    /**
+     * Initialize an IdleVmIndex with the idle vms of a vm list.
+     *
+     * @param list the vm list
+     */
+    public IdleVmIndex(List<? extends Vm> list) {
+        int size = list.size();
+        this.vms = new ArrayList<CondorVM>(size);
+        this.positions = new HashMap<Integer, Integer>();
+        this.idle = new BitSet(size);
+        this.classOf = new MipsClass[size];
+        this.classes = new HashMap<Double, MipsClass>();
+        this.classHeap = new MipsClass[4];
+        this.classSlots = new int[size];
+        this.first = new PositionHeap(size, new int[size]);
+        for (int i = 0; i < size; i++) {
+            CondorVM vm = (CondorVM) list.get(i);
+            this.vms.add(vm);
+            this.positions.put(vm.getId(), i);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                add(i);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of vms indexed, idle or not.
+     *
+     * @return the number of vms
+     */
+    public int getVmCount() {
+        return this.vms.size();
+    }
+
+    /**
+     * Gets the fastest idle vm, the first one in the vm list among the vms
+     * with the same mips.
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    public CondorVM getFastestVm() {
+        while (this.classCount > 0) {
+            int position = this.classHeap[0].heap.peek();
+            CondorVM vm = this.vms.get(position);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                return vm;
+            }
+            remove(position);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the first idle vm in the vm list.
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    public CondorVM getFirstVm() {
+        while (this.first.size() > 0) {
+            int position = this.first.peek();
+            CondorVM vm = this.vms.get(position);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                return vm;
+            }
+            remove(position);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the idle vms, in the order of the vm list.
+     *
+     * @return the idle vms
+     */
+    public List<CondorVM> getIdleVms() {
+        List<CondorVM> list = new ArrayList<CondorVM>(this.first.size());
+        for (int i = this.idle.nextSetBit(0); i >= 0; i = this.idle.nextSetBit(i + 1)) {
+            CondorVM vm = this.vms.get(i);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                list.add(vm);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Sets a vm busy and removes it from the index.
+     *
+     * @param vm the vm
+     */
+    public void setBusy(CondorVM vm) {
+        vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+        Integer position = this.positions.get(vm.getId());
+        if (position != null) {
+            remove(position);
+        }
+    }
+
+    /**
+     * Sets a vm idle and adds it to the index. The mips of the vm is read
+     * again, in case it has changed since the vm was last idle.
+     *
+     * @param vm the vm
+     */
+    public void setIdle(CondorVM vm) {
+        vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        Integer position = this.positions.get(vm.getId());
+        if (position != null) {
+            remove(position);
+            add(position);
+        }
+    }
+
+    /**
+     * Adds an idle vm to the heaps.
+     *
+     * @param position the position of the vm
+     */
+    private void add(int position) {
+        double mips = this.vms.get(position).getCurrentRequestedTotalMips();
+        MipsClass mipsClass = this.classes.get(mips);
+        if (mipsClass == null) {
+            mipsClass = new MipsClass(mips, new PositionHeap(4, this.classSlots));
+            this.classes.put(mips, mipsClass);
+        }
+        mipsClass.heap.add(position);
+        if (mipsClass.slot < 0) {
+            addClass(mipsClass);
+        }
+        this.classOf[position] = mipsClass;
+        this.first.add(position);
+        this.idle.set(position);
+    }
+
+    /**
+     * Removes a vm from the heaps if it is there.
+     *
+     * @param position the position of the vm
+     */
+    private void remove(int position) {
+        if (!this.idle.get(position)) {
+            return;
+        }
+        MipsClass mipsClass = this.classOf[position];
+        mipsClass.heap.remove(position);
+        if (mipsClass.heap.size() == 0) {
+            removeClass(mipsClass);
+        }
+        this.classOf[position] = null;
+        this.first.remove(position);
+        this.idle.clear(position);
+    }
+
+    /**
+     * Adds a mips class to the class heap.
+     *
+     * @param mipsClass the mips class
+     */
+    private void addClass(MipsClass mipsClass) {
+        if (this.classCount == this.classHeap.length) {
+            MipsClass[] heap = new MipsClass[this.classCount * 2];
+            System.arraycopy(this.classHeap, 0, heap, 0, this.classCount);
+            this.classHeap = heap;
+        }
+        int slot = this.classCount++;
+        this.classHeap[slot] = mipsClass;
+        mipsClass.slot = slot;
+        siftClassUp(slot);
+    }
+
+    /**
+     * Removes a mips class from the class heap.
+     *
+     * @param mipsClass the mips class
+     */
+    private void removeClass(MipsClass mipsClass) {
+        int slot = mipsClass.slot;
+        mipsClass.slot = -1;
+        MipsClass last = this.classHeap[--this.classCount];
+        this.classHeap[this.classCount] = null;
+        if (slot < this.classCount) {
+            this.classHeap[slot] = last;
+            last.slot = slot;
+            siftClassDown(slot);
+            siftClassUp(last.slot);
+        }
+    }
+
+    /**
+     * Moves a mips class up the class heap to its place.
+     *
+     * @param slot the slot of the mips class
+     */
+    private void siftClassUp(int slot) {
+        MipsClass mipsClass = this.classHeap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (this.classHeap[parent].mips >= mipsClass.mips) {
+                break;
+            }
+            this.classHeap[slot] = this.classHeap[parent];
+            this.classHeap[slot].slot = slot;
+            slot = parent;
+        }
+        this.classHeap[slot] = mipsClass;
+        mipsClass.slot = slot;
+    }
+
+    /**
+     * Moves a mips class down the class heap to its place.
+     *
+     * @param slot the slot of the mips class
+     */
+    private void siftClassDown(int slot) {
+        MipsClass mipsClass = this.classHeap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= this.classCount) {
+                break;
+            }
+            if (child + 1 < this.classCount
+                    && this.classHeap[child + 1].mips > this.classHeap[child].mips) {
+                child++;
+            }
+            if (this.classHeap[child].mips <= mipsClass.mips) {
+                break;
+            }
+            this.classHeap[slot] = this.classHeap[child];
+            this.classHeap[slot].slot = slot;
+            slot = child;
+        }
+        this.classHeap[slot] = mipsClass;
+        mipsClass.slot = slot;
+    }
+
+    /**
+     * The idle vms that have the same mips.
+     */
+    private static class MipsClass implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The mips of the vms.
+         */
+        final double mips;
+        /**
+         * The positions of the vms.
+         */
+        final PositionHeap heap;
+        /**
+         * The slot of this class in the class heap, -1 if it is not there.
+         */
+        int slot = -1;
+
+        MipsClass(double mips, PositionHeap heap) {
+            this.mips = mips;
+            this.heap = heap;
+        }
+    }
+
+    /**
+     * A min-heap of vm positions that can remove any position. The slot of
+     * each position in the heap is kept in an array that may be shared by
+     * heaps that never hold the same position.
+     */
+    private static class PositionHeap implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The positions.
+         */
+        private int[] items;
+        /**
+         * The number of positions.
+         */
+        private int size;
+        /**
+         * The slot of each position.
+         */
+        private final int[] slots;
+
+        PositionHeap(int capacity, int[] slots) {
+            this.items = new int[Math.max(capacity, 1)];
+            this.slots = slots;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        int peek() {
+            return this.items[0];
+        }
+
+        void add(int position) {
+            if (this.size == this.items.length) {
+                int[] items = new int[this.size * 2];
+                System.arraycopy(this.items, 0, items, 0, this.size);
+                this.items = items;
+            }
+            siftUp(this.size++, position);
+        }
+
+        void remove(int position) {
+            int slot = this.slots[position];
+            int last = this.items[--this.size];
+            if (slot < this.size) {
+                siftDown(slot, last);
+                if (this.items[slot] == last) {
+                    siftUp(slot, last);
+                }
+            }
+        }
+
+        private void siftUp(int slot, int position) {
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (this.items[parent] <= position) {
+                    break;
+                }
+                this.items[slot] = this.items[parent];
+                this.slots[this.items[slot]] = slot;
+                slot = parent;
+            }
+            this.items[slot] = position;
+            this.slots[position] = slot;
+        }
+
+        private void siftDown(int slot, int position) {
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= this.size) {
+                    break;
+                }
+                if (child + 1 < this.size && this.items[child + 1] < this.items[child]) {
+                    child++;
+                }
+                if (this.items[child] >= position) {
+                    break;
+                }
+                this.items[slot] = this.items[child];
+                this.slots[this.items[slot]] = slot;
+                slot = child;
+            }
+            this.items[slot] = position;
+            this.slots[position] = slot;
+        }
+    }
+}
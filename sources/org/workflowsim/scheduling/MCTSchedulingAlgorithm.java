@@ -15,10 +15,12 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MCT algorithm
@@ -29,10 +31,17 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public MCTSchedulingAlgorithm() {
         super();
     }
 
+    /**
+     * The jobs that have arrived and have not been scheduled yet.
+     */
+    private final ArrayDeque<Cloudlet> pending = new ArrayDeque<Cloudlet>();
+
     @Override
     public void run() {
 
@@ -41,37 +50,49 @@ public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
         for (int i = 0; i < size; i++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
-            if (firstIdleVm == null) {
+            if (!schedule(cloudlet, getScheduledList())) {
                 break;
             }
+        }
+    }
 
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-            cloudlet.setVmId(firstIdleVm.getId());
-            getScheduledList().add(cloudlet);
-            Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
-                    + cloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
-                    + " with " + firstIdleVm.getCurrentRequestedTotalMips());
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
 
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        while (!pending.isEmpty() && schedule(pending.peek(), scheduled)) {
+            pending.poll();
+        }
+        return scheduled;
+    }
 
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return new ArrayList<Cloudlet>(pending);
+    }
 
+    /**
+     * Schedules a job to the fastest idle vm.
+     *
+     * @param cloudlet the job
+     * @param scheduled the scheduled jobs
+     * @return false if no vm is idle
+     */
+    private boolean schedule(Cloudlet cloudlet, List scheduled) {
+        CondorVM firstIdleVm = getIdleVmIndex().getFastestVm();
+        if (firstIdleVm == null) {
+            return false;
         }
+        getIdleVmIndex().setBusy(firstIdleVm);
+        cloudlet.setVmId(firstIdleVm.getId());
+        scheduled.add(cloudlet);
+        Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
+                + cloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
+                + " with " + firstIdleVm.getCurrentRequestedTotalMips());
+        return true;
     }
 }
@@ -20,7 +20,6 @@ import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MaxMin algorithm.
@@ -31,6 +30,8 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a MaxMin scheduler.
      */
@@ -38,78 +39,59 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
     /**
-     * the check point list.
+     * the job list of run(), longest first.
+     */
+    private final CloudletQueue queue = new CloudletQueue(CloudletQueue.Order.LONGEST_FIRST);
+    /**
+     * the jobs that have arrived and have not been scheduled yet, longest
+     * first.
      */
-    private List hasChecked = new ArrayList<Boolean>();
+    private final CloudletQueue pending = new CloudletQueue(CloudletQueue.Order.LONGEST_FIRST);
 
     @Override
     public void run() {
 
 
         //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            boolean chk = false;
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-                if (!chk) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
+        queue.reset(getCloudlets());
+        schedule(queue, getScheduledList());
+        queue.clear();
+    }
 
-                if (chk) {
-                    continue;
-                }
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
 
-                long length = cloudlet.getCloudletLength();
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        schedule(pending, scheduled);
+        return scheduled;
+    }
 
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return pending.toList();
+    }
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+    /**
+     * Schedules the jobs of a queue, in order, to the fastest idle vms.
+     *
+     * @param jobs the jobs
+     * @param scheduled the scheduled jobs
+     */
+    private void schedule(CloudletQueue jobs, List scheduled) {
+        while (jobs.size() > 0) {
+            //the fastest idle vm
+            CondorVM firstIdleVm = getIdleVmIndex().getFastestVm();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet maxCloudlet = jobs.poll();
+            getIdleVmIndex().setBusy(firstIdleVm);
             maxCloudlet.setVmId(firstIdleVm.getId());
-            getScheduledList().add(maxCloudlet);
+            scheduled.add(maxCloudlet);
             Log.printLine("Schedules " + maxCloudlet.getCloudletId() + " with "
                     + maxCloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
                     + " with " + firstIdleVm.getCurrentRequestedTotalMips());
@@ -19,7 +19,6 @@ import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MinMin algorithm.
@@ -30,76 +29,63 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private List hasChecked = new ArrayList<Boolean>();
+    /**
+     * the job list of run(), shortest first.
+     */
+    private final CloudletQueue queue = new CloudletQueue(CloudletQueue.Order.SHORTEST_FIRST);
+    /**
+     * the jobs that have arrived and have not been scheduled yet, shortest
+     * first.
+     */
+    private final CloudletQueue pending = new CloudletQueue(CloudletQueue.Order.SHORTEST_FIRST);
 
     @Override
     public void run() {
 
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-                if (!chk) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
-            }
-            if (minCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
+        queue.reset(getCloudlets());
+        schedule(queue, getScheduledList());
+        queue.clear();
+    }
 
-                if (chk) {
-                    continue;
-                }
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
 
-                long length = cloudlet.getCloudletLength();
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        schedule(pending, scheduled);
+        return scheduled;
+    }
 
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
-            }
-            hasChecked.set(minIndex, true);
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return pending.toList();
+    }
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+    /**
+     * Schedules the jobs of a queue, in order, to the fastest idle vms.
+     *
+     * @param jobs the jobs
+     * @param scheduled the scheduled jobs
+     */
+    private void schedule(CloudletQueue jobs, List scheduled) {
+        while (jobs.size() > 0) {
+            //the fastest idle vm
+            CondorVM firstIdleVm = getIdleVmIndex().getFastestVm();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet minCloudlet = jobs.poll();
+            getIdleVmIndex().setBusy(firstIdleVm);
             minCloudlet.setVmId(firstIdleVm.getId());
-            getScheduledList().add(minCloudlet);
+            scheduled.add(minCloudlet);
 
         }
     }
@@ -15,12 +15,12 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * The Round Robin algorithm.
@@ -31,6 +31,26 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The jobs that have arrived and have not been scheduled yet, by id.
+     */
+    private final CloudletQueue pending = new CloudletQueue(CloudletQueue.Order.ID);
+
+    /**
+     * Sets the vm list, sorted by vm id, so that the idle vms are taken in the
+     * order of their ids.
+     *
+     * @param list the vm list
+     */
+    @Override
+    public void setVmList(List list) {
+        List vmList = new ArrayList(list);
+        Collections.sort(vmList, new VmListComparator());
+        super.setVmList(vmList);
+    }
+
     /**
      * The main function
      */
@@ -40,30 +60,54 @@ public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         
         int size = getCloudletList().size();
         Collections.sort(getCloudletList(), new CloudletListComparator());
-        List vmList = getVmList();
-        Collections.sort(vmList, new VmListComparator());
         for (int j = 0; j < size; j++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-            int vmSize = vmList.size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int l = 0; l < vmSize; l++) {
-                CondorVM vm = (CondorVM) vmList.get(l);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
-            if (firstIdleVm == null) {
+            if (!schedule(cloudlet, getScheduledList())) {
                 break;
             }
-            ((CondorVM) firstIdleVm).setState(WorkflowSimTags.VM_STATUS_BUSY);
-            cloudlet.setVmId(firstIdleVm.getId());
-            getScheduledList().add(cloudlet);
-            vmIndex = (vmIndex + 1) % vmList.size();
+            vmIndex = (vmIndex + 1) % getVmList().size();
+
+        }
 
+    }
+
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        pending.addAll(list);
+    }
+
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+        while (pending.size() > 0 && schedule(pending.peek(), scheduled)) {
+            pending.poll();
         }
+        return scheduled;
+    }
 
+    @Override
+    public List<Cloudlet> getPendingList() {
+        return pending.toList();
     }
+
+    /**
+     * Schedules a job to the idle vm with the smallest id.
+     *
+     * @param cloudlet the job
+     * @param scheduled the scheduled jobs
+     * @return false if no vm is idle
+     */
+    private boolean schedule(Cloudlet cloudlet, List scheduled) {
+        CondorVM firstIdleVm = getIdleVmIndex().getFirstVm();
+        if (firstIdleVm == null) {
+            return false;
+        }
+        getIdleVmIndex().setBusy(firstIdleVm);
+        cloudlet.setVmId(firstIdleVm.getId());
+        scheduled.add(cloudlet);
+        return true;
+    }
+
     /**
      * Sort it based on vm index
      */
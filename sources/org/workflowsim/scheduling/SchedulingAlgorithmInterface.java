@@ -16,6 +16,8 @@
 package org.workflowsim.scheduling;
 
 import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.workflowsim.CondorVM;
 
 /**
  * The Scheduler interface
@@ -55,4 +57,24 @@ public interface SchedulingAlgorithmInterface {
      * Gets the scheduled jobs.
      */
     public List getScheduledList();
+
+    /**
+     * Adds jobs that have arrived to be scheduled.
+     */
+    public void onCloudletsArrived(List<? extends Cloudlet> list);
+
+    /**
+     * Sets a vm idle once its job has returned.
+     */
+    public void onVmIdle(CondorVM vm);
+
+    /**
+     * Schedules the jobs that can be submitted now.
+     */
+    public List<Cloudlet> nextAssignments() throws Exception;
+
+    /**
+     * Gets the jobs that have arrived and have not been scheduled yet.
+     */
+    public List<Cloudlet> getPendingList();
 }
@@ -15,7 +15,13 @@
  */
 package org.workflowsim.scheduling;
 
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
@@ -34,14 +40,153 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public StaticSchedulingAlgorithm() {
         super();
     }
 
+    /**
+     * The vms by id, built at the first pass.
+     */
+    private Map<Integer, CondorVM> vms;
+    /**
+     * The jobs waiting for each vm, by vm id, in the order they arrived.
+     */
+    private final Map<Integer, ArrayDeque<Waiting>> waiting = new HashMap<Integer, ArrayDeque<Waiting>>();
+    /**
+     * The jobs that have arrived since the last pass.
+     */
+    private final List<Cloudlet> arrived = new ArrayList<Cloudlet>();
+    /**
+     * The vms that have become idle since the last pass.
+     */
+    private final List<CondorVM> released = new ArrayList<CondorVM>();
+    /**
+     * The number of the next job that waits.
+     */
+    private long sequence;
+    /**
+     * Orders the waiting jobs as they arrived.
+     */
+    private static final Comparator<Waiting> ARRIVAL_ORDER = new Comparator<Waiting>() {
+        @Override
+        public int compare(Waiting w1, Waiting w2) {
+            return Long.compare(w1.sequence, w2.sequence);
+        }
+    };
+
     @Override
     public void run() throws Exception {
 
-        Map mId2Vm = new HashMap<Integer, CondorVM>();
+        Map<Integer, CondorVM> mId2Vm = getVmsById();
+
+        int size = getCloudletList().size();
+
+        for (int i = 0; i < size; i++) {
+            Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
+            CondorVM vm = getVm(cloudlet, mId2Vm);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                schedule(cloudlet, vm, getScheduledList());
+            }
+        }
+    }
+
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        this.vms = null;
+    }
+
+    @Override
+    public void onCloudletsArrived(List<? extends Cloudlet> list) {
+        arrived.addAll(list);
+    }
+
+    @Override
+    public void onVmIdle(CondorVM vm) {
+        super.onVmIdle(vm);
+        released.add(vm);
+    }
+
+    /**
+     * Schedules the jobs whose vm is idle. The jobs that waited for the vms
+     * released since the last pass come first, then the jobs that have just
+     * arrived, all in the order they arrived, as run() does on the whole job
+     * list.
+     *
+     * @return the scheduled jobs
+     */
+    @Override
+    public List<Cloudlet> nextAssignments() {
+        if (vms == null) {
+            vms = getVmsById();
+        }
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>();
+
+        List<Waiting> heads = new ArrayList<Waiting>();
+        for (CondorVM vm : released) {
+            ArrayDeque<Waiting> queue = waiting.get(vm.getId());
+            if (queue != null && !queue.isEmpty()) {
+                heads.add(queue.peek());
+            }
+        }
+        released.clear();
+        Collections.sort(heads, ARRIVAL_ORDER);
+        for (Waiting head : heads) {
+            CondorVM vm = vms.get(head.cloudlet.getVmId());
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                waiting.get(vm.getId()).poll();
+                schedule(head.cloudlet, vm, scheduled);
+            }
+        }
+
+        for (Cloudlet cloudlet : arrived) {
+            CondorVM vm = getVm(cloudlet, vms);
+            ArrayDeque<Waiting> queue = waiting.get(vm.getId());
+            if ((queue == null || queue.isEmpty())
+                    && vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                schedule(cloudlet, vm, scheduled);
+            } else {
+                if (queue == null) {
+                    queue = new ArrayDeque<Waiting>();
+                    waiting.put(vm.getId(), queue);
+                }
+                queue.add(new Waiting(cloudlet, sequence++));
+            }
+        }
+        arrived.clear();
+        return scheduled;
+    }
+
+    /**
+     * Gets the jobs that have arrived and have not been scheduled yet, in the
+     * order they arrived.
+     *
+     * @return the pending jobs
+     */
+    @Override
+    public List<Cloudlet> getPendingList() {
+        List<Waiting> queued = new ArrayList<Waiting>();
+        for (ArrayDeque<Waiting> queue : waiting.values()) {
+            queued.addAll(queue);
+        }
+        Collections.sort(queued, ARRIVAL_ORDER);
+        List<Cloudlet> pending = new ArrayList<Cloudlet>(queued.size() + arrived.size());
+        for (Waiting w : queued) {
+            pending.add(w.cloudlet);
+        }
+        pending.addAll(arrived);
+        return pending;
+    }
+
+    /**
+     * Gets the vms of the vm list by id.
+     *
+     * @return the vms by id
+     */
+    private Map<Integer, CondorVM> getVmsById() {
+        Map<Integer, CondorVM> mId2Vm = new HashMap<Integer, CondorVM>();
 
         for (int i = 0; i < getVmList().size(); i++) {
             CondorVM vm = (CondorVM) getVmList().get(i);
@@ -49,29 +194,64 @@ public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
                 mId2Vm.put(vm.getId(), vm);
             }
         }
+        return mId2Vm;
+    }
 
-        int size = getCloudletList().size();
+    /**
+     * Gets the vm a job has been matched to.
+     *
+     * @param cloudlet the job
+     * @param mId2Vm the vms by id
+     * @return the vm
+     */
+    private CondorVM getVm(Cloudlet cloudlet, Map<Integer, CondorVM> mId2Vm) {
+        /**
+         * Make sure cloudlet is matched to a VM. It should be done in the
+         * Workflow Planner. If not, throws an exception because
+         * StaticSchedulingAlgorithm itself does not do the mapping.
+         */
+        if (cloudlet.getVmId() < 0 || !mId2Vm.containsKey(cloudlet.getVmId())) {
+            Log.printLine("Cloudlet " + cloudlet.getCloudletId() + " is not matched."
+                    + "It is possible a stage-in job");
+            cloudlet.setVmId(0);
 
-        for (int i = 0; i < size; i++) {
-            Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            /**
-             * Make sure cloudlet is matched to a VM. It should be done in the
-             * Workflow Planner. If not, throws an exception because
-             * StaticSchedulingAlgorithm itself does not do the mapping.
-             */
-            if (cloudlet.getVmId() < 0 || !mId2Vm.containsKey(cloudlet.getVmId())) {
-                Log.printLine("Cloudlet " + cloudlet.getCloudletId() + " is not matched."
-                        + "It is possible a stage-in job");
-                cloudlet.setVmId(0);
+        }
+        return mId2Vm.get(cloudlet.getVmId());
+    }
 
-            }
-            CondorVM vm = (CondorVM) mId2Vm.get(cloudlet.getVmId());
-            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                getScheduledList().add(cloudlet);
-                Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
-                        + cloudlet.getCloudletLength() + " to VM " + cloudlet.getVmId());
-            }
+    /**
+     * Schedules a job to its vm.
+     *
+     * @param cloudlet the job
+     * @param vm the vm, idle
+     * @param scheduled the scheduled jobs
+     */
+    private void schedule(Cloudlet cloudlet, CondorVM vm, List scheduled) {
+        getIdleVmIndex().setBusy(vm);
+        scheduled.add(cloudlet);
+        Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
+                + cloudlet.getCloudletLength() + " to VM " + cloudlet.getVmId());
+    }
+
+    /**
+     * A job waiting for its vm.
+     */
+    private static class Waiting implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The job.
+         */
+        final Cloudlet cloudlet;
+        /**
+         * The number of the job in the order the jobs arrived.
+         */
+        final long sequence;
+
+        Waiting(Cloudlet cloudlet, long sequence) {
+            this.cloudlet = cloudlet;
+            this.sequence = sequence;
         }
     }
 }
@@ -17,7 +17,9 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Random;
 import org.apache.commons.math3.distribution.GammaDistribution;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
@@ -31,7 +33,9 @@ import org.apache.commons.math3.distribution.WeibullDistribution;
  * @since WorkflowSim Toolkit 1.0
  * @date Mar 11, 2014
  */
-public class DistributionGenerator {
+public class DistributionGenerator implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     protected DistributionFamily dist;
     protected double scale;
@@ -248,6 +252,10 @@ public class DistributionGenerator {
             default:
                 break;
         }
+        Random random = Parameters.getRandom();
+        if (distribution != null && random != null) {
+            distribution.reseedRandomGenerator(random.nextLong());
+        }
         return distribution;
     }
     
@@ -15,12 +15,15 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.List;
+import java.util.Random;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * This class includes most parameters a user can specify in a configuration
- * file
+ * file. The parameters are kept per simulation context.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -89,76 +92,15 @@ public class Parameters {
     
     public static final int BASE = 0;
     
-    /**
-     * Scheduling mode
-     */
-    private static SchedulingAlgorithm schedulingAlgorithm;
-    
-    /**
-     * Planning mode
-     */
-    private static PlanningAlgorithm planningAlgorithm;
-    
-    /**
-     * Reducer mode
-     */
-    private static String reduceMethod;
-    /**
-     * Number of vms available
-     */
-    private static int vmNum;
-    /**
-     * The physical path to DAX file
-     */
-    private static String daxPath;
-    
-    /**
-     * The physical path to DAX files
-     */
-    private static List<String> daxPaths;
-    /**
-     * The physical path to runtime file In the runtime file, please use format
-     * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
-     */
-    private static String runtimePath;
-    /**
-     * The physical path to datasize file In the datasize file, please use
-     * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
-     */
-    private static String datasizePath;
     /**
      * Version number
      */
     private static final String version = "1.1.0";
+    
     /**
      * Note information
      */
     private static final String note = " supports planning algorithm at Nov 9, 2013";
-    /**
-     * Overhead parameters
-     */
-    private static OverheadParameters oParams;
-    /**
-     * Clustering parameters
-     */
-    private static ClusteringParameters cParams;
-    /**
-     * Deadline of a workflow
-     */
-    private static long deadline;
-    
-    /**
-     * the bandwidth from one vm to one vm
-     */
-    private static double[][] bandwidths;
-    
-    
-    /**
-     * The maximum depth. It is inited manually and used in FailureGenerator
-     */
-    private static int maxDepth;
     
     /**
      * Invalid String
@@ -166,14 +108,116 @@ public class Parameters {
     private static String INVALID = "Invalid";
     
     /**
-     * The scale of runtime. Multiple runtime by this
+     * The parameters, kept per simulation context
      */
-    private static double runtime_scale = 1.0;
-    
+    private static final class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Scheduling mode
+         */
+        private SchedulingAlgorithm schedulingAlgorithm;
+
+        /**
+         * Planning mode
+         */
+        private PlanningAlgorithm planningAlgorithm;
+
+        /**
+         * Reducer mode
+         */
+        private String reduceMethod;
+
+        /**
+         * Number of vms available
+         */
+        private int vmNum;
+
+        /**
+         * The physical path to DAX file
+         */
+        private String daxPath;
+
+        /**
+         * The physical path to DAX files
+         */
+        private List<String> daxPaths;
+
+        /**
+         * The physical path to runtime file In the runtime file, please use format
+         * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
+         * runtime in DAX then you don't need to specify this file
+         */
+        private String runtimePath;
+
+        /**
+         * The physical path to datasize file In the datasize file, please use
+         * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
+         * specified datasize in DAX then you don't need to specify this file
+         */
+        private String datasizePath;
+
+        /**
+         * Overhead parameters
+         */
+        private OverheadParameters oParams;
+
+        /**
+         * Clustering parameters
+         */
+        private ClusteringParameters cParams;
+
+        /**
+         * Deadline of a workflow
+         */
+        private long deadline;
+
+        /**
+         * the bandwidth from one vm to one vm
+         */
+        private double[][] bandwidths;
+
+        /**
+         * The maximum depth. It is inited manually and used in FailureGenerator
+         */
+        private int maxDepth;
+
+        /**
+         * The scale of runtime. Multiple runtime by this
+         */
+        private double runtime_scale = 1.0;
+
+        /**
+         * The default cost model is based on datacenter, similar to CloudSim
+         */
+        private CostModel costModel = CostModel.DATACENTER;
+
+        /**
+         * The random generator used to seed the distributions. It is null
+         * unless a seed has been set
+         */
+        private Random random;
+
+        /**
+         * The time the scheduler waits for more jobs before a scheduling pass
+         */
+        private double schedulingWindow = 0.0;
+
+        /**
+         * The longest time a scheduling pass can be put off by the window
+         */
+        private double maxSchedulingDelay = Double.MAX_VALUE;
+    }
+
     /**
-     * The default cost model is based on datacenter, similar to CloudSim
+     * Gets the parameters of the current simulation context
+     *
+     * @return the parameters
      */
-    private static CostModel costModel = CostModel.DATACENTER;
+    private static State state() {
+        return SimulationContext.current().getAttribute(State.class, new State());
+    }
     
     /**
      * A static function so that you can specify them in any place
@@ -199,18 +243,19 @@ public class Parameters {
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
 
-        cParams = cp;
-        vmNum = vm;
-        daxPath = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        State state = state();
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPath = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
     
     /**
@@ -237,18 +282,19 @@ public class Parameters {
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
 
-        cParams = cp;
-        vmNum = vm;
-        daxPaths = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        State state = state();
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPaths = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
 
     /**
@@ -259,7 +305,7 @@ public class Parameters {
      * @post $none
      */
     public static OverheadParameters getOverheadParams() {
-        return oParams;
+        return state().oParams;
     }
 
     
@@ -272,8 +318,8 @@ public class Parameters {
      * @post $none
      */
     public static String getReduceMethod() {
-        if(reduceMethod!=null){
-            return reduceMethod;
+        if(state().reduceMethod!=null){
+            return state().reduceMethod;
         }else{
             return INVALID;
         }
@@ -289,7 +335,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDaxPath() {
-        return daxPath;
+        return state().daxPath;
     }
 
     /**
@@ -300,7 +346,7 @@ public class Parameters {
      * @post $none
      */
     public static String getRuntimePath() {
-        return runtimePath;
+        return state().runtimePath;
     }
 
     /**
@@ -311,7 +357,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDatasizePath() {
-        return datasizePath;
+        return state().datasizePath;
     }
 
     
@@ -323,7 +369,7 @@ public class Parameters {
      * @post $none
      */
     public static int getVmNum() {
-        return vmNum;
+        return state().vmNum;
     }
 
     
@@ -333,7 +379,7 @@ public class Parameters {
      * @return costModel
      */
     public static CostModel getCostModel(){
-        return costModel;
+        return state().costModel;
     }
     
     /**
@@ -344,7 +390,7 @@ public class Parameters {
      * @post $none
      */
     public static void setVmNum(int num) {
-        vmNum = num;
+        state().vmNum = num;
     }
 
     /**
@@ -355,7 +401,7 @@ public class Parameters {
      * @post $none
      */
     public static ClusteringParameters getClusteringParameters() {
-        return cParams;
+        return state().cParams;
     }
 
     /**
@@ -366,7 +412,7 @@ public class Parameters {
      * @post $none
      */
     public static SchedulingAlgorithm getSchedulingAlgorithm() {
-        return schedulingAlgorithm;
+        return state().schedulingAlgorithm;
     }
     
     /**
@@ -375,7 +421,7 @@ public class Parameters {
      * 
      */
     public static PlanningAlgorithm getPlanningAlgorithm() {
-        return planningAlgorithm;
+        return state().planningAlgorithm;
     }
     /**
      * Gets the version
@@ -393,7 +439,7 @@ public class Parameters {
      * Gets the deadline
      */
     public static long getDeadline(){
-    	return deadline;
+    	return state().deadline;
     }
     
     /**
@@ -401,7 +447,7 @@ public class Parameters {
      * @return the maxDepth
      */
     public static int getMaxDepth(){
-        return maxDepth;
+        return state().maxDepth;
     }
     
     /**
@@ -409,7 +455,7 @@ public class Parameters {
      * @param depth the maxDepth
      */
     public static void setMaxDepth(int depth){
-        maxDepth = depth;
+        state().maxDepth = depth;
     }
     
     /**
@@ -417,7 +463,7 @@ public class Parameters {
      * @param scale 
      */
     public static void setRuntimeScale(double scale){
-        runtime_scale = scale;
+        state().runtime_scale = scale;
     }
     
     /**
@@ -425,7 +471,7 @@ public class Parameters {
      * @param model
      */
     public static void setCostModel(CostModel model){
-        costModel = model;
+        state().costModel = model;
     }
     
     /**
@@ -433,7 +479,7 @@ public class Parameters {
      * @return 
      */
     public static double getRuntimeScale(){
-        return runtime_scale;
+        return state().runtime_scale;
     }
     
     /**
@@ -441,6 +487,65 @@ public class Parameters {
      * @return 
      */
     public static List<String> getDAXPaths() {
-        return daxPaths;
+        return state().daxPaths;
+    }
+
+    /**
+     * Sets the random seed. The distributions created afterwards are seeded
+     * from it, so that a simulation can be repeated
+     *
+     * @param seed the seed
+     */
+    public static void setRandomSeed(long seed) {
+        state().random = new Random(seed);
+    }
+
+    /**
+     * Gets the random generator used to seed the distributions
+     *
+     * @return the random generator, or null if no seed has been set
+     */
+    public static Random getRandom() {
+        return state().random;
+    }
+
+    /**
+     * Sets the scheduling window. The scheduler runs a scheduling pass once no
+     * job has returned or been submitted for this long, so that a burst of
+     * jobs is scheduled at once. By default it is 0 and the jobs arriving at
+     * the same time are scheduled together
+     *
+     * @param window the scheduling window
+     */
+    public static void setSchedulingWindow(double window) {
+        state().schedulingWindow = window;
+    }
+
+    /**
+     * Gets the scheduling window
+     *
+     * @return the scheduling window
+     */
+    public static double getSchedulingWindow() {
+        return state().schedulingWindow;
+    }
+
+    /**
+     * Sets the longest time a scheduling pass can be put off by the
+     * scheduling window, counted from the first job waiting for it
+     *
+     * @param delay the maximum scheduling delay
+     */
+    public static void setMaxSchedulingDelay(double delay) {
+        state().maxSchedulingDelay = delay;
+    }
+
+    /**
+     * Gets the maximum scheduling delay
+     *
+     * @return the maximum scheduling delay, Double.MAX_VALUE if unbounded
+     */
+    public static double getMaxSchedulingDelay() {
+        return state().maxSchedulingDelay;
     }
 }
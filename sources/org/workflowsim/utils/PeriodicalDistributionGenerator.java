@@ -27,6 +27,8 @@ import org.apache.commons.math3.distribution.RealDistribution;
  * @author Weiwei Chen
  */
 public class PeriodicalDistributionGenerator extends DistributionGenerator{
+
+    private static final long serialVersionUID = 1L;
     
     /**
      * The periodical signal stored 
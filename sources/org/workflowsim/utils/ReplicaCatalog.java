@@ -17,13 +17,24 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
- * ReplicaCatalog stores all the data information and where (site) there are
+ * ReplicaCatalog stores all the data information and where (site) there are.
+ * The catalog is kept per simulation context.
+ *
+ * The files are interned to dense int ids, which are kept in the registration
+ * id of the File objects, so that the replicas of a file are found without
+ * hashing its name. A site is a VM, whose site id is the VM id, or a named
+ * site such as a datacenter or Parameters.SOURCE, whose site id is negative.
+ * The replicas of a file are kept as bit sets of site ids.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -39,17 +50,94 @@ public class ReplicaCatalog {
         SHARED, LOCAL
     }
     /**
-     * Map from file name to a file object
+     * The state of the catalog, kept per simulation context
      */
-    private static Map FileName2File;
+    private static final class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Map from file name to a file object
+         */
+        private Map<String, org.cloudbus.cloudsim.File> FileName2File;
+        /**
+         * The selection of file.system
+         */
+        private FileSystem fileSystem;
+        /**
+         * Map from file name to file id
+         */
+        private Map<String, Integer> fileIds;
+        /**
+         * The file names, by file id
+         */
+        private List<String> fileNames;
+        /**
+         * The replicas of each file, by file id
+         */
+        private List<Replicas> replicas;
+        /**
+         * Map from the name of a named site to its site id
+         */
+        private Map<String, Integer> siteIds;
+        /**
+         * The names of the named sites, by -1 - site id
+         */
+        private List<String> siteNames;
+    }
+
     /**
-     * The selection of file.system
+     * The sites with a replica of a file.
      */
-    private static FileSystem fileSystem;
+    private static final class Replicas implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The site ids, in the order the replicas were added
+         */
+        private int[] sites = new int[2];
+        /**
+         * The number of sites
+         */
+        private int count;
+        /**
+         * The VMs with a replica
+         */
+        private final BitSet vms = new BitSet();
+        /**
+         * The named sites with a replica, by -1 - site id
+         */
+        private final BitSet named = new BitSet();
+
+        private boolean contains(int site) {
+            return site >= 0 ? vms.get(site) : named.get(-1 - site);
+        }
+
+        private void add(int site) {
+            if (contains(site)) {
+                return;
+            }
+            if (site >= 0) {
+                vms.set(site);
+            } else {
+                named.set(-1 - site);
+            }
+            if (count == sites.length) {
+                sites = Arrays.copyOf(sites, count * 2);
+            }
+            sites[count++] = site;
+        }
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the state of the catalog in the current simulation context
+     *
+     * @return the state
      */
-    private static Map dataReplicaCatalog;
+    private static State state() {
+        return SimulationContext.current().getAttribute(State.class, new State());
+    }
 
     /**
      * Initialize a ReplicaCatalog
@@ -57,9 +145,14 @@ public class ReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap< String, List>();
-        FileName2File = new HashMap<String, org.cloudbus.cloudsim.File>();
+        State state = state();
+        state.fileSystem = fs;
+        state.FileName2File = new HashMap<String, org.cloudbus.cloudsim.File>();
+        state.fileIds = new HashMap<String, Integer>();
+        state.fileNames = new ArrayList<String>();
+        state.replicas = new ArrayList<Replicas>();
+        state.siteIds = new HashMap<String, Integer>();
+        state.siteNames = new ArrayList<String>();
     }
 
     /**
@@ -68,7 +161,7 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return state().fileSystem;
     }
 
     /**
@@ -78,7 +171,7 @@ public class ReplicaCatalog {
      * @return file object
      */
     public static org.cloudbus.cloudsim.File getFile(String fileName) {
-        return (org.cloudbus.cloudsim.File) FileName2File.get(fileName);
+        return state().FileName2File.get(fileName);
     }
 
     /**
@@ -88,7 +181,7 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, org.cloudbus.cloudsim.File file) {
-        FileName2File.put(fileName, file);
+        state().FileName2File.put(fileName, file);
     }
 
     /**
@@ -98,17 +191,191 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return FileName2File.containsKey(fileName);
+        return state().FileName2File.containsKey(fileName);
+    }
+
+    /**
+     * Gets the id of a file name, interning it if needed
+     *
+     * @param fileName the file name
+     * @return the file id
+     */
+    public static int getFileId(String fileName) {
+        State state = state();
+        Integer id = state.fileIds.get(fileName);
+        if (id == null) {
+            id = state.fileNames.size();
+            state.fileIds.put(fileName, id);
+            state.fileNames.add(fileName);
+            state.replicas.add(null);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a file, which is interned once and then kept in its
+     * registration id
+     *
+     * @param file the file object
+     * @return the file id
+     */
+    public static int getFileId(org.cloudbus.cloudsim.File file) {
+        State state = state();
+        int id = file.getRegistrationID();
+        // the id may come from another catalog, e.g. before init was called again
+        if (id >= 0 && id < state.fileNames.size()) {
+            String name = state.fileNames.get(id);
+            if (name == file.getName() || name.equals(file.getName())) {
+                return id;
+            }
+        }
+        id = getFileId(file.getName());
+        file.setRegistrationID(id);
+        return id;
+    }
+
+    /**
+     * Gets the name of a file id
+     *
+     * @param fileId the file id
+     * @return the file name
+     */
+    public static String getFileName(int fileId) {
+        return state().fileNames.get(fileId);
+    }
+
+    /**
+     * Gets the id of a site. A site named by a non-negative integer is the VM
+     * of that id.
+     *
+     * @param site the site, a VM id or the name of a datacenter or
+     * Parameters.SOURCE
+     * @return the site id, the VM id or a negative id for the other sites
+     */
+    public static int getSiteId(String site) {
+        if (isVmId(site)) {
+            return Integer.parseInt(site);
+        }
+        State state = state();
+        Integer id = state.siteIds.get(site);
+        if (id == null) {
+            id = -1 - state.siteNames.size();
+            state.siteIds.put(site, id);
+            state.siteNames.add(site);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the name of a site
+     *
+     * @param siteId the site id
+     * @return the VM id as a string, or the name of the site
+     */
+    public static String getSiteName(int siteId) {
+        if (siteId >= 0) {
+            return Integer.toString(siteId);
+        }
+        return state().siteNames.get(-1 - siteId);
+    }
+
+    /**
+     * Checks whether a site name is a VM id
+     */
+    private static boolean isVmId(String site) {
+        int length = site.length();
+        if (length == 0 || length > 9) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = site.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the sites with a replica of a file
+     *
+     * @param fileId the file id
+     * @return the site ids, in the order the replicas were added
+     */
+    public static int[] getSites(int fileId) {
+        Replicas replicas = state().replicas.get(fileId);
+        if (replicas == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(replicas.sites, replicas.count);
+    }
+
+    /**
+     * Gets the number of replicas of a file
+     *
+     * @param fileId the file id
+     * @return the number of sites with a replica
+     */
+    public static int getReplicaCount(int fileId) {
+        Replicas replicas = state().replicas.get(fileId);
+        return replicas == null ? 0 : replicas.count;
+    }
+
+    /**
+     * Checks whether a VM has a replica of a file
+     *
+     * @param fileId the file id
+     * @param vmId the VM id
+     * @return whether the VM has a replica
+     */
+    public static boolean hasReplica(int fileId, int vmId) {
+        return hasSite(fileId, vmId);
+    }
+
+    /**
+     * Checks whether a site has a replica of a file
+     *
+     * @param fileId the file id
+     * @param siteId the site id
+     * @return whether the site has a replica
+     */
+    public static boolean hasSite(int fileId, int siteId) {
+        Replicas replicas = state().replicas.get(fileId);
+        return replicas != null && replicas.contains(siteId);
+    }
+
+    /**
+     * Adds a replica of a file
+     *
+     * @param fileId the file id
+     * @param siteId the id of the site with the replica
+     */
+    public static void addReplica(int fileId, int siteId) {
+        List<Replicas> list = state().replicas;
+        Replicas replicas = list.get(fileId);
+        if (replicas == null) {
+            replicas = new Replicas();
+            list.set(fileId, replicas);
+        }
+        replicas.add(siteId);
     }
 
     /**
      * Gets the list of storages a file exists
      *
      * @param file the file object
-     * @return list of storages
+     * @return list of storages, or null if the file has no replica
      */
     public static List getStorageList(String file) {
-        return (List) dataReplicaCatalog.get(file);
+        Integer id = state().fileIds.get(file);
+        if (id == null || state().replicas.get(id) == null) {
+            return null;
+        }
+        List<String> list = new ArrayList<String>();
+        for (int site : getSites(id)) {
+            list.add(getSiteName(site));
+        }
+        return list;
     }
 
     /**
@@ -118,12 +385,6 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addStorageList(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList());
-        }
-        List list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
-        }
+        addReplica(getFileId(file), getSiteId(storage));
     }
 }
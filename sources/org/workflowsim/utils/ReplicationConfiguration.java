@@ -0,0 +1,65 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.List;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowDatacenter;
+
+/**
+ * ReplicationConfiguration describes the workflow experiment repeated by a
+ * ReplicationRunner. Each replication runs in its own simulation context, and
+ * the methods of this class are called from the thread running the
+ * replication, with that context bound. They must therefore create new
+ * objects for every replication; in particular the DistributionGenerators
+ * given to OverheadParameters and FailureParameters keep their samples and
+ * can not be shared by replications.
+ *
+ * @date Oct 18, 2026
+ */
+public abstract class ReplicationConfiguration {
+
+    /**
+     * Initializes the parameters of a replication, i.e. calls
+     * Parameters.init() and ReplicaCatalog.init() and, if failures are
+     * simulated, FailureParameters.init(), FailureMonitor.init() and
+     * FailureGenerator.init(). The random seed of the replication has already
+     * been set with Parameters.setRandomSeed(), so the distributions created
+     * here are seeded from it.
+     *
+     * @param replication the index of the replication
+     */
+    public abstract void initParameters(int replication);
+
+    /**
+     * Creates the datacenter of a replication
+     *
+     * @param name the name of the datacenter
+     * @return the datacenter
+     * @throws Exception if the datacenter can not be created
+     */
+    public abstract WorkflowDatacenter createDatacenter(String name) throws Exception;
+
+    /**
+     * Creates the vms of a replication
+     *
+     * @param userId the id of the scheduler the vms are submitted to
+     * @param vmNum the number of vms, from Parameters.getVmNum()
+     * @return the list of vms
+     */
+    public abstract List<CondorVM> createVmList(int userId, int vmNum);
+}
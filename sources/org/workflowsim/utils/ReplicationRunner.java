@@ -0,0 +1,460 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.jdom2.Document;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.WorkflowPlanner;
+
+/**
+ * ReplicationRunner runs independent replications of a workflow experiment in
+ * parallel, on a fork-join pool, and aggregates their makespan, cost and
+ * failures. Every replication runs in its own simulation context with its own
+ * random seed, and the DAX files are parsed only once for all the
+ * replications.
+ *
+ * Unless the runner is not quiet, the log is disabled in the simulation
+ * context of each replication, so the log of other simulations running at
+ * the same time is not affected.
+ *
+ * @date Oct 18, 2026
+ */
+public class ReplicationRunner {
+
+    /**
+     * The experiment.
+     */
+    private final ReplicationConfiguration configuration;
+    /**
+     * The pool running the replications.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * The DAX documents shared by the replications.
+     */
+    private final ConcurrentMap<String, Document> documents;
+    /**
+     * The confidence level of the confidence intervals.
+     */
+    private double confidenceLevel = 0.95;
+    /**
+     * Whether the log is disabled while the replications run.
+     */
+    private boolean quiet = true;
+
+    /**
+     * Creates a runner using as many threads as there are processors
+     *
+     * @param configuration the experiment
+     */
+    public ReplicationRunner(ReplicationConfiguration configuration) {
+        this(configuration, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a runner
+     *
+     * @param configuration the experiment
+     * @param parallelism the number of replications run at the same time
+     */
+    public ReplicationRunner(ReplicationConfiguration configuration, int parallelism) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("The configuration can't be null.");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism should be positive, but is:" + parallelism);
+        }
+        this.configuration = configuration;
+        this.pool = new ForkJoinPool(parallelism);
+        this.documents = new ConcurrentHashMap<String, Document>();
+    }
+
+    /**
+     * Sets the confidence level of the confidence intervals
+     *
+     * @param level the confidence level, 0.95 by default
+     */
+    public void setConfidenceLevel(double level) {
+        if (level <= 0 || level >= 1) {
+            throw new IllegalArgumentException("The confidence level should be in (0, 1), but is:" + level);
+        }
+        this.confidenceLevel = level;
+    }
+
+    /**
+     * Sets whether the log is disabled in the contexts of the replications
+     *
+     * @param quiet true to disable the log, which is the default
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Runs the replications and waits for them to finish. Replication i uses
+     * the random seed seed + i.
+     *
+     * @param replications the number of replications
+     * @param seed the seed of the first replication
+     * @return the aggregated result
+     * @throws Exception if a replication fails
+     */
+    public Result run(int replications, long seed) throws Exception {
+        if (replications <= 0) {
+            throw new IllegalArgumentException("The number of replications should be positive, but is:" + replications);
+        }
+        List<Callable<Replication>> tasks = new ArrayList<Callable<Replication>>();
+        for (int i = 0; i < replications; i++) {
+            tasks.add(new ReplicationTask(i, seed + i));
+        }
+
+        List<Replication> results = new ArrayList<Replication>();
+        for (Future<Replication> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return new Result(results, confidenceLevel);
+    }
+
+    /**
+     * Shuts down the pool of the runner
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs one replication in the calling thread, in a new simulation context
+     *
+     * @param replication the index of the replication
+     * @param seed the random seed
+     * @return the replication
+     * @throws Exception if the replication fails
+     */
+    public Replication runReplication(int replication, long seed) throws Exception {
+        return new ReplicationTask(replication, seed).call();
+    }
+
+    /**
+     * A replication run in its own simulation context.
+     */
+    private class ReplicationTask implements Callable<Replication> {
+
+        private final int replication;
+        private final long seed;
+
+        public ReplicationTask(int replication, long seed) {
+            this.replication = replication;
+            this.seed = seed;
+        }
+
+        @Override
+        public Replication call() throws Exception {
+            SimulationContext context = new SimulationContext();
+            context.setLogDisabled(quiet);
+            return context.call(new Callable<Replication>() {
+                @Override
+                public Replication call() throws Exception {
+                    return simulate();
+                }
+            });
+        }
+
+        /**
+         * Runs the simulation, with the context of the replication bound
+         */
+        private Replication simulate() throws Exception {
+            Parameters.setRandomSeed(seed);
+            WorkflowParser.setDocumentCache(documents);
+            configuration.initParameters(replication);
+
+            CloudSim.init(1, Calendar.getInstance(), false);
+            WorkflowDatacenter datacenter = configuration.createDatacenter("Datacenter_0");
+
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            List<CondorVM> vmlist = configuration.createVmList(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+            wfEngine.submitVmList(vmlist, 0);
+            wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+
+            CloudSim.startSimulation();
+            List<Job> jobs = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+
+            return new Replication(replication, seed, jobs);
+        }
+    }
+
+    /**
+     * The outcome of one replication.
+     */
+    public static class Replication {
+
+        private final int index;
+        private final long seed;
+        private final double makespan;
+        private final double cost;
+        private final int failedJobs;
+        private final int failedTasks;
+
+        /**
+         * Summarizes the jobs returned by a replication
+         *
+         * @param index the index of the replication
+         * @param seed the random seed
+         * @param jobs the jobs received by the workflow engine
+         */
+        public Replication(int index, long seed, List<Job> jobs) {
+            this.index = index;
+            this.seed = seed;
+            double finish = 0.0;
+            double sum = 0.0;
+            int jobFailures = 0;
+            int taskFailures = 0;
+            for (Job job : jobs) {
+                finish = Math.max(finish, job.getFinishTime());
+                sum += job.getProcessingCost();
+                if (job.getCloudletStatus() == Cloudlet.FAILED) {
+                    jobFailures++;
+                    for (Task task : job.getTaskList()) {
+                        if (task.getCloudletStatus() == Cloudlet.FAILED) {
+                            taskFailures++;
+                        }
+                    }
+                }
+            }
+            this.makespan = finish;
+            this.cost = sum;
+            this.failedJobs = jobFailures;
+            this.failedTasks = taskFailures;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets the makespan, the finish time of the last job
+         *
+         * @return the makespan
+         */
+        public double getMakespan() {
+            return makespan;
+        }
+
+        /**
+         * Gets the cost, the sum of the processing costs of the jobs
+         *
+         * @return the cost
+         */
+        public double getCost() {
+            return cost;
+        }
+
+        /**
+         * Gets the number of job executions that failed
+         *
+         * @return the number of failed jobs
+         */
+        public int getFailedJobs() {
+            return failedJobs;
+        }
+
+        /**
+         * Gets the number of task executions that failed
+         *
+         * @return the number of failed tasks
+         */
+        public int getFailedTasks() {
+            return failedTasks;
+        }
+    }
+
+    /**
+     * The summary of a metric over all the replications.
+     */
+    public static class Statistic {
+
+        private final SummaryStatistics stats;
+        private final double halfWidth;
+
+        /**
+         * Summarizes the values of a metric
+         *
+         * @param values the values, one per replication
+         * @param level the confidence level of the confidence interval
+         */
+        public Statistic(double[] values, double level) {
+            stats = new SummaryStatistics();
+            for (double value : values) {
+                stats.addValue(value);
+            }
+            long n = stats.getN();
+            if (n < 2) {
+                halfWidth = Double.NaN;
+            } else {
+                TDistribution t = new TDistribution(n - 1);
+                halfWidth = t.inverseCumulativeProbability(1 - (1 - level) / 2)
+                        * stats.getStandardDeviation() / Math.sqrt(n);
+            }
+        }
+
+        public double getMean() {
+            return stats.getMean();
+        }
+
+        public double getStandardDeviation() {
+            return stats.getStandardDeviation();
+        }
+
+        public double getMin() {
+            return stats.getMin();
+        }
+
+        public double getMax() {
+            return stats.getMax();
+        }
+
+        /**
+         * Gets the half width of the confidence interval of the mean, based on
+         * the Student's t-distribution
+         *
+         * @return the half width, or NaN if there are less than two values
+         */
+        public double getConfidenceHalfWidth() {
+            return halfWidth;
+        }
+
+        public double getConfidenceLower() {
+            return getMean() - halfWidth;
+        }
+
+        public double getConfidenceUpper() {
+            return getMean() + halfWidth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.4f +/- %.4f (sd %.4f, min %.4f, max %.4f)",
+                    getMean(), halfWidth, getStandardDeviation(), getMin(), getMax());
+        }
+    }
+
+    /**
+     * The aggregated outcome of the replications.
+     */
+    public static class Result {
+
+        private final List<Replication> replications;
+        private final double confidenceLevel;
+        private final Statistic makespan;
+        private final Statistic cost;
+        private final Statistic failedJobs;
+        private final Statistic failedTasks;
+
+        /**
+         * Aggregates replications
+         *
+         * @param replications the replications, in index order
+         * @param confidenceLevel the confidence level of the confidence
+         * intervals
+         */
+        public Result(List<Replication> replications, double confidenceLevel) {
+            this.replications = replications;
+            this.confidenceLevel = confidenceLevel;
+            int n = replications.size();
+            double[] makespans = new double[n];
+            double[] costs = new double[n];
+            double[] jobFailures = new double[n];
+            double[] taskFailures = new double[n];
+            for (int i = 0; i < n; i++) {
+                Replication replication = replications.get(i);
+                makespans[i] = replication.getMakespan();
+                costs[i] = replication.getCost();
+                jobFailures[i] = replication.getFailedJobs();
+                taskFailures[i] = replication.getFailedTasks();
+            }
+            this.makespan = new Statistic(makespans, confidenceLevel);
+            this.cost = new Statistic(costs, confidenceLevel);
+            this.failedJobs = new Statistic(jobFailures, confidenceLevel);
+            this.failedTasks = new Statistic(taskFailures, confidenceLevel);
+        }
+
+        public List<Replication> getReplications() {
+            return replications;
+        }
+
+        public double getConfidenceLevel() {
+            return confidenceLevel;
+        }
+
+        public Statistic getMakespan() {
+            return makespan;
+        }
+
+        public Statistic getCost() {
+            return cost;
+        }
+
+        public Statistic getFailedJobs() {
+            return failedJobs;
+        }
+
+        public Statistic getFailedTasks() {
+            return failedTasks;
+        }
+
+        @Override
+        public String toString() {
+            return "Replications: " + replications.size()
+                    + ", confidence level: " + confidenceLevel
+                    + "\nMakespan: " + makespan
+                    + "\nCost: " + cost
+                    + "\nFailed jobs: " + failedJobs
+                    + "\nFailed tasks: " + failedTasks;
+        }
+    }
+}
@@ -0,0 +1,917 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.math3.distribution.GammaDistribution;
+import org.apache.commons.math3.distribution.RealDistribution;
+import org.apache.commons.math3.random.Well19937c;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.ParameterException;
+import org.workflowsim.CompiledWorkflow;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowPlanner;
+
+/**
+ * WorkflowGenerator generates synthetic workflows shaped like the Montage,
+ * CyberShake, Epigenomics, Inspiral and SIPHT workflows of the Pegasus
+ * workflow gallery, at any scale, for scalability tests beyond the bundled
+ * DAX files. A workflow of a given size is made of as many copies of the
+ * building blocks of its type as needed, e.g. the Montage projections with
+ * their overlaps, or the Epigenomics lanes of 35 sequence chunks, so the
+ * number of tasks is close to but not exactly the size asked for.
+ *
+ * The runtimes and the file sizes of each job type are drawn from gamma
+ * distributions whose means are those of the bundled DAX files, unless a
+ * DistributionGenerator is set for the job type. Each task produces one file,
+ * which its children read, and the tasks of some job types read workflow
+ * input files of their own or shared by the job type. The samples only depend
+ * on the seed, so a workflow is generated again by the same seed.
+ *
+ * The workflow is held in arrays rather than tasks, so that a workflow of
+ * millions of tasks can be written as a DAX file or a compiled workflow, or
+ * created as tasks and handed to a WorkflowPlanner without a file at all.
+ *
+ * @date Oct 18, 2026
+ */
+public class WorkflowGenerator {
+
+    /**
+     * The types of workflows.
+     */
+    public enum WorkflowType {
+
+        MONTAGE("Montage"), CYBERSHAKE("CyberShake"), EPIGENOMICS("Epigenomics"),
+        INSPIRAL("Inspiral"), SIPHT("Sipht");
+        private final String name;
+
+        private WorkflowType(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the name of the workflow, as in the DAX files
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+    }
+    /**
+     * The shape parameter of the default gamma distributions, whose
+     * coefficient of variation is then 0.5.
+     */
+    public static final double DEFAULT_SHAPE = 4.0;
+    /**
+     * The job types of each workflow type: name, mean runtime in seconds,
+     * mean size of the output file, mean size of the input file each task
+     * reads and of the input file all the tasks share, in bytes, 0 for none.
+     */
+    private static final Map<WorkflowType, Object[][]> JOB_TYPES = new HashMap<WorkflowType, Object[][]>();
+
+    static {
+        JOB_TYPES.put(WorkflowType.MONTAGE, new Object[][]{
+            {"mProjectPP", 13.58, 4.16e6, 4.22e6, 304.0},
+            {"mDiffFit", 10.59, 1.44e5, 0.0, 304.0},
+            {"mConcatFit", 52.96, 1.39e5, 0.0, 1.8e4},
+            {"mBgModel", 89.12, 8.83e3, 0.0, 2.78e4},
+            {"mBackground", 10.74, 4.16e6, 0.0, 0.0},
+            {"mImgTbl", 65.91, 6.74e4, 0.0, 2.78e4},
+            {"mAdd", 99.53, 3.05e8, 0.0, 304.0},
+            {"mShrink", 22.25, 1.22e7, 0.0, 0.0},
+            {"mJPEG", 2.52, 1.42e6, 0.0, 0.0}});
+        JOB_TYPES.put(WorkflowType.CYBERSHAKE, new Object[][]{
+            {"ExtractSGT", 126.12, 2.68e8, 1.0e9, 0.0},
+            {"SeismogramSynthesis", 43.65, 2.4e4, 3.76e6, 0.0},
+            {"PeakValCalcOkaya", 1.08, 216.0, 0.0, 0.0},
+            {"ZipSeis", 9.38, 2.14e6, 0.0, 0.0},
+            {"ZipPSA", 3.81, 1.06e4, 0.0, 0.0}});
+        JOB_TYPES.put(WorkflowType.EPIGENOMICS, new Object[][]{
+            {"fastqSplit", 54.53, 1.06e7, 3.69e8, 0.0},
+            {"filterContams", 1.39, 5.27e6, 0.0, 0.0},
+            {"sol2sanger", 0.37, 4.27e6, 0.0, 0.0},
+            {"fastq2bfq", 0.65, 1.01e6, 0.0, 0.0},
+            {"map", 15703.99, 1.1e6, 0.0, 1.0e9},
+            {"mapMerge", 35.31, 5.07e7, 0.0, 0.0},
+            {"maqIndex", 0.21, 4.29e6, 0.0, 0.0},
+            {"pileup", 6034.5, 9.44e6, 0.0, 1.0e9}});
+        JOB_TYPES.put(WorkflowType.INSPIRAL, new Object[][]{
+            {"TmpltBank", 18.14, 9.88e5, 1.01e7, 0.0},
+            {"Inspiral", 462.6, 3.11e5, 8.59e6, 0.0},
+            {"Thinca", 5.35, 3.62e4, 0.0, 0.0},
+            {"TrigBank", 5.12, 1.29e4, 0.0, 0.0}});
+        JOB_TYPES.put(WorkflowType.SIPHT, new Object[][]{
+            {"Patser", 1.28, 9.08e4, 1.38e6, 0.0},
+            {"Patser_concate", 0.08, 1.85e6, 0.0, 0.0},
+            {"Transterm", 55.6, 2.17e5, 1.92e6, 0.0},
+            {"Findterm", 1576.42, 4.18e6, 2.98e6, 0.0},
+            {"RNAMotif", 32.18, 5.37e5, 2.69e6, 0.0},
+            {"Blast", 2312.5, 1.75e6, 0.0, 2.89e5},
+            {"SRNA", 444.05, 4.93e5, 3.25e6, 0.0},
+            {"FFN_Parse", 1.5, 7.49e5, 2.33e6, 0.0},
+            {"Blast_synteny", 33.0, 9.0e5, 6.5e5, 0.0},
+            {"Blast_candidate", 5.14, 5.49e3, 3.38e5, 0.0},
+            {"Blast_QRNA", 1301.29, 4.56e5, 0.0, 2.89e5},
+            {"Blast_paralogues", 4.1, 7.99e5, 3.93e5, 0.0},
+            {"SRNA_annotate", 1.42, 1.95e5, 8.61e4, 0.0}});
+    }
+    /**
+     * The type of the workflow.
+     */
+    private final WorkflowType type;
+    /**
+     * The number of tasks asked for.
+     */
+    private final int size;
+    /**
+     * The seed of the samples.
+     */
+    private final long seed;
+    /**
+     * The job types.
+     */
+    private final Object[][] jobTypes;
+    /**
+     * The runtime and the file size distributions set for job types, by
+     * name; the null name stands for all the other job types.
+     */
+    private final Map<String, DistributionGenerator> runtimeDistributions, sizeDistributions;
+    /**
+     * The number of tasks, 0 until the workflow is generated.
+     */
+    private int taskCount;
+    /**
+     * The job type of each task.
+     */
+    private int[] types;
+    /**
+     * The runtime of each task, in seconds.
+     */
+    private double[] runtimes;
+    /**
+     * The size of the output file of each task, and of the input file it
+     * reads alone, 0 for none.
+     */
+    private int[] outputSizes, inputSizes;
+    /**
+     * The size of the input file shared by the tasks of each job type, 0 for
+     * none.
+     */
+    private int[] sharedSizes;
+    /**
+     * The parents of each task in compressed sparse row form.
+     */
+    private int[] parentOffsets, parents;
+    /**
+     * The number of dependencies.
+     */
+    private int edgeCount;
+    /**
+     * The samplers of the runtimes, the output file sizes and the input file
+     * sizes of each job type, while the workflow is generated.
+     */
+    private RealDistribution[] runtimeSamplers, outputSamplers, inputSamplers;
+
+    /**
+     * Initialize a WorkflowGenerator
+     *
+     * @param type the type of workflow
+     * @param size the number of tasks, approximately
+     * @param seed the seed of the runtimes and of the file sizes
+     */
+    public WorkflowGenerator(WorkflowType type, int size, long seed) {
+        if (type == null) {
+            throw new IllegalArgumentException("The workflow type is required");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("The size must be positive, but got:" + size);
+        }
+        this.type = type;
+        this.size = size;
+        this.seed = seed;
+        this.jobTypes = JOB_TYPES.get(type);
+        this.runtimeDistributions = new HashMap<String, DistributionGenerator>();
+        this.sizeDistributions = new HashMap<String, DistributionGenerator>();
+    }
+
+    /**
+     * Gets the type of the workflow
+     *
+     * @return the workflow type
+     */
+    public WorkflowType getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the job types of a type of workflow
+     *
+     * @param type the workflow type
+     * @return the names of the job types
+     */
+    public static List<String> getJobTypes(WorkflowType type) {
+        List<String> names = new ArrayList<String>();
+        for (Object[] jobType : JOB_TYPES.get(type)) {
+            names.add((String) jobType[0]);
+        }
+        return names;
+    }
+
+    /**
+     * Sets the distribution of the runtimes of a job type. The samples are
+     * drawn from the distribution the generator returns for its scale and
+     * shape, seeded by the seed of this generator.
+     *
+     * @param jobType the name of the job type, or null for all the job types
+     * that have no distribution of their own
+     * @param generator the distribution, in seconds
+     */
+    public void setRuntimeDistribution(String jobType, DistributionGenerator generator) {
+        setDistribution(this.runtimeDistributions, jobType, generator);
+    }
+
+    /**
+     * Sets the distribution of the sizes of the files a job type produces.
+     * The workflow input files keep the default distributions.
+     *
+     * @param jobType the name of the job type, or null for all the job types
+     * that have no distribution of their own
+     * @param generator the distribution, in bytes
+     */
+    public void setFileSizeDistribution(String jobType, DistributionGenerator generator) {
+        setDistribution(this.sizeDistributions, jobType, generator);
+    }
+
+    /**
+     * Sets the distribution of a job type
+     */
+    private void setDistribution(Map<String, DistributionGenerator> distributions, String jobType,
+            DistributionGenerator generator) {
+        if (this.taskCount > 0) {
+            throw new IllegalStateException("The workflow has already been generated");
+        }
+        if (jobType != null && indexOf(jobType) < 0) {
+            throw new IllegalArgumentException("No job type " + jobType + " in " + this.type + " workflows");
+        }
+        distributions.put(jobType, generator);
+    }
+
+    /**
+     * Gets the index of a job type
+     *
+     * @param jobType the name of the job type
+     * @return the index, -1 if there is no such job type
+     */
+    private int indexOf(String jobType) {
+        for (int i = 0; i < this.jobTypes.length; i++) {
+            if (this.jobTypes[i][0].equals(jobType)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the sampler of a job type
+     *
+     * @param distributions the distributions set for job types
+     * @param jobType the index of the job type
+     * @param mean the mean of the default distribution
+     * @param random the source of the seeds
+     * @return the sampler, seeded from random
+     */
+    private RealDistribution createSampler(Map<String, DistributionGenerator> distributions, int jobType,
+            double mean, Random random) {
+        long samplerSeed = random.nextLong();
+        DistributionGenerator generator = distributions.get((String) this.jobTypes[jobType][0]);
+        if (generator == null) {
+            generator = distributions.get(null);
+        }
+        if (generator == null) {
+            return new GammaDistribution(new Well19937c(samplerSeed), DEFAULT_SHAPE, mean / DEFAULT_SHAPE,
+                    GammaDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
+        }
+        RealDistribution distribution = generator.getDistribution(generator.getScale(), generator.getShape());
+        distribution.reseedRandomGenerator(samplerSeed);
+        return distribution;
+    }
+
+    /**
+     * Draws a file size
+     *
+     * @param sampler the sampler
+     * @return the size, at least 1 since a file of size 0 is a problem
+     */
+    private static int sampleSize(RealDistribution sampler) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, Math.round(sampler.sample())));
+    }
+
+    /**
+     * Generates the workflow if it has not been generated yet
+     */
+    private void generate() {
+        if (this.taskCount > 0) {
+            return;
+        }
+        Random random = new Random(this.seed);
+        int count = this.jobTypes.length;
+        this.runtimeSamplers = new RealDistribution[count];
+        this.outputSamplers = new RealDistribution[count];
+        this.inputSamplers = new RealDistribution[count];
+        this.sharedSizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.runtimeSamplers[i] = createSampler(this.runtimeDistributions, i,
+                    (Double) this.jobTypes[i][1], random);
+            this.outputSamplers[i] = createSampler(this.sizeDistributions, i,
+                    (Double) this.jobTypes[i][2], random);
+            double inputSize = (Double) this.jobTypes[i][3];
+            if (inputSize > 0) {
+                this.inputSamplers[i] = new GammaDistribution(new Well19937c(random.nextLong()), DEFAULT_SHAPE,
+                        inputSize / DEFAULT_SHAPE, GammaDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
+            }
+            double sharedSize = (Double) this.jobTypes[i][4];
+            if (sharedSize > 0) {
+                this.sharedSizes[i] = (int) sharedSize;
+            }
+        }
+        this.types = new int[Math.max(16, this.size)];
+        this.runtimes = new double[this.types.length];
+        this.outputSizes = new int[this.types.length];
+        this.inputSizes = new int[this.types.length];
+        this.parentOffsets = new int[this.types.length + 1];
+        this.parents = new int[this.types.length * 2];
+        switch (this.type) {
+            case MONTAGE:
+                generateMontage();
+                break;
+            case CYBERSHAKE:
+                generateCyberShake();
+                break;
+            case EPIGENOMICS:
+                generateEpigenomics();
+                break;
+            case INSPIRAL:
+                generateInspiral();
+                break;
+            case SIPHT:
+                generateSipht();
+                break;
+        }
+        this.runtimeSamplers = null;
+        this.outputSamplers = null;
+        this.inputSamplers = null;
+    }
+
+    /**
+     * Adds a task, whose parents are added next
+     *
+     * @param jobType the index of the job type
+     * @return the index of the task
+     */
+    private int addTask(int jobType) {
+        int task = this.taskCount;
+        if (task + 1 >= this.types.length) {
+            int length = this.types.length * 2;
+            this.types = Arrays.copyOf(this.types, length);
+            this.runtimes = Arrays.copyOf(this.runtimes, length);
+            this.outputSizes = Arrays.copyOf(this.outputSizes, length);
+            this.inputSizes = Arrays.copyOf(this.inputSizes, length);
+            this.parentOffsets = Arrays.copyOf(this.parentOffsets, length + 1);
+        }
+        this.types[task] = jobType;
+        // a runtime of the DAX files has two decimals
+        double runtime = Math.round(this.runtimeSamplers[jobType].sample() * 100) / 100.0;
+        this.runtimes[task] = Math.max(0.01, runtime);
+        this.outputSizes[task] = sampleSize(this.outputSamplers[jobType]);
+        if (this.inputSamplers[jobType] != null) {
+            this.inputSizes[task] = sampleSize(this.inputSamplers[jobType]);
+        }
+        this.taskCount++;
+        this.parentOffsets[this.taskCount] = this.edgeCount;
+        return task;
+    }
+
+    /**
+     * Adds a parent to the last task
+     *
+     * @param parent the index of the parent
+     */
+    private void addParent(int parent) {
+        if (this.edgeCount == this.parents.length) {
+            this.parents = Arrays.copyOf(this.parents, this.edgeCount * 2);
+        }
+        this.parents[this.edgeCount++] = parent;
+        this.parentOffsets[this.taskCount] = this.edgeCount;
+    }
+
+    /**
+     * Adds a range of parents to the last task
+     *
+     * @param from the index of the first parent
+     * @param to the index after the last parent
+     */
+    private void addParents(int from, int to) {
+        for (int parent = from; parent < to; parent++) {
+            addParent(parent);
+        }
+    }
+
+    /**
+     * Montage: each image is projected, the projections that overlap are
+     * fitted pairwise, the fits are concatenated into a background model,
+     * each projection is corrected by the model, and the corrected images
+     * are tabled, added, shrunk and converted to JPEG.
+     */
+    private void generateMontage() {
+        int images = Math.max(2, (int) Math.round((this.size + 4) / 6.0));
+        for (int i = 0; i < images; i++) {
+            addTask(0);
+        }
+        int fits = this.taskCount;
+        for (int i = 0; i < images; i++) {
+            // an image overlaps with the next four
+            for (int j = i + 1; j <= i + 4 && j < images; j++) {
+                addTask(1);
+                addParent(i);
+                addParent(j);
+            }
+        }
+        int concat = addTask(2);
+        addParents(fits, concat);
+        int model = addTask(3);
+        addParent(concat);
+        int backgrounds = this.taskCount;
+        for (int i = 0; i < images; i++) {
+            addTask(4);
+            addParent(model);
+            addParent(i);
+        }
+        int table = addTask(5);
+        addParents(backgrounds, table);
+        int add = addTask(6);
+        addParent(table);
+        int shrink = addTask(7);
+        addParent(add);
+        addTask(8);
+        addParent(shrink);
+    }
+
+    /**
+     * CyberShake: the strain Green tensors of each site are extracted, a
+     * seismogram is synthesized for each rupture variation and its peak
+     * values are computed, and the seismograms and the peak values are
+     * zipped.
+     */
+    private void generateCyberShake() {
+        int sites = Math.max(1, (int) Math.round(this.size / 250.0));
+        int variations = Math.max(1, (this.size - sites - 2) / 2);
+        for (int i = 0; i < sites; i++) {
+            addTask(0);
+        }
+        int seismograms = this.taskCount;
+        for (int i = 0; i < variations; i++) {
+            addTask(1);
+            addParent((int) ((long) i * sites / variations));
+        }
+        int peaks = this.taskCount;
+        for (int i = 0; i < variations; i++) {
+            addTask(2);
+            addParent(seismograms + i);
+        }
+        int zip = addTask(3);
+        addParents(seismograms, peaks);
+        addTask(4);
+        addParents(peaks, zip);
+    }
+
+    /**
+     * Epigenomics: the sequences of each lane are split into chunks, each
+     * chunk is filtered, converted and mapped, the maps of each lane are
+     * merged, the lanes are merged, and the result is indexed and piled up.
+     */
+    private void generateEpigenomics() {
+        int lanes = 1;
+        int chunks = 35;
+        if (this.size >= 4 * chunks + 5) {
+            lanes = (int) Math.round((this.size - 3) / (4.0 * chunks + 2));
+        } else {
+            chunks = Math.max(1, (int) Math.round((this.size - 5) / 4.0));
+        }
+        int[] merges = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            int split = addTask(0);
+            int[] maps = new int[chunks];
+            for (int i = 0; i < chunks; i++) {
+                int task = split;
+                for (int step = 1; step <= 4; step++) {
+                    int parent = task;
+                    task = addTask(step);
+                    addParent(parent);
+                }
+                maps[i] = task;
+            }
+            merges[lane] = addTask(5);
+            for (int map : maps) {
+                addParent(map);
+            }
+        }
+        addTask(5);
+        for (int merge : merges) {
+            addParent(merge);
+        }
+        int index = addTask(6);
+        addParent(index - 1);
+        addTask(7);
+        addParent(index);
+    }
+
+    /**
+     * Inspiral: in each group of detectors, a template bank is made for each
+     * block of data and filtered, the triggers are coincidence tested, then
+     * made into trigger banks, filtered again and tested again.
+     */
+    private void generateInspiral() {
+        int groups = 1;
+        int blocks = 12;
+        if (this.size >= 4 * blocks + 2) {
+            groups = (int) Math.round(this.size / (4.0 * blocks + 2));
+        } else {
+            blocks = Math.max(1, (int) Math.round((this.size - 2) / 4.0));
+        }
+        for (int group = 0; group < groups; group++) {
+            int banks = this.taskCount;
+            for (int i = 0; i < blocks; i++) {
+                addTask(0);
+            }
+            int inspirals = this.taskCount;
+            for (int i = 0; i < blocks; i++) {
+                addTask(1);
+                addParent(banks + i);
+            }
+            int thinca = addTask(2);
+            addParents(inspirals, thinca);
+            int triggers = this.taskCount;
+            for (int i = 0; i < blocks; i++) {
+                addTask(3);
+                addParent(thinca);
+            }
+            inspirals = this.taskCount;
+            for (int i = 0; i < blocks; i++) {
+                addTask(1);
+                addParent(triggers + i);
+            }
+            thinca = addTask(2);
+            addParents(inspirals, thinca);
+        }
+    }
+
+    /**
+     * SIPHT: for each replicon, the transcription factor binding sites are
+     * searched by Patser jobs and concatenated, the terminators, motifs and
+     * BLAST hits are combined into candidate sRNAs, which are compared by
+     * more BLAST jobs and annotated.
+     */
+    private void generateSipht() {
+        int replicons = 1;
+        int patsers = 20;
+        if (this.size >= patsers + 12) {
+            replicons = (int) Math.round(this.size / (patsers + 12.0));
+        } else {
+            patsers = Math.max(1, this.size - 12);
+        }
+        for (int replicon = 0; replicon < replicons; replicon++) {
+            int first = this.taskCount;
+            for (int i = 0; i < patsers; i++) {
+                addTask(0);
+            }
+            int concate = addTask(1);
+            addParents(first, concate);
+            int candidates = this.taskCount;
+            for (int jobType = 2; jobType <= 5; jobType++) {
+                addTask(jobType);
+            }
+            int srna = addTask(6);
+            addParents(candidates, srna);
+            int parse = addTask(7);
+            addParent(srna);
+            int synteny = addTask(8);
+            addParent(srna);
+            addParent(parse);
+            for (int jobType = 9; jobType <= 11; jobType++) {
+                addTask(jobType);
+                addParent(srna);
+            }
+            int annotate = addTask(12);
+            addParent(concate);
+            addParent(srna);
+            addParents(synteny, annotate);
+        }
+    }
+
+    /**
+     * Gets the number of tasks of the workflow, which is generated if it has
+     * not been yet
+     *
+     * @return the number of tasks
+     */
+    public int getTaskCount() {
+        generate();
+        return this.taskCount;
+    }
+
+    /**
+     * Gets the id of a task in the DAX file
+     */
+    private static String getId(int task) {
+        // as String.format("ID%05d"), which is slow for millions of names
+        String digits = Integer.toString(task);
+        return "ID00000".substring(0, Math.max(2, 7 - digits.length())) + digits;
+    }
+
+    /**
+     * Gets the name of the job type of a task
+     */
+    private String getJobType(int task) {
+        return (String) this.jobTypes[this.types[task]][0];
+    }
+
+    /**
+     * Gets the name of the output file of a task
+     */
+    private String getOutputName(int task) {
+        return getJobType(task) + "_" + getId(task) + ".out";
+    }
+
+    /**
+     * Gets the name of the input file a task reads alone
+     */
+    private String getInputName(int task) {
+        return getJobType(task) + "_" + getId(task) + ".in";
+    }
+
+    /**
+     * Gets the name of the input file shared by the tasks of a job type
+     */
+    private String getSharedName(int jobType) {
+        return this.jobTypes[jobType][0] + ".in";
+    }
+
+    /**
+     * Writes the workflow as a DAX file, one job at a time
+     *
+     * @param path the path of the DAX file
+     * @throws IOException if the file can not be written
+     */
+    public void writeDax(String path) throws IOException {
+        generate();
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), "UTF-8"), 1 << 16);
+        try {
+            int children = 0;
+            for (int i = 0; i < this.taskCount; i++) {
+                if (this.parentOffsets[i + 1] > this.parentOffsets[i]) {
+                    children++;
+                }
+            }
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<!-- generated by WorkflowGenerator: " + this.type + ", seed " + this.seed + " -->\n");
+            out.write("<adag xmlns=\"http://pegasus.isi.edu/schema/DAX\""
+                    + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+                    + " xsi:schemaLocation=\"http://pegasus.isi.edu/schema/DAX http://pegasus.isi.edu/schema/dax-2.1.xsd\""
+                    + " version=\"2.1\" count=\"1\" index=\"0\" name=\"" + this.type.getName()
+                    + "\" jobCount=\"" + this.taskCount + "\" fileCount=\"0\" childCount=\"" + children + "\">\n");
+            for (int i = 0; i < this.taskCount; i++) {
+                out.write("  <job id=\"" + getId(i) + "\" namespace=\"" + this.type.getName() + "\" name=\""
+                        + getJobType(i) + "\" version=\"1.0\" runtime=\"" + this.runtimes[i] + "\">\n");
+                if (this.sharedSizes[this.types[i]] > 0) {
+                    writeUse(out, getSharedName(this.types[i]), "input", this.sharedSizes[this.types[i]]);
+                }
+                if (this.inputSizes[i] > 0) {
+                    writeUse(out, getInputName(i), "input", this.inputSizes[i]);
+                }
+                for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                    writeUse(out, getOutputName(this.parents[e]), "input", this.outputSizes[this.parents[e]]);
+                }
+                writeUse(out, getOutputName(i), "output", this.outputSizes[i]);
+                out.write("  </job>\n");
+            }
+            for (int i = 0; i < this.taskCount; i++) {
+                if (this.parentOffsets[i + 1] > this.parentOffsets[i]) {
+                    out.write("  <child ref=\"" + getId(i) + "\">\n");
+                    for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                        out.write("    <parent ref=\"" + getId(this.parents[e]) + "\"/>\n");
+                    }
+                    out.write("  </child>\n");
+                }
+            }
+            out.write("</adag>\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a file of a job
+     */
+    private static void writeUse(Writer out, String name, String link, int size) throws IOException {
+        out.write("    <uses file=\"" + name + "\" link=\"" + link + "\" register=\"true\" transfer=\"true\""
+                + " optional=\"false\" type=\"data\" size=\"" + size + "\"/>\n");
+    }
+
+    /**
+     * Writes the workflow as a compiled workflow, which is the same as the
+     * one compiled from the DAX file of the workflow but for the source DAX
+     * file it records
+     *
+     * @param path the path of the compiled file
+     * @throws IOException if the file can not be written
+     */
+    public void writeCompiled(String path) throws IOException {
+        generate();
+        CompiledWorkflow.Builder builder = new CompiledWorkflow.Builder();
+        int[] typeStrings = new int[this.jobTypes.length];
+        int[] sharedFiles = new int[this.jobTypes.length];
+        Arrays.fill(typeStrings, -1);
+        Arrays.fill(sharedFiles, -1);
+        int[] outputFiles = new int[this.taskCount];
+        int input = Parameters.FileType.INPUT.value;
+        for (int i = 0; i < this.taskCount; i++) {
+            int jobType = this.types[i];
+            if (typeStrings[jobType] < 0) {
+                typeStrings[jobType] = builder.addString(getJobType(i));
+            }
+            builder.addTask((long) (1000 * this.runtimes[i]), typeStrings[jobType]);
+            if (this.sharedSizes[jobType] > 0) {
+                if (sharedFiles[jobType] < 0) {
+                    sharedFiles[jobType] = builder.addFile(builder.addString(getSharedName(jobType)),
+                            this.sharedSizes[jobType]);
+                }
+                builder.addUse(i, sharedFiles[jobType], input);
+            }
+            if (this.inputSizes[i] > 0) {
+                builder.addUse(i, builder.addFile(builder.addString(getInputName(i)), this.inputSizes[i]), input);
+            }
+            for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                builder.addUse(i, outputFiles[this.parents[e]], input);
+            }
+            outputFiles[i] = builder.addFile(builder.addString(getOutputName(i)), this.outputSizes[i]);
+            builder.addUse(i, outputFiles[i], Parameters.FileType.OUTPUT.value);
+        }
+        for (int i = 0; i < this.taskCount; i++) {
+            for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                builder.addDependency(this.parents[e], i);
+            }
+        }
+        builder.write(path);
+    }
+
+    /**
+     * Creates the tasks of the workflow, as WorkflowParser creates them from
+     * its DAX file: the input files are shared through the ReplicaCatalog,
+     * and the output files are new. As when a DAX file is parsed, CloudSim
+     * must be initialized, since the files need the simulation calendar.
+     *
+     * @param jobIdStartsFrom the id of the first task
+     * @param userId the user id
+     * @return the tasks, in topological order
+     * @throws ParameterException if a file can not be created
+     */
+    public List<Task> createTasks(int jobIdStartsFrom, int userId) throws ParameterException {
+        generate();
+        double scale = Parameters.getRuntimeScale();
+        int[] depths = new int[this.taskCount];
+        Task[] tasks = new Task[this.taskCount];
+        for (int i = 0; i < this.taskCount; i++) {
+            long length = (long) (1000 * this.runtimes[i]);
+            //multiple the scale, by default it is 1.0
+            length *= scale;
+            Task task = new Task(jobIdStartsFrom + i, length);
+            task.setType(getJobType(i));
+            task.setUserId(userId);
+            int depth = 0;
+            for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                depth = Math.max(depth, depths[this.parents[e]]);
+            }
+            depths[i] = depth + 1;
+            task.setDepth(depths[i]);
+
+            List<File> fileList = new ArrayList<File>();
+            if (this.sharedSizes[this.types[i]] > 0) {
+                fileList.add(getInputFile(getSharedName(this.types[i]), this.sharedSizes[this.types[i]]));
+            }
+            if (this.inputSizes[i] > 0) {
+                fileList.add(getInputFile(getInputName(i), this.inputSizes[i]));
+            }
+            for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                fileList.add(getInputFile(getOutputName(this.parents[e]), this.outputSizes[this.parents[e]]));
+            }
+            File output = new File(getOutputName(i), this.outputSizes[i]);
+            output.setType(Parameters.FileType.OUTPUT.value);
+            ReplicaCatalog.getFileId(output);
+            fileList.add(output);
+            // the names are distinct, so they are added without the linear
+            // search of addRequiredFile, which only creates the list
+            task.addRequiredFile(output.getName());
+            List<String> requiredFiles = task.getRequiredFiles();
+            requiredFiles.clear();
+            for (File file : fileList) {
+                requiredFiles.add(file.getName());
+            }
+            task.setFileList(fileList);
+            tasks[i] = task;
+            for (int e = this.parentOffsets[i]; e < this.parentOffsets[i + 1]; e++) {
+                Task parent = tasks[this.parents[e]];
+                parent.addChild(task);
+                task.addParent(parent);
+            }
+        }
+        return new ArrayList<Task>(Arrays.asList(tasks));
+    }
+
+    /**
+     * Gets an input file from the ReplicaCatalog, adding it if needed
+     *
+     * @param name the file name
+     * @param size the file size
+     * @return the file
+     * @throws ParameterException if the file can not be created
+     */
+    private static File getInputFile(String name, int size) throws ParameterException {
+        File file = ReplicaCatalog.getFile(name);
+        if (file == null) {
+            file = new File(name, size);
+            ReplicaCatalog.setFile(name, file);
+        }
+        file.setType(Parameters.FileType.INPUT.value);
+        ReplicaCatalog.getFileId(file);
+        return file;
+    }
+
+    /**
+     * Creates the tasks of the workflow and hands them to a planner, which
+     * plans them instead of parsing its DAX files. The task ids start from 1
+     * and the tasks belong to the first scheduler of the planner, as for a
+     * parsed workflow.
+     *
+     * @param planner the planner
+     * @return the tasks
+     * @throws ParameterException if a file can not be created
+     */
+    public List<Task> submit(WorkflowPlanner planner) throws ParameterException {
+        List<Task> tasks = createTasks(1, planner.getWorkflowEngine().getSchedulerId(0));
+        planner.setWorkflowTasks(tasks);
+        return tasks;
+    }
+
+    /**
+     * Generates a workflow to a DAX file, or to a compiled workflow if the
+     * path ends with the extension of compiled files
+     *
+     * @param args the workflow type, the number of tasks, the seed and the
+     * path
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: WorkflowGenerator montage|cybershake|epigenomics|inspiral|sipht"
+                    + " size seed path");
+            System.exit(1);
+        }
+        try {
+            WorkflowGenerator generator = new WorkflowGenerator(WorkflowType.valueOf(args[0].toUpperCase()),
+                    Integer.parseInt(args[1]), Long.parseLong(args[2]));
+            if (args[3].endsWith(CompiledWorkflow.EXTENSION)) {
+                generator.writeCompiled(args[3]);
+            } else {
+                generator.writeDax(args[3]);
+            }
+            System.out.println(args[3] + ": " + generator.getTaskCount() + " tasks");
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
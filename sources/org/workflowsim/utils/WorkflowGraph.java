@@ -0,0 +1,458 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.workflowsim.Task;
+import org.workflowsim.clustering.TaskSet;
+
+/**
+ * WorkflowGraph computes the structural properties of a workflow, the depth
+ * and the impact factor of its nodes, in a single pass over a topological
+ * order instead of walking every path of the workflow. The order is computed
+ * with Kahn's algorithm, so a graph of V nodes and E dependencies takes
+ * O(V+E) time and no recursion, however wide or long the workflow is.
+ *
+ * A graph is made of the nodes it is created with, tasks or task sets, and
+ * of all their ancestors. The dependencies are taken from the parent lists
+ * only, since the clustering methods do not always keep the child lists up to
+ * date. The depth of a node is the length of the longest path from a root (a
+ * node without parents) to it, the roots having depth 1. The impact factor of
+ * a node is the share of the exit nodes it leads to: each exit node gets
+ * 1/exits and each node splits its impact factor equally among its parents.
+ *
+ * The same computations are available on graphs given by the parent indices
+ * of each node, for workflows too large to be made of Task objects.
+ *
+ * @date Oct 18, 2026
+ */
+public abstract class WorkflowGraph<T> {
+
+    /**
+     * The nodes, without duplicates, in the order they are given, followed
+     * by their ancestors.
+     */
+    private final List<T> nodes;
+    /**
+     * Map from node to its index in nodes.
+     */
+    private final Map<T, Integer> indices;
+    /**
+     * The indices of the parents of each node.
+     */
+    private int[][] parents;
+    /**
+     * The indices of the children of each node.
+     */
+    private int[][] children;
+    /**
+     * The indices of the nodes in topological order, computed once.
+     */
+    private int[] order;
+
+    /**
+     * Initialize a WorkflowGraph
+     *
+     * @param nodes the nodes, duplicates are ignored
+     */
+    protected WorkflowGraph(Collection<? extends T> nodes) {
+        this.nodes = new ArrayList<T>(nodes.size());
+        this.indices = new IdentityHashMap<T, Integer>(nodes.size());
+        for (T node : nodes) {
+            index(node);
+        }
+    }
+
+    /**
+     * Gets the parents of a node
+     *
+     * @param node the node
+     * @return the parents
+     */
+    protected abstract List<? extends T> getParents(T node);
+
+    /**
+     * Creates the graph of tasks
+     *
+     * @param tasks the tasks
+     * @return the graph
+     */
+    public static WorkflowGraph<Task> forTasks(Collection<? extends Task> tasks) {
+        return new WorkflowGraph<Task>(tasks) {
+            @Override
+            protected List<Task> getParents(Task task) {
+                return task.getParentList();
+            }
+        };
+    }
+
+    /**
+     * Creates the graph of task sets
+     *
+     * @param sets the task sets
+     * @return the graph
+     */
+    public static WorkflowGraph<TaskSet> forTaskSets(Collection<? extends TaskSet> sets) {
+        return new WorkflowGraph<TaskSet>(sets) {
+            @Override
+            protected List<TaskSet> getParents(TaskSet set) {
+                return set.getParentList();
+            }
+        };
+    }
+
+    /**
+     * Sets the depth of each task
+     *
+     * @param tasks the tasks
+     */
+    public static void setDepths(Collection<? extends Task> tasks) {
+        Map<Task, Integer> depths = forTasks(tasks).getDepths();
+        for (Map.Entry<Task, Integer> entry : depths.entrySet()) {
+            entry.getKey().setDepth(entry.getValue());
+        }
+    }
+
+    /**
+     * Sets the impact factor of each task, the exit tasks being the tasks
+     * without children
+     *
+     * @param tasks the tasks
+     */
+    public static void setImpactFactors(Collection<? extends Task> tasks) {
+        Map<Task, Double> impacts = forTasks(tasks).getImpactFactors();
+        for (Map.Entry<Task, Double> entry : impacts.entrySet()) {
+            entry.getKey().setImpact(entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the index of a node, adding it to the graph if needed
+     *
+     * @param node the node
+     * @return the index
+     */
+    private int index(T node) {
+        Integer index = this.indices.get(node);
+        if (index == null) {
+            index = this.nodes.size();
+            this.indices.put(node, index);
+            this.nodes.add(node);
+        }
+        return index;
+    }
+
+    /**
+     * Collects the dependencies, adding the ancestors to the graph
+     */
+    private void link() {
+        if (this.parents != null) {
+            return;
+        }
+        List<int[]> parentList = new ArrayList<int[]>(this.nodes.size());
+        // the ancestors are appended to nodes while it is walked
+        for (int i = 0; i < this.nodes.size(); i++) {
+            List<? extends T> list = getParents(this.nodes.get(i));
+            int[] indexes = new int[list.size()];
+            for (int j = 0; j < indexes.length; j++) {
+                indexes[j] = index(list.get(j));
+            }
+            parentList.add(indexes);
+        }
+        this.parents = parentList.toArray(new int[this.nodes.size()][]);
+        this.children = children(this.parents);
+    }
+
+    /**
+     * Derives the children of each node from the parents
+     *
+     * @param parents the indices of the parents of each node
+     * @return the indices of the children of each node, in node order
+     */
+    private static int[][] children(int[][] parents) {
+        int size = parents.length;
+        int[] counts = new int[size];
+        for (int[] indexes : parents) {
+            for (int parent : indexes) {
+                counts[parent]++;
+            }
+        }
+        int[][] children = new int[size][];
+        for (int i = 0; i < size; i++) {
+            children[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int parent : parents[i]) {
+                children[parent][counts[parent]++] = i;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Computes the topological order with Kahn's algorithm
+     *
+     * @return the indices of the nodes in topological order
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    private int[] order() {
+        if (this.order == null) {
+            link();
+            this.order = order(this.parents, this.children);
+        }
+        return this.order;
+    }
+
+    /**
+     * Computes the topological order with Kahn's algorithm
+     *
+     * @param parents the indices of the parents of each node
+     * @param children the indices of the children of each node
+     * @return the indices of the nodes in topological order
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    private static int[] order(int[][] parents, int[][] children) {
+        int size = parents.length;
+        int[] inDegrees = new int[size];
+        int[] sorted = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            inDegrees[i] = parents[i].length;
+            if (inDegrees[i] == 0) {
+                sorted[tail++] = i;
+            }
+        }
+        // the sorted nodes are the queue of Kahn's algorithm
+        for (int head = 0; head < tail; head++) {
+            for (int child : children[sorted[head]]) {
+                if (--inDegrees[child] == 0) {
+                    sorted[tail++] = child;
+                }
+            }
+        }
+        if (tail < size) {
+            throw new IllegalStateException("The workflow has a cycle among "
+                    + (size - tail) + " of its " + size + " nodes");
+        }
+        return sorted;
+    }
+
+    /**
+     * Gets the nodes of the graph
+     *
+     * @return the nodes, in the order they were given, followed by their
+     * ancestors
+     */
+    public List<T> getNodes() {
+        link();
+        return Collections.unmodifiableList(this.nodes);
+    }
+
+    /**
+     * Gets the nodes in topological order, i.e. every node comes after its
+     * parents. The roots come first, in the order they were given.
+     *
+     * @return the nodes in topological order
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    public List<T> getTopologicalOrder() {
+        int[] sorted = order();
+        List<T> list = new ArrayList<T>(sorted.length);
+        for (int index : sorted) {
+            list.add(this.nodes.get(index));
+        }
+        return list;
+    }
+
+    /**
+     * Gets the depth of each node
+     *
+     * @return map from node to depth
+     */
+    public Map<T, Integer> getDepths() {
+        int[] depths = depths();
+        Map<T, Integer> map = new IdentityHashMap<T, Integer>(depths.length);
+        for (int i = 0; i < depths.length; i++) {
+            map.put(this.nodes.get(i), depths[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Computes the depth of each node
+     *
+     * @return the depths, by index
+     */
+    private int[] depths() {
+        int[] sorted = order();
+        return depths(this.parents, sorted);
+    }
+
+    /**
+     * Computes the depth of each node
+     *
+     * @param parents the indices of the parents of each node
+     * @param sorted the indices of the nodes in topological order
+     * @return the depths, by index
+     */
+    private static int[] depths(int[][] parents, int[] sorted) {
+        int[] depths = new int[sorted.length];
+        for (int index : sorted) {
+            // the parents have been visited, so their depth is final
+            int depth = 0;
+            for (int parent : parents[index]) {
+                depth = Math.max(depth, depths[parent]);
+            }
+            depths[index] = depth + 1;
+        }
+        return depths;
+    }
+
+    /**
+     * Computes the depth of each node of a graph given by its parents
+     *
+     * @param parents the indices of the parents of each node
+     * @return the depths, by index, 1 for a root
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    public static int[] getDepths(int[][] parents) {
+        return depths(parents, order(parents, children(parents)));
+    }
+
+    /**
+     * Gets the nodes at each depth
+     *
+     * @return map from depth to the nodes at that depth, in the order of
+     * getNodes, sorted by depth
+     */
+    public Map<Integer, List<T>> getLevels() {
+        int[] depths = depths();
+        Map<Integer, List<T>> levels = new TreeMap<Integer, List<T>>();
+        for (int i = 0; i < depths.length; i++) {
+            List<T> level = levels.get(depths[i]);
+            if (level == null) {
+                level = new ArrayList<T>();
+                levels.put(depths[i], level);
+            }
+            level.add(this.nodes.get(i));
+        }
+        return levels;
+    }
+
+    /**
+     * Gets the exit nodes, the nodes without children
+     *
+     * @return the exit nodes, in the order they were given
+     */
+    public List<T> getExits() {
+        link();
+        List<T> exits = new ArrayList<T>();
+        for (int i = 0; i < this.children.length; i++) {
+            if (this.children[i].length == 0) {
+                exits.add(this.nodes.get(i));
+            }
+        }
+        return exits;
+    }
+
+    /**
+     * Gets the impact factor of each node, the exit nodes being the nodes
+     * without children
+     *
+     * @return map from node to impact factor
+     */
+    public Map<T, Double> getImpactFactors() {
+        return getImpactFactors(getExits());
+    }
+
+    /**
+     * Gets the impact factor of each node. Each exit node gets 1/exits and
+     * each node splits its impact factor equally among all its parents.
+     *
+     * @param exits the exit nodes, which must be in the graph
+     * @return map from node to impact factor
+     */
+    public Map<T, Double> getImpactFactors(Collection<? extends T> exits) {
+        int[] sorted = order();
+        double[] impacts = new double[sorted.length];
+        double avg = 1.0 / exits.size();
+        for (T exit : exits) {
+            impacts[this.indices.get(exit)] += avg;
+        }
+        share(this.parents, sorted, impacts);
+        Map<T, Double> map = new IdentityHashMap<T, Double>(sorted.length);
+        for (int i = 0; i < impacts.length; i++) {
+            map.put(this.nodes.get(i), impacts[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Splits the impact factor of each node equally among its parents
+     *
+     * @param parents the indices of the parents of each node
+     * @param sorted the indices of the nodes in topological order
+     * @param impacts the impact factors of the exit nodes, by index, to
+     * which the impact factors of the other nodes are added
+     */
+    private static void share(int[][] parents, int[] sorted, double[] impacts) {
+        // the children come first, so the impact factor is final
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            int[] indexes = parents[sorted[i]];
+            if (indexes.length > 0) {
+                double share = impacts[sorted[i]] / indexes.length;
+                for (int parent : indexes) {
+                    impacts[parent] += share;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the impact factor of each node of a graph given by its
+     * parents, the exit nodes being the nodes without children
+     *
+     * @param parents the indices of the parents of each node
+     * @return the impact factors, by index
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    public static double[] getImpactFactors(int[][] parents) {
+        int[][] children = children(parents);
+        int exits = 0;
+        for (int[] indexes : children) {
+            if (indexes.length == 0) {
+                exits++;
+            }
+        }
+        double[] impacts = new double[parents.length];
+        double avg = 1.0 / exits;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i].length == 0) {
+                impacts[i] += avg;
+            }
+        }
+        share(parents, order(parents, children), impacts);
+        return impacts;
+    }
+}